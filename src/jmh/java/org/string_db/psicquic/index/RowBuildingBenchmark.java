@@ -0,0 +1,215 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.hupo.psi.calimocho.model.Row;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.string_db.StringDbScores;
+import psidev.psi.mi.calimocho.solr.converter.Converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The row building hot path, on a {@link SyntheticSpecies}: the whole {@link StringdbRowBuilder}, each
+ * {@link FieldBuilder} on its own, {@link SourceDbLookup}, {@link RowBuilder} and the solr {@link Converter}.
+ * Every invocation takes the next pair, so hubs come up as often as they do when indexing.
+ * <p/>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec}, the {@code gc} profiler reports allocation
+ * per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class RowBuildingBenchmark {
+
+    @Param({"19566"})
+    int proteins;
+    @Param({"500000"})
+    int pairs;
+    /**
+     * 0 to build protein fields every time, see {@link ProteinFieldCache}
+     */
+    @Param({"0", "262144"})
+    int fieldCacheEntries;
+
+    SyntheticSpecies species;
+    StringdbRowBuilder rowBuilder;
+    SourceDbLookup sourceDbLookup;
+    FieldBuilder idsFieldBuilder;
+    FieldBuilder refseqFieldBuilder;
+    FieldBuilder aliasFieldBuilder;
+    FieldBuilder taxonFieldBuilder;
+    FieldBuilder interactorTypeFieldBuilder;
+    FieldBuilder rogidFieldBuilder;
+    Converter converter;
+    /**
+     * rows as the row builder makes them, input of the converter
+     */
+    List<Row> rows;
+    /**
+     * pairs sharing an evidence set, the lookup is only done for experimental and database evidence
+     */
+    List<StringDbScores> curatedPairs;
+    int nextPair;
+    int nextRow;
+    int nextCuratedPair;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        species = new SyntheticSpecies(proteins, pairs, 42);
+        sourceDbLookup = new SourceDbLookup(species.proteinsSets, species.setsCollections);
+        final ProteinFieldCache fieldCache = fieldCacheEntries > 0
+                ? new ProteinFieldCache(proteins, fieldCacheEntries) : null;
+        final IntTable<String[]> refseqIds = RefseqAlternativeIdsFieldBuilder.toArrays(species.refseqIds);
+        //ROGIDs are calculated once per protein, like when indexing
+        final RogidCache rogids = new RogidCache(SyntheticSpecies.SPECIES_ID, IntTable.copyOf(species.sequences));
+
+        final FieldBuilder chain = new IdsFieldBuilder(IntTable.copyOf(species.externalIds), IntTable.copyOf(species.uniprotIds))
+                .cachingFields(fieldCache);
+        chain.chain(new RefseqAlternativeIdsFieldBuilder(refseqIds).cachingFields(fieldCache));
+        chain.chain(new AliasFieldBuilder(IntTable.copyOf(species.proteinNames)).cachingFields(fieldCache));
+        chain.chain(new MultipleTaxonNamesFieldBuilder(SyntheticSpecies.SPECIES_ID, species.speciesNames));
+        chain.chain(new InteractorTypeFieldBuilder());
+        chain.chain(new RogidFieldBuilder(rogids).cachingFields(fieldCache));
+        rowBuilder = new StringdbRowBuilder(new ConfidenceColumnBuilder(sourceDbLookup), chain, rogids, fieldCache);
+
+        idsFieldBuilder = new IdsFieldBuilder(IntTable.copyOf(species.externalIds), IntTable.copyOf(species.uniprotIds))
+                .cachingFields(fieldCache);
+        refseqFieldBuilder = new RefseqAlternativeIdsFieldBuilder(refseqIds).cachingFields(fieldCache);
+        aliasFieldBuilder = new AliasFieldBuilder(IntTable.copyOf(species.proteinNames)).cachingFields(fieldCache);
+        taxonFieldBuilder = new MultipleTaxonNamesFieldBuilder(SyntheticSpecies.SPECIES_ID, species.speciesNames);
+        interactorTypeFieldBuilder = new InteractorTypeFieldBuilder();
+        rogidFieldBuilder = new RogidFieldBuilder(rogids).cachingFields(fieldCache);
+
+        curatedPairs = new ArrayList<>();
+        for (StringDbScores scores : species.pairs) {
+            final Set<String> setsA = species.proteinsSets.get(scores.getProteinA());
+            final Set<String> setsB = species.proteinsSets.get(scores.getProteinB());
+            if (setsA != null && setsB != null && !Collections.disjoint(setsA, setsB)) {
+                curatedPairs.add(scores);
+            }
+        }
+
+        converter = new Converter();
+        rows = new ArrayList<>();
+        for (StringDbScores scores : species.pairs.subList(0, Math.min(10000, species.pairs.size()))) {
+            rows.addAll(rowBuilder.build(scores));
+        }
+    }
+
+    private StringDbScores nextPair() {
+        final StringDbScores scores = species.pairs.get(nextPair);
+        nextPair = nextPair + 1 == species.pairs.size() ? 0 : nextPair + 1;
+        return scores;
+    }
+
+    private Row appendFields(FieldBuilder fieldBuilder) {
+        final StringDbScores scores = nextPair();
+        return fieldBuilder.proteins(scores.getProteinA(), scores.getProteinB()).addTo(new RowBuilder()).build();
+    }
+
+    @Benchmark
+    public List<Row> stringdbRowBuilder() {
+        return rowBuilder.build(nextPair());
+    }
+
+    @Benchmark
+    public Row idsFieldBuilder() {
+        return appendFields(idsFieldBuilder);
+    }
+
+    @Benchmark
+    public Row refseqFieldBuilder() {
+        return appendFields(refseqFieldBuilder);
+    }
+
+    @Benchmark
+    public Row aliasFieldBuilder() {
+        return appendFields(aliasFieldBuilder);
+    }
+
+    @Benchmark
+    public Row taxonFieldBuilder() {
+        return appendFields(taxonFieldBuilder);
+    }
+
+    @Benchmark
+    public Row interactorTypeFieldBuilder() {
+        return appendFields(interactorTypeFieldBuilder);
+    }
+
+    @Benchmark
+    public Row rogidFieldBuilder() {
+        return appendFields(rogidFieldBuilder);
+    }
+
+    @Benchmark
+    public Set<Pair<String, String>> sourceDbLookup() {
+        final StringDbScores scores = curatedPairs.get(nextCuratedPair);
+        nextCuratedPair = nextCuratedPair + 1 == curatedPairs.size() ? 0 : nextCuratedPair + 1;
+        return sourceDbLookup.getSourceDbs(scores.getProteinA(), scores.getProteinB());
+    }
+
+    /**
+     * a row with the same columns as the ones the indexer builds, without looking anything up
+     */
+    @Benchmark
+    public Row rowBuilder() {
+        final StringDbScores scores = nextPair();
+        return new RowBuilder()
+                .withIdA(species.externalIds.get(scores.getProteinA()))
+                .withIdB(species.externalIds.get(scores.getProteinB()))
+                .withAliasA("string", "ARF5").withAliasB("string", "ACAP1")
+                .withTaxId(SyntheticSpecies.SPECIES_ID, "Homo sapiens")
+                .withDetectionMethod("MI:0087", "predictive text mining")
+                .withInteractionType("MI:1110", "predicted interaction")
+                .withSourceDatabase("MI:1014", "string")
+                .withConfidence(900)
+                .withInteractorTypeA("MI:0326").withInteractorTypeB("MI:0326")
+                .build();
+    }
+
+    @Benchmark
+    public SolrInputDocument converter() throws Exception {
+        final Row row = rows.get(nextRow);
+        nextRow = nextRow + 1 == rows.size() ? 0 : nextRow + 1;
+        return converter.toSolrDocument(row);
+    }
+
+    /**
+     * run from an IDE, with allocation profiling
+     */
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(RowBuildingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.string_db.ProteinExternalId;
+import org.string_db.StringDbScores;
+
+import java.util.*;
+
+/**
+ * Made up species data of realistic size and shape, for benchmarks: about as many proteins as human,
+ * most of them with a few interactions and a handful of hubs with thousands, most pairs with textmining
+ * and coexpression evidence and few with experimental or database ones.
+ * <p/>
+ * Always the same for the same seed.
+ */
+final class SyntheticSpecies {
+    static final int SPECIES_ID = 9606;
+    static final int HUMAN_PROTEINS = 19566;
+    /**
+     * protein ids of a species are contiguous, starting somewhere
+     */
+    static final int FIRST_PROTEIN_ID = 1847;
+    private static final String AMINO_ACIDS = "ACDEFGHIKLMNPQRSTVWY";
+    /**
+     * score type ids, as in network.score_types
+     */
+    static final int NEIGHBORHOOD = 1;
+    static final int FUSION = 2;
+    static final int COEXPRESSION = 3;
+    static final int EXPERIMENTAL = 4;
+    static final int DATABASE = 5;
+    static final int TEXTMINING = 6;
+    static final Map<Integer, String> SCORE_TYPES = new LinkedHashMap<>();
+
+    static {
+        //names as DbFacade.loadScoreTypes() returns them
+        SCORE_TYPES.put(NEIGHBORHOOD, "neighborhood");
+        SCORE_TYPES.put(FUSION, "fusion");
+        SCORE_TYPES.put(COEXPRESSION, "coexpression");
+        SCORE_TYPES.put(EXPERIMENTAL, "experimental");
+        SCORE_TYPES.put(DATABASE, "database");
+        SCORE_TYPES.put(TEXTMINING, "textmining");
+    }
+
+    private static final String[] COLLECTIONS = {"grid", "hprd", "bind", "intact", "mint", "dip", "kegg_pathways", "reactome"};
+
+    final Map<Integer, ProteinExternalId> externalIds = new HashMap<>();
+    final Map<Integer, String> uniprotIds = new HashMap<>();
+    final Map<Integer, Set<String>> refseqIds = new HashMap<>();
+    final Map<Integer, String> proteinNames = new HashMap<>();
+    final Map<Integer, String> sequences = new HashMap<>();
+    final Map<Integer, Set<String>> proteinsSets = new HashMap<>();
+    final Map<String, String> setsCollections = new HashMap<>();
+    final List<String> speciesNames = Arrays.asList("Homo sapiens", "human");
+    final List<StringDbScores> pairs;
+
+    private final Random random;
+    private final List<String> setIds;
+
+    /**
+     * @param proteins no. of proteins
+     * @param pairs    no. of interacting pairs
+     * @param seed
+     */
+    SyntheticSpecies(int proteins, int pairs, long seed) {
+        random = new Random(seed);
+        for (int i = 0; i < proteins; i++) {
+            final int id = FIRST_PROTEIN_ID + i;
+            externalIds.put(id, new ProteinExternalId(SPECIES_ID + ".ENSP" + String.format("%011d", id)));
+            proteinNames.put(id, "GENE" + Integer.toString(id, 36).toUpperCase());
+            //most proteins are in UniProt, about a third has refseq ids
+            if (random.nextInt(10) < 8) {
+                uniprotIds.put(id, "Q" + Integer.toString(100000 + i, 36).toUpperCase());
+            }
+            if (random.nextInt(3) == 0) {
+                final Set<String> refseq = new LinkedHashSet<>();
+                for (int r = 1 + random.nextInt(3); r > 0; r--) {
+                    refseq.add("NP_" + String.format("%06d", random.nextInt(1000000)) + "." + (1 + random.nextInt(3)));
+                }
+                refseqIds.put(id, refseq);
+            }
+            sequences.put(id, sequence());
+        }
+        final int sets = Math.max(1, proteins / 4);
+        for (int s = 0; s < sets; s++) {
+            final String collection = COLLECTIONS[skewed(COLLECTIONS.length)];
+            setsCollections.put(collection + ":" + s, collection);
+        }
+        setIds = new ArrayList<>(setsCollections.keySet());
+        Collections.sort(setIds);
+        for (int i = 0; i < proteins; i++) {
+            //sets of proteins are skewed too, hubs are in lots of them
+            final int memberships = random.nextInt(4) == 0 ? 0 : 1 + (int) (20 * Math.pow(random.nextDouble(), 6));
+            final Set<String> proteinSets = new HashSet<>();
+            for (int m = 0; m < memberships; m++) {
+                proteinSets.add(setIds.get(skewed(setIds.size())));
+            }
+            if (!proteinSets.isEmpty()) {
+                proteinsSets.put(FIRST_PROTEIN_ID + i, proteinSets);
+            }
+        }
+        this.pairs = new ArrayList<>(pairs);
+        for (int p = 0; p < pairs; p++) {
+            int a = FIRST_PROTEIN_ID + skewed(proteins);
+            int b = FIRST_PROTEIN_ID + random.nextInt(proteins);
+            if (a == b) {
+                b = a == FIRST_PROTEIN_ID ? a + 1 : a - 1;
+            }
+            this.pairs.add(scores(Math.min(a, b), Math.max(a, b)));
+        }
+    }
+
+    /**
+     * @return number in [0, n), low ones far more often than high ones
+     */
+    private int skewed(int n) {
+        return (int) (n * Math.pow(random.nextDouble(), 3));
+    }
+
+    private String sequence() {
+        //lengths are roughly log-normal, median around 400 residues
+        final int length = Math.max(30, (int) Math.exp(6 + 0.7 * random.nextGaussian()));
+        final StringBuilder sequence = new StringBuilder(length);
+        sequence.append('M');
+        for (int i = 1; i < length; i++) {
+            sequence.append(AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+        }
+        return sequence.toString();
+    }
+
+    private StringDbScores scores(int proteinA, int proteinB) {
+        final List<Integer[]> scores = new ArrayList<>();
+        scores.add(score(TEXTMINING));
+        if (random.nextInt(2) == 0) {
+            scores.add(score(COEXPRESSION));
+        }
+        final boolean experimental = random.nextInt(5) == 0;
+        final boolean database = random.nextInt(6) == 0;
+        if (experimental) {
+            scores.add(score(EXPERIMENTAL));
+        }
+        if (database) {
+            scores.add(new Integer[]{DATABASE, 900});
+        }
+        if (experimental || database) {
+            //these channels come from curated sets, so both proteins are in at least one of them
+            shareSet(proteinA, proteinB);
+        }
+        if (random.nextInt(20) == 0) {
+            scores.add(score(NEIGHBORHOOD));
+        }
+        if (random.nextInt(50) == 0) {
+            scores.add(score(FUSION));
+        }
+        return new StringDbScores(proteinA, proteinB, SCORE_TYPES, scores.toArray(new Integer[scores.size()][]));
+    }
+
+    private void shareSet(int proteinA, int proteinB) {
+        Set<String> setsA = proteinsSets.get(proteinA);
+        final Set<String> setsB = proteinsSets.get(proteinB);
+        if (setsA != null && setsB != null && !Collections.disjoint(setsA, setsB)) {
+            return;
+        }
+        if (setsA == null) {
+            setsA = new HashSet<>();
+            proteinsSets.put(proteinA, setsA);
+        }
+        final String set = setsA.isEmpty() ? setIds.get(skewed(setIds.size())) : setsA.iterator().next();
+        setsA.add(set);
+        if (setsB == null) {
+            proteinsSets.put(proteinB, new HashSet<>(Collections.singleton(set)));
+        } else {
+            setsB.add(set);
+        }
+    }
+
+    private Integer[] score(int scoreType) {
+        return new Integer[]{scoreType, 150 + random.nextInt(850)};
+    }
+}
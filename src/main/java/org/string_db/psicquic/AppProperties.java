@@ -45,7 +45,121 @@ public final class AppProperties {
     public static final String CONFIG_DIR = "/opt/stringdb/" + STRINGDB_VERSION + "/";
     public static final AppProperties instance = new AppProperties();
     public final String solrUrl;
-    final ApplicationContext ctx;
+    /**
+     * no. of documents sent to solr in one update request
+     */
+    public final int solrBatchSize;
+    /**
+     * upper limit for the no. of threads sending updates to solr, the actual no. adapts to how solr copes
+     */
+    public final int solrMaxSenderThreads;
+    /**
+     * number of species indexed concurrently, 1 means one after another
+     */
+    public final int indexingThreads;
+    /**
+     * number of row building threads per species, 0 to read, build and send from a single thread
+     */
+    public final int pipelineWorkers;
+    /**
+     * max no. of chunks waiting between two indexing pipeline stages
+     */
+    public final int pipelineQueueSize;
+    /**
+     * file recording indexing progress, a run that didn't finish resumes from it; empty to not record it
+     */
+    public final String indexCheckpointFile;
+    /**
+     * per species fingerprints of the indexed data, kept between builds; empty to not record them
+     */
+    public final String indexFingerprintsFile;
+    /**
+     * re-index only species whose fingerprint changed since the last build, instead of all of them,
+     * one at a time; needs {@link #indexFingerprintsFile}
+     */
+    public final boolean deltaIndexing;
+    /**
+     * number of species exported to MITAB files concurrently
+     */
+    public final int exportThreads;
+    /**
+     * heap the species exported at the same time have to fit into (estimated, and in use), 0 for 3/4 of the max heap
+     */
+    public final int exportHeapBudgetMb;
+    /**
+     * heap the species indexed at the same time have to fit into (estimated, and in use), 0 for 3/4 of the max heap
+     */
+    public final int indexingHeapBudgetMb;
+    /**
+     * none, gzip or bgzf
+     */
+    public final String exportCompression;
+    /**
+     * ROGIDs kept between runs, empty to calculate them all every time
+     */
+    public final String rogidStoreFile;
+    /**
+     * ROGIDs not used in that many runs (indexing, export or snapshot) are dropped once the store fills up
+     */
+    public final int rogidStoreMaxUnusedRuns;
+    /**
+     * upper limit for the no. of per protein field groups cached while indexing a species, 0 to not cache them;
+     * the export caches the MITAB columns of a quarter as many proteins
+     */
+    public final int fieldCacheEntries;
+    /**
+     * no. of lookup tables loaded at the same time (for all species together), 0 to load a species' tables one after another
+     */
+    public final int tableLoaderThreads;
+    /**
+     * how scores are read: jdbc (a cursor) or copy (binary COPY)
+     */
+    public final String scoresReader;
+    /**
+     * no. of protein ranges of a species read concurrently, each on its own db connection
+     */
+    public final int scoresPartitions;
+    /**
+     * species snapshots, indexing and export read from them instead of the database when set
+     */
+    public final String snapshotDir;
+    /**
+     * seconds between two logs of per stage indexing stats, 0 to only log them per species
+     */
+    public final int statsLogSeconds;
+    /**
+     * when set, the index is built in this directory by an embedded solr instead of being sent to solr_url
+     */
+    public final String offlineIndexDir;
+    /**
+     * solr home (with conf/) the embedded solr is configured from
+     */
+    public final String offlineSolrHome;
+    /**
+     * MB of documents the embedded solr buffers before flushing a segment
+     */
+    public final int offlineRamBufferMb;
+    /**
+     * merge factor of the embedded solr
+     */
+    public final int offlineMergeFactor;
+    /**
+     * no. of segments the offline index is merged into when it's finished, 0 to not merge it
+     */
+    public final int offlineMaxSegments;
+    /**
+     * no. of shards the offline index is built in, each with its own index writer
+     */
+    public final int offlineShards;
+    /**
+     * merge the offline shards into one index, otherwise they're left to be served as a shard set
+     */
+    public final boolean offlineMergeShards;
+    /**
+     * created (and connected to the database) the first time a repository or template is asked for,
+     * so that reading snapshots never does
+     */
+    private ApplicationContext ctx;
 
     /**
      * Read all property files and fill in the fields
@@ -65,23 +179,66 @@ public final class AppProperties {
             throw new ExceptionInInitializerError("solr_url property missing!");
         }
         solrUrl = props.getProperty("solr_url");
+        solrBatchSize = intProperty(props, "solr_batch_size", 1000);
+        solrMaxSenderThreads = intProperty(props, "solr_max_sender_threads", Runtime.getRuntime().availableProcessors());
+        indexingThreads = intProperty(props, "indexing_threads", 1);
+        pipelineWorkers = intProperty(props, "pipeline_workers", 0);
+        pipelineQueueSize = intProperty(props, "pipeline_queue_size", 100);
+        indexCheckpointFile = props.getProperty("index_checkpoint_file", "").trim();
+        indexFingerprintsFile = props.getProperty("index_fingerprints_file", "").trim();
+        deltaIndexing = Boolean.parseBoolean(props.getProperty("delta_indexing", "false").trim());
+        exportThreads = intProperty(props, "export_threads", 1);
+        exportHeapBudgetMb = intProperty(props, "export_heap_budget_mb", 0);
+        indexingHeapBudgetMb = intProperty(props, "indexing_heap_budget_mb", 0);
+        exportCompression = props.getProperty("export_compression", "none").trim();
+        rogidStoreFile = props.getProperty("rogid_store_file", "").trim();
+        rogidStoreMaxUnusedRuns = intProperty(props, "rogid_store_max_unused_runs", 6);
+        fieldCacheEntries = intProperty(props, "field_cache_entries", 1 << 18);
+        tableLoaderThreads = intProperty(props, "table_loader_threads", 4);
+        scoresReader = props.getProperty("scores_reader", "jdbc").trim();
+        scoresPartitions = intProperty(props, "scores_partitions", 1);
+        snapshotDir = props.getProperty("snapshot_dir", "").trim();
+        statsLogSeconds = intProperty(props, "stats_log_seconds", 60);
+        offlineIndexDir = props.getProperty("offline_index_dir", "").trim();
+        offlineSolrHome = props.getProperty("offline_solr_home", "docs/solr-home").trim();
+        offlineRamBufferMb = intProperty(props, "offline_ram_buffer_mb", 1024);
+        offlineMergeFactor = intProperty(props, "offline_merge_factor", 50);
+        offlineMaxSegments = intProperty(props, "offline_max_segments", 1);
+        offlineShards = intProperty(props, "offline_shards", 1);
+        offlineMergeShards = Boolean.parseBoolean(props.getProperty("offline_merge_shards", "true").trim());
+    }
+
+    private synchronized ApplicationContext context() {
+        if (ctx == null) {
+            ctx = new AnnotationConfigApplicationContext(AppConfig.class, DriverDataSourceConfig.class);
+        }
+        return ctx;
+    }
 
-        ctx = new AnnotationConfigApplicationContext(AppConfig.class, DriverDataSourceConfig.class);
+    private static int intProperty(Properties props, String name, int defaultValue) throws ExceptionInInitializerError {
+        if (!props.containsKey(name)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(props.getProperty(name).trim());
+        } catch (NumberFormatException e) {
+            throw new ExceptionInInitializerError("invalid " + name + " property: " + props.getProperty(name));
+        }
     }
 
     public ProteinRepository getProteinRepository() {
-        return ctx.getBean(ProteinRepositoryJdbc.class);
+        return context().getBean(ProteinRepositoryJdbc.class);
     }
 
     public SpeciesRepository getSpeciesRepository() {
-        return ctx.getBean(SpeciesRepository.class);
+        return context().getBean(SpeciesRepository.class);
     }
 
     public GenericQueryProcessor getGenericQueryProcessor() {
-        return ctx.getBean(GenericQueryProcessor.class);
+        return context().getBean(GenericQueryProcessor.class);
     }
 
     public JdbcTemplate getJdbcTemplate() {
-        return ctx.getBean(JdbcTemplate.class);
+        return context().getBean(JdbcTemplate.class);
     }
 }
@@ -20,6 +20,8 @@ package org.string_db.psicquic;
 
 import org.hupo.psi.calimocho.model.Row;
 
+import java.util.Collection;
+
 /**
  * @author Milan Simonovic <milan.simonovic@imls.uzh.ch>
  */
@@ -34,7 +36,16 @@ public interface SearchServer {
     void add(Row row) throws RuntimeException;
 
     /**
-     * Write all previously added interactions to the index.
+     * Add new interactions to the index; implementations can buffer them and send them
+     * in batches, so they might not be visible for search before {@link #commit(boolean)} is called.
+     *
+     * @param rows
+     * @throws RuntimeException
+     */
+    void addAll(Collection<Row> rows) throws RuntimeException;
+
+    /**
+     * Write all previously added (and buffered) interactions to the index.
      *
      * @param reopenSearcher true to wait to reopen searcher
      * @throws RuntimeException
@@ -52,4 +63,13 @@ public interface SearchServer {
      * @throws RuntimeException
      */
     void deleteAll() throws RuntimeException;
+
+    /**
+     * remove all interactions of one species, for example the ones left over by an interrupted run;
+     * like adds, not visible before {@link #commit(boolean)} is called.
+     *
+     * @param speciesId ncbi taxonomy id
+     * @throws RuntimeException
+     */
+    void deleteSpecies(Integer speciesId) throws RuntimeException;
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends batches of documents to solr from a pool of threads that sizes itself on the throughput (docs/sec)
+ * solr manages, measured every {@link #ADJUST_INTERVAL_MS} while batches are waiting to be sent:
+ * <ul>
+ * <li>add a thread, and keep it only if it raised the throughput by {@link #GAIN_FACTOR}; if it didn't,
+ * solr is saturated at that many threads, so take it away again and hold for a while</li>
+ * <li>once the throughput falls way below the best seen recently solr is busy with something else,
+ * most likely merging segments, so halve the threads and hold back new batches for a while</li>
+ * </ul>
+ * While no batches are waiting the producers, not solr, set the pace, so nothing is adjusted.
+ * The no. of batches allowed to wait is a multiple of the no. of threads; once it's reached
+ * {@link #send(Collection)} blocks.
+ * <p/>
+ * Every batch gets a ticket (a {@link Future}), a failed batch only fails whoever waits for its ticket,
+ * see {@link #await(List)}.
+ */
+class AdaptiveSolrSender implements IndexingStats.SenderMBean {
+    private static final Logger log = Logger.getLogger(AdaptiveSolrSender.class);
+    static final int INITIAL_THREADS = 2;
+    static final int BATCHES_PER_THREAD = 4;
+    /**
+     * throughput this many times below the best one means solr is struggling
+     */
+    static final double SLOWDOWN_FACTOR = 3.0;
+    /**
+     * an added thread has to raise the throughput by this factor to stay
+     */
+    static final double GAIN_FACTOR = 1.1;
+    static final long ADJUST_INTERVAL_MS = 5 * 1000;
+    /**
+     * no more threads are added for this long once one didn't pay off
+     */
+    static final long HOLD_MS = 6 * ADJUST_INTERVAL_MS;
+    static final long REPORT_INTERVAL_MS = 60 * 1000;
+    static final long MAX_PAUSE_MS = 10 * 1000;
+
+    private final SolrServer solrServer;
+    private final int minThreads;
+    private final int maxThreads;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong docsSent = new AtomicLong();
+    private final long started = System.currentTimeMillis();
+
+    // guarded by this
+    private int threads;
+    private int queueCapacity;
+    private int inFlight = 0;
+    private long pausedUntil = 0;
+    private long holdUntil = 0;
+    private double millisPerBatch = 0;
+    private double docsPerSecond = 0;
+    private double bestDocsPerSecond = 0;
+    /**
+     * the last adjustment added a thread, the next one decides whether it stays
+     */
+    private boolean addedThread = false;
+    private long lastAdjustment = System.currentTimeMillis();
+    private long docsAtLastAdjustment = 0;
+    private long lastReport = System.currentTimeMillis();
+    private long docsAtLastReport = 0;
+
+    AdaptiveSolrSender(SolrServer solrServer, int maxThreads) {
+        this.solrServer = solrServer;
+        this.minThreads = 1;
+        this.maxThreads = Math.max(minThreads, maxThreads);
+        this.threads = Math.min(INITIAL_THREADS, this.maxThreads);
+        this.queueCapacity = threads * BATCHES_PER_THREAD;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "solr-sender-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queue a batch to be sent, blocks while too many batches are waiting or while solr is given a break.
+     *
+     * @param docs
+     * @return the batch's ticket, done once solr answered, failed if the batch didn't make it
+     */
+    Future<?> send(final Collection<SolrInputDocument> docs) throws RuntimeException {
+        synchronized (this) {
+            while (true) {
+                final long pause = pausedUntil - System.currentTimeMillis();
+                if (inFlight < queueCapacity && pause <= 0) {
+                    break;
+                }
+                waitAWhile(inFlight >= queueCapacity ? 0 : pause);
+            }
+            inFlight++;
+        }
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                final long start = System.nanoTime();
+                try {
+                    final UpdateResponse response = solrServer.add(docs);
+                    if (0 != response.getStatus()) {
+                        throw new RuntimeException("operation failed: " + response);
+                    }
+                    return null;
+                } finally {
+                    completed(docs.size(), System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    /**
+     * Block until all the given batches are sent.
+     *
+     * @param tickets of the batches, as returned by {@link #send(Collection)}
+     * @throws RuntimeException if any of them failed, once all of them are done
+     */
+    static void await(List<Future<?>> tickets) throws RuntimeException {
+        Throwable failure = null;
+        for (Future<?> ticket : tickets) {
+            try {
+                ticket.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while waiting for solr", e);
+            }
+        }
+        if (failure != null) {
+            throw new RuntimeException("failed to send documents to solr", failure);
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private synchronized void completed(int docs, long nanos) {
+        inFlight--;
+        docsSent.addAndGet(docs);
+        final double batchMillis = nanos / 1e6;
+        //exponentially weighted, it's only used to size the pauses
+        millisPerBatch = millisPerBatch == 0 ? batchMillis : 0.8 * millisPerBatch + 0.2 * batchMillis;
+
+        final long now = System.currentTimeMillis();
+        if (now - lastAdjustment >= ADJUST_INTERVAL_MS) {
+            final long sent = docsSent.get();
+            adjust(now, (sent - docsAtLastAdjustment) * 1000.0 / (now - lastAdjustment), executor.getQueue().size() > 0);
+            docsAtLastAdjustment = sent;
+            lastAdjustment = now;
+        }
+        if (now - lastReport >= REPORT_INTERVAL_MS) {
+            log.info(this);
+            docsAtLastReport = docsSent.get();
+            lastReport = now;
+        }
+        notifyAll();
+    }
+
+    /**
+     * @param current   docs/sec since the last adjustment
+     * @param saturated batches are waiting, so solr and not the producers set the pace
+     */
+    synchronized void adjust(long now, double current, boolean saturated) {
+        final double previous = docsPerSecond;
+        docsPerSecond = current;
+        if (!saturated) {
+            addedThread = false;
+            return;
+        }
+        if (current * SLOWDOWN_FACTOR < bestDocsPerSecond) {
+            final int fewer = Math.max(minThreads, threads / 2);
+            pausedUntil = now + Math.min(MAX_PAUSE_MS, (long) millisPerBatch);
+            log.info(String.format("solr slowing down (%.0f docs/sec, best %.0f docs/sec), probably merging segments, throttling to %d threads",
+                    current, bestDocsPerSecond, fewer));
+            setThreads(fewer);
+            addedThread = false;
+        } else if (addedThread && current < previous * GAIN_FACTOR) {
+            //no faster with one more thread, solr is saturated
+            setThreads(Math.max(minThreads, threads - 1));
+            holdUntil = now + HOLD_MS;
+            addedThread = false;
+        } else if (threads < maxThreads && now >= holdUntil) {
+            setThreads(threads + 1);
+            addedThread = true;
+        } else {
+            addedThread = false;
+        }
+        //let the best one drift down a bit, one lucky interval shouldn't set the bar forever
+        bestDocsPerSecond = Math.max(current, bestDocsPerSecond * 0.95);
+    }
+
+    private void setThreads(int n) {
+        if (n > threads) {
+            executor.setMaximumPoolSize(n);
+            executor.setCorePoolSize(n);
+        } else if (n < threads) {
+            executor.setCorePoolSize(n);
+            executor.setMaximumPoolSize(n);
+        }
+        threads = n;
+        queueCapacity = n * BATCHES_PER_THREAD;
+    }
+
+    private void waitAWhile(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for solr", e);
+        }
+    }
+
+    @Override
+    public synchronized int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    @Override
+    public synchronized int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return no. of batches waiting to be sent
+     */
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return docs/sec over the last adjustment interval
+     */
+    @Override
+    public synchronized double getDocsPerSecond() {
+        return docsPerSecond;
+    }
+
+    @Override
+    public synchronized double getBestDocsPerSecond() {
+        return bestDocsPerSecond;
+    }
+
+    @Override
+    public synchronized boolean isPaused() {
+        return pausedUntil > System.currentTimeMillis();
+    }
+
+    @Override
+    public long getDocsSent() {
+        return docsSent.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        final long recent = (docsSent.get() - docsAtLastReport) * 1000 / Math.max(1, System.currentTimeMillis() - lastReport);
+        final long overall = docsSent.get() * 1000 / Math.max(1, System.currentTimeMillis() - started);
+        return String.format("solr sender: %d/%d threads, %d/%d batches waiting, %d docs/sec (best %.0f, %d overall), %d docs sent",
+                threads, maxThreads, getQueueDepth(), queueCapacity, recent, bestDocsPerSecond, overall, docsSent.get());
+    }
+}
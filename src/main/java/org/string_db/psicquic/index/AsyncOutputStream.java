@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Collects bytes into buffers and writes full buffers to the wrapped stream from a separate thread,
+ * so whatever that stream does (compressing, computing checksums, disk I/O) doesn't hold up the
+ * thread producing the data. Buffers are recycled, only {@link #BUFFERS} of them are ever allocated;
+ * when they're all waiting to be written, {@link #write} blocks.
+ * <p/>
+ * A failure of the writing thread is rethrown by the next {@link #write}, {@link #flush} or {@link #close}.
+ * Not thread safe, there should be only one producer.
+ */
+class AsyncOutputStream extends OutputStream {
+    static final int BUFFER_SIZE = 256 * 1024;
+    static final int BUFFERS = 4;
+    private static final byte[] CLOSE = new byte[0];
+
+    private final OutputStream out;
+    /**
+     * full buffers, trimmed copies of the last partial one and {@link #CLOSE}
+     */
+    private final BlockingQueue<byte[]> full = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final BlockingQueue<byte[]> empty = new ArrayBlockingQueue<>(BUFFERS);
+    /**
+     * the allocated buffers, by identity: only these go back to {@link #empty}, never the trimmed copies
+     */
+    private final Set<byte[]> pooled = Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+    private final Thread writer;
+    private volatile IOException failure;
+    private byte[] buffer;
+    private int position = 0;
+    private boolean closed = false;
+
+    AsyncOutputStream(OutputStream out, String threadName) {
+        this.out = out;
+        for (int i = 0; i < BUFFERS - 1; i++) {
+            empty.add(new byte[BUFFER_SIZE]);
+        }
+        buffer = new byte[BUFFER_SIZE];
+        pooled.addAll(empty);
+        pooled.add(buffer);
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void drain() {
+        try {
+            byte[] b;
+            while ((b = full.take()) != CLOSE) {
+                //after a failure keep taking buffers, so the producer never waits forever
+                if (failure == null) {
+                    try {
+                        out.write(b, 0, b.length);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                if (pooled.contains(b)) {
+                    empty.put(b);
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("interrupted", e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (position == BUFFER_SIZE) {
+            handOver();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (position == BUFFER_SIZE) {
+                handOver();
+            }
+            final int n = Math.min(len, BUFFER_SIZE - position);
+            System.arraycopy(b, off, buffer, position, n);
+            position += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void handOver() throws IOException {
+        checkFailure();
+        try {
+            full.put(buffer);
+            buffer = empty.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+        position = 0;
+        checkFailure();
+    }
+
+    /**
+     * Hands over what's buffered so far, it doesn't wait for it to be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkFailure();
+        if (position == BUFFER_SIZE) {
+            handOver();
+        } else if (position > 0) {
+            put(Arrays.copyOf(buffer, position));
+            position = 0;
+        }
+    }
+
+    /**
+     * Waits for everything to be written and closes the wrapped stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (failure == null && position > 0) {
+                put(position == BUFFER_SIZE ? buffer : Arrays.copyOf(buffer, position));
+            }
+            put(CLOSE);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } finally {
+            out.close();
+        }
+        checkFailure();
+    }
+
+    private void put(byte[] b) throws IOException {
+        try {
+            full.put(b);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("failed to write", failure);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the BGZF format (as bgzip from htslib does): a series of independent gzip members of at most 64KB,
+ * each one with its compressed size in the 'BC' extra field, ending with an empty member as EOF marker.
+ * Any gzip reader can read the whole file, and since every block can be decompressed on its own, the file
+ * can be split and read in parallel.
+ * @see <a href="https://samtools.github.io/hts-specs/SAMv1.pdf">SAM/BAM spec, section 4.1</a>
+ */
+class BgzfOutputStream extends OutputStream {
+    /**
+     * max uncompressed bytes per block, leaves room for incompressible data to fit into 64KB
+     */
+    static final int MAX_BLOCK_INPUT = 0xff00;
+    static final int MAX_BLOCK_SIZE = 0x10000;
+    static final int HEADER_SIZE = 18;
+    static final int FOOTER_SIZE = 8;
+    static final byte[] EOF_BLOCK = {
+            0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, 0x06, 0x00, 0x42, 0x43,
+            0x02, 0x00, 0x1b, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00};
+
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final Deflater noCompression = new Deflater(Deflater.NO_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] input = new byte[MAX_BLOCK_INPUT];
+    private final byte[] block = new byte[MAX_BLOCK_SIZE];
+    private int position = 0;
+    private boolean closed = false;
+
+    BgzfOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    BgzfOutputStream(OutputStream out, int level) {
+        this.out = out;
+        this.deflater = new Deflater(level, true);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        input[position++] = (byte) b;
+        if (position == MAX_BLOCK_INPUT) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            final int n = Math.min(len, MAX_BLOCK_INPUT - position);
+            System.arraycopy(b, off, input, position, n);
+            position += n;
+            off += n;
+            len -= n;
+            if (position == MAX_BLOCK_INPUT) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Ends the current block, so everything written so far can be decompressed.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (position > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (position > 0) {
+                writeBlock();
+            }
+            out.write(EOF_BLOCK);
+        } finally {
+            deflater.end();
+            noCompression.end();
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        int compressed = deflate(deflater);
+        if (compressed < 0) {
+            //incompressible data grew too much, store it as is
+            compressed = deflate(noCompression);
+            if (compressed < 0) {
+                throw new IOException("block doesn't fit into " + MAX_BLOCK_SIZE + " bytes");
+            }
+        }
+        crc.reset();
+        crc.update(input, 0, position);
+        final int blockSize = HEADER_SIZE + compressed + FOOTER_SIZE;
+
+        block[0] = 0x1f;
+        block[1] = (byte) 0x8b;
+        block[2] = 8; //deflate
+        block[3] = 4; //FEXTRA
+        block[4] = block[5] = block[6] = block[7] = 0; //mtime
+        block[8] = 0;
+        block[9] = (byte) 0xff; //unknown OS
+        putShort(10, 6); //XLEN
+        block[12] = 'B';
+        block[13] = 'C';
+        putShort(14, 2);
+        putShort(16, blockSize - 1);
+        final int footer = HEADER_SIZE + compressed;
+        putInt(footer, (int) crc.getValue());
+        putInt(footer + 4, position);
+        out.write(block, 0, blockSize);
+        position = 0;
+    }
+
+    /**
+     * @return no. of compressed bytes, put right after the header, or -1 if they don't fit
+     */
+    private int deflate(Deflater d) {
+        d.reset();
+        d.setInput(input, 0, position);
+        d.finish();
+        final int room = MAX_BLOCK_SIZE - HEADER_SIZE - FOOTER_SIZE;
+        int compressed = 0;
+        while (!d.finished() && compressed < room) {
+            compressed += d.deflate(block, HEADER_SIZE + compressed, room - compressed);
+        }
+        return d.finished() ? compressed : -1;
+    }
+
+    private void putShort(int at, int value) {
+        block[at] = (byte) value;
+        block[at + 1] = (byte) (value >>> 8);
+    }
+
+    private void putInt(int at, int value) {
+        putShort(at, value);
+        putShort(at + 2, value >>> 16);
+    }
+}
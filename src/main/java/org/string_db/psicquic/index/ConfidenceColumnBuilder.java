@@ -84,32 +84,62 @@ class ConfidenceColumnBuilder {
 
     Map<EvidenceType, RowBuilder> buildRowForEachEvidenceType(StringDbScores scores) {
         Map<EvidenceType, RowBuilder> result = new HashMap();
+        //the same for DATABASE and EXPERIMENTAL, so looked up at most once per pair
+        Set<Pair<String, String>> sourceDbs = null;
         for (EvidenceType evidenceType : detectionType.keySet()) {
-            Integer score = getScore(scores, evidenceType);
-            if (isZero(score) || score < StringDbScoresDataReader.MIN_SCORE) {
+            Integer score = getRowScore(scores, evidenceType);
+            if (score == null) {
                 continue;
             }
-            final RowBuilder builder = new RowBuilder()
-                    .withConfidence(score)
-                    .withDetectionMethod(getTerm(evidenceType), getTermText(evidenceType))
-                    .withInteractionType("psi-mi", EXPERIMENTAL.equals(evidenceType) ? "MI:0914" : "MI:1110");
-
-            for (Pair<String, String> sourceDb : getSourceDbs(scores.getProteinA(), scores.getProteinB(), evidenceType)) {
-                builder.withSourceDatabase(sourceDb.getX(), sourceDb.getY());
+            if (!usesSourceDbLookup(evidenceType)) {
+                result.put(evidenceType, buildRow(evidenceType, score, STRINGDB_SOURCE));
+                continue;
             }
-
-            result.put(evidenceType, builder);
+            if (sourceDbs == null) {
+                sourceDbs = getSourceDbs(scores.getProteinA(), scores.getProteinB(), evidenceType);
+            }
+            result.put(evidenceType, buildRow(evidenceType, score, sourceDbs));
         }
         return result;
     }
 
-    private Set<Pair<String, String>> getSourceDbs(Integer proteinA, Integer proteinB, EvidenceType evidenceType) {
-        if (DATABASE.equals(evidenceType) || EXPERIMENTAL.equals(evidenceType)) {
+    RowBuilder buildRow(EvidenceType evidenceType, Integer score, Set<Pair<String, String>> sourceDbs) {
+        final RowBuilder builder = new RowBuilder()
+                .withConfidence(score)
+                .withDetectionMethod(getTerm(evidenceType), getTermText(evidenceType))
+                .withInteractionType("psi-mi", EXPERIMENTAL.equals(evidenceType) ? "MI:0914" : "MI:1110");
+
+        for (Pair<String, String> sourceDb : sourceDbs) {
+            builder.withSourceDatabase(sourceDb.getX(), sourceDb.getY());
+        }
+        return builder;
+    }
+
+    /**
+     * @return the score of the row for this evidence type, or null if there's no row for it
+     */
+    Integer getRowScore(StringDbScores scores, EvidenceType evidenceType) {
+        Integer score = getScore(scores, evidenceType);
+        if (isZero(score) || score < StringDbScoresDataReader.MIN_SCORE) {
+            return null;
+        }
+        return score;
+    }
+
+    Set<Pair<String, String>> getSourceDbs(Integer proteinA, Integer proteinB, EvidenceType evidenceType) {
+        if (usesSourceDbLookup(evidenceType)) {
             return sourceDbLookup.getSourceDbs(proteinA, proteinB);
         }
         return STRINGDB_SOURCE;
     }
 
+    /**
+     * @return true if source dbs depend on the pair of proteins, otherwise it's always {@link #STRINGDB_SOURCE}
+     */
+    static boolean usesSourceDbLookup(EvidenceType evidenceType) {
+        return DATABASE.equals(evidenceType) || EXPERIMENTAL.equals(evidenceType);
+    }
+
     private boolean isZero(Integer score) {
         return score == null || score == 0;
     }
@@ -33,4 +33,10 @@ interface DataReader<T> {
      * @return current record
      */
     T get();
+
+    /**
+     * Give back the reader's connection (and stop its threads, if any) without reading the remaining records,
+     * e.g. when the consumer failed. Also called once all records are read, so it can be called more than once.
+     */
+    void close();
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import java.util.*;
+
+/**
+ * Read-only string to string map for large tables with few distinct values, like set to collection:
+ * each value is kept once, in a dictionary, and entries only hold its code. Keys are open addressed
+ * (linear probing over a {@code String[]}), so there are no entry objects either.
+ */
+final class DictionaryMap extends AbstractMap<String, String> {
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    /**
+     * null for free slots
+     */
+    private final String[] keys;
+    private final char[] codes;
+    private final String[] dictionary;
+    private final int size;
+    private final int mask;
+
+    private DictionaryMap(String[] keys, char[] codes, String[] dictionary, int size) {
+        this.keys = keys;
+        this.codes = codes;
+        this.dictionary = dictionary;
+        this.size = size;
+        this.mask = keys.length - 1;
+    }
+
+    /**
+     * @param map no null keys or values, at most {@link #MAX_DICTIONARY_SIZE} distinct values
+     */
+    static DictionaryMap copyOf(Map<String, String> map) {
+        final Map<String, Character> valueCodes = new LinkedHashMap<>();
+        //load factor below 0.5, keeps probe sequences short
+        final int capacity = Math.max(2, Integer.highestOneBit(Math.max(1, map.size())) << 2);
+        final String[] keys = new String[capacity];
+        final char[] codes = new char[capacity];
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) {
+                throw new IllegalArgumentException("null keys and values are not supported: " + e);
+            }
+            Character code = valueCodes.get(e.getValue());
+            if (code == null) {
+                if (valueCodes.size() == MAX_DICTIONARY_SIZE) {
+                    throw new IllegalArgumentException("more than " + MAX_DICTIONARY_SIZE + " distinct values");
+                }
+                code = (char) valueCodes.size();
+                valueCodes.put(e.getValue(), code);
+            }
+            int slot = hash(e.getKey()) & (capacity - 1);
+            while (keys[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            keys[slot] = e.getKey();
+            codes[slot] = code;
+        }
+        return new DictionaryMap(keys, codes, valueCodes.keySet().toArray(new String[valueCodes.size()]), map.size());
+    }
+
+    @Override
+    public String get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = hash(key) & mask;
+        String k;
+        while ((k = keys[slot]) != null) {
+            if (k.equals(key)) {
+                return dictionary[codes[slot]];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return no. of distinct values
+     */
+    int dictionarySize() {
+        return dictionary.length;
+    }
+
+    /**
+     * @return rough no. of bytes taken, keys included (as {@code String}s with 2 bytes per char)
+     */
+    long estimatedBytes() {
+        long bytes = 16L + 4L * keys.length + 2L * codes.length;
+        for (String key : keys) {
+            if (key != null) {
+                bytes += stringBytes(key);
+            }
+        }
+        for (String value : dictionary) {
+            bytes += stringBytes(value);
+        }
+        return bytes;
+    }
+
+    static long stringBytes(String s) {
+        return 40L + 2L * s.length();
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+                    private int slot = next(0);
+
+                    private int next(int from) {
+                        while (from < keys.length && keys[from] == null) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final Entry<String, String> entry = new SimpleImmutableEntry<>(keys[slot], dictionary[codes[slot]]);
+                        slot = next(slot + 1);
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("read-only");
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        final int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.CoreDescriptor;
+
+import java.io.File;
+import java.util.Properties;
+
+/**
+ * Builds the index in this process, with an {@link EmbeddedSolrServer}, instead of sending documents to
+ * a running solr: no HTTP, no serialization, and the live index is never touched. The index ends up in
+ * {@code dataDir}, finished (optimized to {@code maxSegments}) once this is closed, ready to be copied to
+ * the serving nodes.
+ * <p/>
+ * The core's config is the one from {@code solrHome} (e.g. docs/solr-home), only the data dir, RAM buffer and
+ * merge factor are the offline ones, passed to solrconfig.xml as the core properties {@code solr.data.dir},
+ * {@code solr.ramBufferSizeMB} and {@code solr.mergeFactor}, so each server has its own.
+ * Documents are added from the calling thread, so no {@link AdaptiveSolrSender}.
+ */
+class EmbeddedSearchServer extends SolrServerConnection {
+    private static final Logger log = Logger.getLogger(EmbeddedSearchServer.class);
+    static final String CORE_NAME = "psicquic-core";
+
+    private final CoreContainer coreContainer;
+    private final File dataDir;
+    /**
+     * 0 to leave the segments as they are
+     */
+    private final int maxSegments;
+
+    private EmbeddedSearchServer(CoreContainer coreContainer, File dataDir, int batchSize, int maxSegments) {
+        this(new EmbeddedSolrServer(coreContainer, CORE_NAME), coreContainer, dataDir, batchSize, maxSegments);
+    }
+
+    /**
+     * @param solrServer serving the core of {@code coreContainer}
+     */
+    EmbeddedSearchServer(SolrServer solrServer, CoreContainer coreContainer, File dataDir, int batchSize, int maxSegments) {
+        super(solrServer, batchSize);
+        this.coreContainer = coreContainer;
+        this.dataDir = dataDir;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * @param solrHome    with conf/
+     * @param dataDir     where the index is built
+     * @param ramBufferMb RAM for buffering documents before they're flushed to a new segment
+     * @param mergeFactor no. of segments merged at once
+     * @param batchSize   no. of documents added at once
+     * @param maxSegments no. of segments the finished index is merged into, 0 to not merge it
+     */
+    static EmbeddedSearchServer open(File solrHome, File dataDir, int ramBufferMb, int mergeFactor,
+                                     int batchSize, int maxSegments) {
+        if (!new File(solrHome, "conf/solrconfig.xml").isFile()) {
+            throw new ExceptionInInitializerError("no conf/solrconfig.xml in " + solrHome);
+        }
+        //substituted into solrconfig.xml when the core is created, before falling back to system properties
+        final Properties coreProperties = new Properties();
+        coreProperties.setProperty("solr.data.dir", dataDir.getAbsolutePath());
+        coreProperties.setProperty("solr.ramBufferSizeMB", Integer.toString(ramBufferMb));
+        coreProperties.setProperty("solr.mergeFactor", Integer.toString(mergeFactor));
+        log.info("building the index in " + dataDir + " (solr home: " + solrHome + ", ram buffer: " + ramBufferMb +
+                "MB, merge factor: " + mergeFactor + ")");
+        //solr.xml isn't loaded, its core would be created with the default data dir
+        final CoreContainer coreContainer = new CoreContainer(solrHome.getAbsolutePath());
+        try {
+            final CoreDescriptor descriptor = new CoreDescriptor(coreContainer, CORE_NAME, solrHome.getAbsolutePath());
+            descriptor.setDataDir(dataDir.getAbsolutePath());
+            descriptor.setCoreProperties(coreProperties);
+            coreContainer.register(CORE_NAME, coreContainer.create(descriptor), false);
+            return new EmbeddedSearchServer(coreContainer, dataDir, batchSize, maxSegments);
+        } catch (Exception e) {
+            coreContainer.shutdown();
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    File getDataDir() {
+        return dataDir;
+    }
+
+    /**
+     * Commit, merge the segments and close the index, it can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        try {
+            commit(false);
+            if (maxSegments > 0) {
+                final long start = System.currentTimeMillis();
+                final UpdateResponse response = solrServer.optimize(true, false, maxSegments);
+                if (0 != response.getStatus()) {
+                    throw new RuntimeException("operation failed: " + response);
+                }
+                log.info("index merged into " + maxSegments + " segment(s) in " +
+                        ((System.currentTimeMillis() - start) / 1000) + "sec");
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("failed to finish the index in " + dataDir, e);
+        } finally {
+            coreContainer.shutdown();
+        }
+        log.info("index ready in " + dataDir);
+    }
+}
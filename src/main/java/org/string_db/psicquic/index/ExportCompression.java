@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * How exported MITAB files are compressed.
+ */
+enum ExportCompression {
+    NONE("") {
+        @Override
+        OutputStream wrap(OutputStream out) {
+            return out;
+        }
+    },
+    GZIP(".gz") {
+        @Override
+        OutputStream wrap(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 64 * 1024);
+        }
+    },
+    /**
+     * block compressed, any gzip tool reads it but it can also be split, see {@link BgzfOutputStream}
+     */
+    BGZF(".gz") {
+        @Override
+        OutputStream wrap(OutputStream out) {
+            return new BgzfOutputStream(out);
+        }
+    };
+
+    final String suffix;
+
+    ExportCompression(String suffix) {
+        this.suffix = suffix;
+    }
+
+    abstract OutputStream wrap(OutputStream out) throws IOException;
+
+    /**
+     * @param name none, gzip or bgzf
+     */
+    static ExportCompression of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown compression: " + name + ", expected none, gzip or bgzf");
+        }
+    }
+}
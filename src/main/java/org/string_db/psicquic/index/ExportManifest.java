@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * List of exported files, one per line with the no. of rows, size and md5 checksum:
+ * <pre>
+ * file	rows	bytes	md5
+ * 9606-mitab.v10.5_0.txt	2375048	6453279810	5d41402abc4b2a76b9719d911017c592
+ * </pre>
+ * Rewritten (atomically) every time a file is added, so it always matches the files on disk.
+ */
+class ExportManifest {
+    private static final Logger log = Logger.getLogger(ExportManifest.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    static final String HEADER = "file\trows\tbytes\tmd5";
+
+    private final File file;
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    ExportManifest(File file) {
+        this.file = file;
+        if (file.exists()) {
+            load();
+        }
+    }
+
+    private void load() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] record = line.split("\t");
+                if (HEADER.equals(line) || line.trim().isEmpty()) {
+                    continue;
+                }
+                if (record.length != 4) {
+                    log.warn("ignoring manifest record: " + line);
+                    continue;
+                }
+                try {
+                    entries.put(record[0], new Entry(Long.parseLong(record[1]), Long.parseLong(record[2]), record[3]));
+                } catch (NumberFormatException e) {
+                    log.warn("ignoring manifest record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("failed to read manifest " + file, e);
+        }
+    }
+
+    synchronized Entry get(String fileName) {
+        return entries.get(fileName);
+    }
+
+    synchronized void put(String fileName, Entry entry) {
+        entries.put(fileName, entry);
+        save();
+    }
+
+    private void save() {
+        final File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), UTF8))) {
+                writer.write(HEADER + "\n");
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    writer.write(e.getKey() + "\t" + e.getValue() + "\n");
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to write manifest " + file, e);
+        }
+    }
+
+    /**
+     * Read a file written before there was a manifest, to count its rows and compute the checksum
+     * (of the file as it is, rows are counted after decompressing .gz files).
+     */
+    static Entry describe(File exported) throws IOException {
+        final MessageDigest md5 = md5();
+        long rows = 0;
+        final byte[] buffer = new byte[64 * 1024];
+        final InputStream file = new DigestInputStream(new FileInputStream(exported), md5);
+        try (InputStream in = exported.getName().endsWith(".gz") ? new GZIPInputStream(file) : file) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        rows++;
+                    }
+                }
+            }
+            //the rest of the file, e.g. bgzf's EOF block, is still part of the checksum
+            while (file.read(buffer) > 0) {
+            }
+        }
+        return new Entry(rows, exported.length(), hex(md5.digest()));
+    }
+
+    static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static String hex(byte[] digest) {
+        final StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    static class Entry {
+        final long rows;
+        final long bytes;
+        final String md5;
+
+        Entry(long rows, long bytes, String md5) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.md5 = md5;
+        }
+
+        @Override
+        public String toString() {
+            return rows + "\t" + bytes + "\t" + md5;
+        }
+    }
+}
@@ -18,6 +18,9 @@
 
 package org.string_db.psicquic.index;
 
+import org.hupo.psi.calimocho.model.Field;
+import org.hupo.psi.calimocho.tab.util.Mitab25ColumnKeys;
+
 import java.util.Collection;
 
 /**
@@ -140,17 +143,25 @@ class TaxonFieldBuilder extends FieldBuilder {
 class MultipleTaxonNamesFieldBuilder extends FieldBuilder {
     protected Collection<String> speciesNames;
     protected int speciesId;
+    /**
+     * the same for every row of the species, so built once
+     */
+    private final Field[] taxonFields;
 
     MultipleTaxonNamesFieldBuilder(int speciesId, Collection<String> speciesNames) {
         this.speciesId = speciesId;
         this.speciesNames = speciesNames;
+        this.taxonFields = new Field[speciesNames.size()];
+        int i = 0;
+        for (String name : speciesNames) {
+            taxonFields[i++] = RowBuilder.defaultField("taxid", Integer.toString(speciesId), name);
+        }
     }
 
     @Override
     protected void append(RowBuilder rowBuilder) {
-        for (String name : speciesNames) {
-            rowBuilder.withTaxId(speciesId, name);
-        }
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_TAXID_A, taxonFields);
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_TAXID_B, taxonFields);
     }
 }
 
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Holds back new species while the heap in use is above the budget, so that running several of
+ * them at once (each with its own lookup tables) doesn't run out of memory. One species is always
+ * let through, otherwise a big one could wait forever.
+ * <p/>
+ * Species come with an estimate of their footprint (see {@link SpeciesScheduler#footprint(long, long, long)}), which
+ * is reserved until they're done, so a species only starts if its estimate fits next to the ones running.
+ * A species estimated at more than half the budget runs alone. The heap still in use after the last
+ * collection is checked too, in case the estimates are off; no collection is ever forced for it.
+ */
+class HeapBudget {
+    private static final Logger log = Logger.getLogger(HeapBudget.class);
+    static final long CHECK_INTERVAL_MS = 5 * 1000;
+
+    private final long budgetBytes;
+    // guarded by this
+    private int running = 0;
+    // guarded by this
+    private long reserved = 0;
+    /**
+     * a species that runs alone is running, guarded by this
+     */
+    private boolean exclusive = false;
+
+    HeapBudget(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @param budgetMb 0 for 3/4 of the max heap
+     */
+    static HeapBudget ofMegabytes(int budgetMb) {
+        return new HeapBudget(budgetMb > 0 ? budgetMb * 1024L * 1024L : Runtime.getRuntime().maxMemory() / 4 * 3);
+    }
+
+    /**
+     * Block until there's room for one more species.
+     *
+     * @param estimatedBytes expected footprint of the species, 0 if not known
+     */
+    synchronized void acquire(long estimatedBytes) throws InterruptedException {
+        boolean logged = false;
+        while (running > 0 && !fits(estimatedBytes)) {
+            if (!logged) {
+                log.info("heap budget reached (" + (reserved >> 20) + "MB reserved, " + (liveHeap() >> 20) +
+                        "MB live, budget " + (budgetBytes >> 20) + "MB, " + running + " running), waiting to start one of " +
+                        (estimatedBytes >> 20) + "MB");
+                logged = true;
+            }
+            wait(CHECK_INTERVAL_MS);
+        }
+        running++;
+        reserved += estimatedBytes;
+        exclusive = runsAlone(estimatedBytes);
+    }
+
+    /**
+     * @param estimatedBytes the same as given to {@link #acquire(long)}
+     */
+    synchronized void release(long estimatedBytes) {
+        running--;
+        reserved -= estimatedBytes;
+        if (running == 0) {
+            exclusive = false;
+        }
+        notifyAll();
+    }
+
+    private boolean fits(long estimatedBytes) {
+        if (exclusive || runsAlone(estimatedBytes) || reserved + estimatedBytes > budgetBytes) {
+            return false;
+        }
+        return liveHeap() <= budgetBytes;
+    }
+
+    boolean runsAlone(long estimatedBytes) {
+        return estimatedBytes > budgetBytes / 2;
+    }
+
+    synchronized int getRunning() {
+        return running;
+    }
+
+    synchronized long getReserved() {
+        return reserved;
+    }
+
+    long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Heap in use right after the last collection of each pool, so garbage doesn't count; the heap in use now
+     * if the pools don't tell.
+     */
+    static long liveHeap() {
+        long used = 0;
+        boolean known = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            final MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+                known = true;
+            }
+        }
+        return known ? used : usedHeap();
+    }
+}
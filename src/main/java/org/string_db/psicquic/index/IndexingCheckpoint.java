@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Keeps track of indexing progress in a local file, so that a failed run can be resumed
+ * instead of starting from scratch. Every line is one event:
+ * <pre>
+ * started 9606
+ * committed 9606
+ * </pre>
+ * A species that was started but not committed has some of its documents in the index,
+ * they have to be deleted before indexing it again.
+ * <p/>
+ * The file is only appended to, and synced to disk after every line, so a crash can at worst
+ * leave a half written last line, which is ignored (and ended before the next line is appended).
+ * Once every species is committed the run is complete and the file is removed, see {@link #complete()},
+ * so the next run starts from scratch.
+ */
+class IndexingCheckpoint {
+    private static final Logger log = Logger.getLogger(IndexingCheckpoint.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    static final String STARTED = "started";
+    static final String COMMITTED = "committed";
+
+    private final File file;
+    private final Set<Integer> started = new HashSet<>();
+    private final Set<Integer> committed = new HashSet<>();
+    /**
+     * the last line is a torn one, it has to be ended before anything is appended
+     */
+    private boolean torn = false;
+
+    IndexingCheckpoint(File file) {
+        this.file = file;
+        if (file.exists()) {
+            load();
+            log.info("checkpoint " + file + ": " + committed.size() + " species committed, "
+                    + getPartial().size() + " partially indexed");
+        }
+    }
+
+    private void load() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8))) {
+            String line;
+            torn = file.length() > 0 && !endsWithNewline();
+            while ((line = reader.readLine()) != null) {
+                final String[] event = line.trim().split("\\s+");
+                try {
+                    if (event.length == 2 && STARTED.equals(event[0])) {
+                        started.add(Integer.valueOf(event[1]));
+                    } else if (event.length == 2 && COMMITTED.equals(event[0])) {
+                        committed.add(Integer.valueOf(event[1]));
+                    } else if (!line.trim().isEmpty()) {
+                        log.warn("ignoring checkpoint record: " + line);
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("ignoring checkpoint record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("failed to read checkpoint " + file, e);
+        }
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() == '\n';
+        }
+    }
+
+    /**
+     * @return true if nothing has been indexed yet
+     */
+    synchronized boolean isEmpty() {
+        return started.isEmpty() && committed.isEmpty();
+    }
+
+    synchronized boolean isCommitted(Integer speciesId) {
+        return committed.contains(speciesId);
+    }
+
+    /**
+     * @return species that were started but never committed
+     */
+    synchronized Set<Integer> getPartial() {
+        final Set<Integer> partial = new HashSet<>(started);
+        partial.removeAll(committed);
+        return partial;
+    }
+
+    /**
+     * @param speciesIds
+     * @return the given species that still have to be indexed, in the same order
+     */
+    synchronized List<Integer> remaining(List<Integer> speciesIds) {
+        final List<Integer> remaining = new ArrayList<>();
+        for (Integer speciesId : speciesIds) {
+            if (!committed.contains(speciesId)) {
+                remaining.add(speciesId);
+            }
+        }
+        return remaining;
+    }
+
+    synchronized void started(Integer speciesId) {
+        append(STARTED, speciesId);
+        started.add(speciesId);
+    }
+
+    /**
+     * Call only once the species' documents are committed.
+     */
+    synchronized void committed(Integer speciesId) {
+        append(COMMITTED, speciesId);
+        committed.add(speciesId);
+    }
+
+    /**
+     * The run is complete, forget about it: the file is removed so the next run indexes everything again.
+     */
+    synchronized void complete() {
+        if (file.exists() && !file.delete()) {
+            throw new RuntimeException("failed to remove checkpoint " + file);
+        }
+        started.clear();
+        committed.clear();
+        torn = false;
+        log.info("indexing run complete, checkpoint " + file + " removed");
+    }
+
+    private void append(String event, Integer speciesId) {
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(((torn ? "\n" : "") + event + " " + speciesId + "\n").getBytes(UTF8));
+            out.getFD().sync();
+            torn = false;
+        } catch (IOException e) {
+            throw new RuntimeException("failed to update checkpoint " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.string_db.DbFacade;
+import org.string_db.ProteinRepository;
+import org.string_db.SpeciesRepository;
+import org.string_db.StringDbScores;
+import org.string_db.jdbc.GenericQueryProcessor;
+import org.string_db.psicquic.AppProperties;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * {@link DbFacade} with what indexing and export read on top of the tables: a species' scores, and its
+ * fingerprint and ROGIDs where they were recorded beforehand. This one reads the database,
+ * {@link SnapshotDbFacade} overrides it all to read snapshots.
+ */
+class IndexingDbFacade extends DbFacade {
+    private static final Logger log = Logger.getLogger(IndexingDbFacade.class);
+    private final JdbcTemplate jdbcTemplate;
+
+    IndexingDbFacade(ProteinRepository proteinRepository, SpeciesRepository speciesRepository,
+                     GenericQueryProcessor queryProcessor, JdbcTemplate jdbcTemplate) {
+        super(proteinRepository, speciesRepository, queryProcessor);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return snapshots in {@code snapshot_dir} if it's set (the database isn't connected to then),
+     * otherwise the database
+     */
+    static IndexingDbFacade of(AppProperties appProperties) {
+        if (!appProperties.snapshotDir.isEmpty()) {
+            log.info("reading species from snapshots in " + appProperties.snapshotDir);
+            return new SnapshotDbFacade(new File(appProperties.snapshotDir));
+        }
+        return new IndexingDbFacade(appProperties.getProteinRepository(), appProperties.getSpeciesRepository(),
+                appProperties.getGenericQueryProcessor(), appProperties.getJdbcTemplate());
+    }
+
+    /**
+     * @return null if the data doesn't come from the database, nothing may query it then
+     */
+    JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * @param method     {@code jdbc} for {@link StringDbScoresDataReader}, {@code copy} for {@link PgCopyScoresDataReader}
+     * @param partitions no. of ranges of proteins read concurrently, each on its own connection,
+     *                   see {@link PartitionedScoresDataReader}
+     * @return reader of the species' scores
+     */
+    DataReader<StringDbScores> scores(Integer speciesId, String method, int partitions) {
+        if (partitions > 1) {
+            return PartitionedScoresDataReader.open(this, jdbcTemplate, speciesId, method, partitions);
+        }
+        return StringDbScoresDataReader.open(this, jdbcTemplate, speciesId, method, "");
+    }
+
+    /**
+     * @return fingerprint of the species recorded when its data was copied out of the database,
+     * null if it's read from the database (see {@link SpeciesFingerprints} for how it's computed then)
+     */
+    String loadFingerprint(Integer speciesId) {
+        return null;
+    }
+
+    /**
+     * @return no. of the species' proteins recorded when its data was copied out of the database (not null if
+     * {@link #loadFingerprint(Integer)} isn't), null if they're counted by the database
+     */
+    Long loadProteinCount(Integer speciesId) {
+        return null;
+    }
+
+    /**
+     * @return no. of the species' set memberships and RefSeq ids recorded when its data was copied out of the
+     * database (not null if {@link #loadFingerprint(Integer)} isn't), null if they're counted by the database
+     */
+    Long loadSetEntryCount(Integer speciesId) {
+        return null;
+    }
+
+    /**
+     * @return ROGIDs of the species' proteins recorded when its data was copied out of the database,
+     * null to calculate them from the sequences
+     */
+    Map<Integer, String> loadRogids(Integer speciesId) {
+        return null;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.apache.solr.common.SolrInputDocument;
+import org.hupo.psi.calimocho.model.Row;
+import org.string_db.StringDbScores;
+import psidev.psi.mi.calimocho.solr.converter.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Indexes a species in three stages, connected by bounded queues, so that reading from the database,
+ * building and converting rows, and sending them to solr all overlap:
+ * <pre>
+ *   reader --scores--> row builder (x N) --solr docs--> sender
+ * </pre>
+ * A full queue blocks the stage feeding it, so a slow stage holds back the ones in front of it.
+ * <p/>
+ * Shutdown is ordered: once the reader runs out of scores it tells every row builder to stop,
+ * the last row builder to finish tells the sender, and {@link #index} returns only after the sender
+ * has handed over the last document. If any stage fails the others are interrupted, and {@link #index}
+ * waits for them to stop and closes the reader before it rethrows the failure.
+ */
+class IndexingPipeline {
+    private static final Logger log = Logger.getLogger(IndexingPipeline.class);
+    /**
+     * scores are passed on in chunks, one queue operation per record would cost too much
+     */
+    static final int CHUNK_SIZE = 100;
+    /**
+     * how long stages get to stop once the species is done or failed
+     */
+    static final int STAGE_SHUTDOWN_SECONDS = 30;
+    private static final List<StringDbScores> NO_MORE_SCORES = new ArrayList<>(0);
+    private static final List<SolrInputDocument> NO_MORE_DOCS = new ArrayList<>(0);
+
+    private final SolrIndex server;
+    /**
+     * max no. of chunks waiting between two stages
+     */
+    private final int queueSize;
+
+    IndexingPipeline(SolrIndex server, int queueSize) {
+        this.server = server;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Run all the records from {@code reader} through the pipeline, one row building stage per
+     * given {@code rowBuilder}.
+     *
+     * @param speciesId   species of all the records
+     * @param reader
+     * @param rowBuilders must not be shared between threads
+     * @return number of documents sent to solr
+     * @throws Exception
+     */
+    long index(Integer speciesId, final DataReader<StringDbScores> reader, List<StringdbRowBuilder> rowBuilders)
+            throws Exception {
+        return index(speciesId, reader, rowBuilders, new IndexingStats());
+    }
+
+    /**
+     * @param stats every stage's rows, time and errors, and the depth of the queues, are added to these
+     */
+    long index(Integer speciesId, final DataReader<StringDbScores> reader, List<StringdbRowBuilder> rowBuilders,
+               final IndexingStats stats) throws Exception {
+        final long start = System.currentTimeMillis();
+        final int builders = rowBuilders.size();
+        final BlockingQueue<List<StringDbScores>> scoresQueue = new ArrayBlockingQueue<>(queueSize);
+        final BlockingQueue<List<SolrInputDocument>> docsQueue = new ArrayBlockingQueue<>(queueSize);
+        final AtomicInteger activeBuilders = new AtomicInteger(builders);
+        stats.watch(IndexingStats.SCORES_QUEUE, scoresQueue);
+        stats.watch(IndexingStats.DOCS_QUEUE, docsQueue);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(1 + builders);
+        final List<Future<Void>> stages = new ArrayList<>();
+        try {
+            stages.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        read(reader, scoresQueue, builders, stats.stage(IndexingStats.Stage.READ));
+                    } catch (RuntimeException e) {
+                        stats.stage(IndexingStats.Stage.READ).error();
+                        throw e;
+                    }
+                    return null;
+                }
+            }));
+            for (final StringdbRowBuilder rowBuilder : rowBuilders) {
+                stages.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        build(rowBuilder, scoresQueue, docsQueue, stats);
+                        if (activeBuilders.decrementAndGet() == 0) {
+                            docsQueue.put(NO_MORE_DOCS);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            final long count = send(speciesId, docsQueue, stages, stats.stage(IndexingStats.Stage.SEND));
+            final long time = Math.max(1, System.currentTimeMillis() - start);
+            log.info(count + " docs sent in " + (time / 1000) + "sec (" + (count * 1000 / time) + " docs/sec, "
+                    + builders + " row builders)");
+            return count;
+        } finally {
+            //no-op if all went well, otherwise stops stages blocked on a queue
+            executor.shutdownNow();
+            //a stage still running would go on using the reader or row builders after the species is done
+            if (!executor.awaitTermination(STAGE_SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("indexing stages still running " + STAGE_SHUTDOWN_SECONDS + "sec after they were stopped");
+            }
+            //if a stage failed the reader is left with unread scores, and its connection (or threads) busy
+            reader.close();
+            stats.unwatch(IndexingStats.SCORES_QUEUE, scoresQueue);
+            stats.unwatch(IndexingStats.DOCS_QUEUE, docsQueue);
+        }
+    }
+
+    private void read(DataReader<StringDbScores> reader, BlockingQueue<List<StringDbScores>> out, int builders,
+                      IndexingStats.StageStats stats) throws InterruptedException {
+        List<StringDbScores> chunk = new ArrayList<>(CHUNK_SIZE);
+        //timed per chunk, not counting the time spent waiting on a full queue
+        long chunkStart = System.nanoTime();
+        while (reader.next()) {
+            chunk.add(reader.get());
+            if (chunk.size() == CHUNK_SIZE) {
+                stats.add(chunk.size(), chunkStart);
+                out.put(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+                chunkStart = System.nanoTime();
+            }
+        }
+        stats.add(chunk.size(), chunkStart);
+        if (!chunk.isEmpty()) {
+            out.put(chunk);
+        }
+        for (int i = 0; i < builders; i++) {
+            out.put(NO_MORE_SCORES);
+        }
+    }
+
+    private void build(StringdbRowBuilder rowBuilder, BlockingQueue<List<StringDbScores>> in,
+                       BlockingQueue<List<SolrInputDocument>> out, IndexingStats stats) throws Exception {
+        final IndexingStats.StageStats buildStats = stats.stage(IndexingStats.Stage.BUILD);
+        final IndexingStats.StageStats convertStats = stats.stage(IndexingStats.Stage.CONVERT);
+        final Converter converter = new Converter();
+        List<StringDbScores> chunk;
+        while ((chunk = in.take()) != NO_MORE_SCORES) {
+            final List<Row> rows = new ArrayList<>(chunk.size() * 4);
+            long start = System.nanoTime();
+            try {
+                for (StringDbScores scores : chunk) {
+                    rows.addAll(rowBuilder.build(scores));
+                }
+            } catch (RuntimeException e) {
+                buildStats.error();
+                throw e;
+            }
+            buildStats.add(rows.size(), start);
+            start = System.nanoTime();
+            final List<SolrInputDocument> docs = new ArrayList<>(rows.size());
+            try {
+                for (Row row : rows) {
+                    docs.add(converter.toSolrDocument(row));
+                }
+            } catch (Exception e) {
+                convertStats.error();
+                throw e;
+            }
+            convertStats.add(docs.size(), start);
+            out.put(docs);
+        }
+    }
+
+    private long send(Integer speciesId, BlockingQueue<List<SolrInputDocument>> in, List<Future<Void>> stages,
+                      IndexingStats.StageStats stats) throws Exception {
+        long count = 0;
+        while (true) {
+            final List<SolrInputDocument> docs = in.poll(1, TimeUnit.SECONDS);
+            //don't wait forever for a stage that died
+            checkStages(stages);
+            if (docs == NO_MORE_DOCS) {
+                return count;
+            }
+            if (docs == null) {
+                continue;
+            }
+            final long start = System.nanoTime();
+            try {
+                server.addDocuments(speciesId, docs);
+            } catch (RuntimeException e) {
+                stats.error();
+                throw e;
+            }
+            stats.add(docs.size(), start);
+            count += docs.size();
+        }
+    }
+
+    private static void checkStages(List<Future<Void>> stages) throws InterruptedException {
+        for (Future<Void> stage : stages) {
+            if (stage.isDone()) {
+                try {
+                    stage.get();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("indexing stage failed", e.getCause());
+                }
+            }
+        }
+    }
+}
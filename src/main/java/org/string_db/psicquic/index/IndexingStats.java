@@ -0,0 +1,401 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of each indexing (or export) stage: rows, time spent in it and errors, plus the depth of the
+ * queues between stages.
+ * <p/>
+ * Each species gets its own instance ({@link #forSpecies(Integer)}) for its summary, which adds everything
+ * to the run wide one as well; that one can be watched through JMX ({@link #registerMBeans()},
+ * under {@code org.string_db.psicquic:type=IndexingStage}, {@code type=IndexingQueue} and, with an
+ * {@link AdaptiveSolrSender}, {@code type=SolrSender}) and logged
+ * periodically ({@link #startLogging(int)}). Log lines are {@code key=value} pairs, one per stage:
+ * <pre>
+ *   stage=build rows=1200345 secs=95.1 rows_per_sec=12621 errors=0
+ * </pre>
+ * Stage time is summed over all threads of the stage, so with N row builders it can be N times the wall clock.
+ */
+public class IndexingStats {
+    private static final Logger log = Logger.getLogger(IndexingStats.class);
+    static final String JMX_DOMAIN = "org.string_db.psicquic";
+    static final String SCORES_QUEUE = "scores";
+    static final String DOCS_QUEUE = "docs";
+
+    enum Stage {
+        /**
+         * reading scores from the database (or a snapshot)
+         */
+        READ,
+        /**
+         * building rows, for export also writing them out
+         */
+        BUILD,
+        /**
+         * rows to solr documents
+         */
+        CONVERT,
+        SEND,
+        COMMIT;
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * JMX view of a stage
+     */
+    public interface StageMBean {
+        long getRows();
+
+        double getSeconds();
+
+        double getRowsPerSecond();
+
+        long getErrors();
+    }
+
+    /**
+     * JMX view of a queue between stages
+     */
+    public interface QueueMBean {
+        int getDepth();
+
+        int getCapacity();
+    }
+
+    /**
+     * JMX view of the current settings of the {@link AdaptiveSolrSender}
+     */
+    public interface SenderMBean {
+        int getThreads();
+
+        int getMaxThreads();
+
+        int getQueueDepth();
+
+        int getQueueCapacity();
+
+        double getDocsPerSecond();
+
+        double getBestDocsPerSecond();
+
+        boolean isPaused();
+
+        long getDocsSent();
+    }
+
+    /**
+     * counters of a stage, thread safe
+     */
+    static class StageStats implements StageMBean {
+        private final StageStats parent;
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        StageStats(StageStats parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * @param rows      no. of rows that went through the stage
+         * @param startNano {@link System#nanoTime()} when the stage started with them
+         */
+        void add(long rows, long startNano) {
+            final long nanos = System.nanoTime() - startNano;
+            addNanos(rows, nanos);
+        }
+
+        private void addNanos(long rows, long nanos) {
+            this.rows.addAndGet(rows);
+            this.nanos.addAndGet(nanos);
+            if (parent != null) {
+                parent.addNanos(rows, nanos);
+            }
+        }
+
+        void error() {
+            errors.incrementAndGet();
+            if (parent != null) {
+                parent.error();
+            }
+        }
+
+        @Override
+        public long getRows() {
+            return rows.get();
+        }
+
+        @Override
+        public double getSeconds() {
+            return nanos.get() / 1e9;
+        }
+
+        @Override
+        public double getRowsPerSecond() {
+            final long n = nanos.get();
+            return n == 0 ? 0 : rows.get() * 1e9 / n;
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("rows=%d secs=%.1f rows_per_sec=%.0f errors=%d",
+                    getRows(), getSeconds(), getRowsPerSecond(), getErrors());
+        }
+    }
+
+    private static class QueueGauge implements QueueMBean {
+        private final BlockingQueue<?> queue;
+
+        QueueGauge(BlockingQueue<?> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public int getDepth() {
+            return queue.size();
+        }
+
+        @Override
+        public int getCapacity() {
+            return queue.size() + queue.remainingCapacity();
+        }
+    }
+
+    private final String name;
+    private final IndexingStats parent;
+    private final Map<Stage, StageStats> stages = new EnumMap<>(Stage.class);
+    /**
+     * queues currently in use, by name; a queue of several species at once is the same gauge
+     */
+    private final ConcurrentMap<String, List<QueueGauge>> queues = new ConcurrentHashMap<>();
+    /**
+     * null if documents aren't sent through an {@link AdaptiveSolrSender}
+     */
+    private volatile SenderMBean sender;
+    private ScheduledExecutorService logger;
+
+    IndexingStats() {
+        this("all", null);
+    }
+
+    private IndexingStats(String name, IndexingStats parent) {
+        this.name = name;
+        this.parent = parent;
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageStats(parent == null ? null : parent.stage(stage)));
+        }
+    }
+
+    /**
+     * @return stats of a single species, also counted in these
+     */
+    IndexingStats forSpecies(Integer speciesId) {
+        return new IndexingStats(speciesId.toString(), this);
+    }
+
+    StageStats stage(Stage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * report the queue's depth until {@link #unwatch(String, BlockingQueue)}
+     */
+    void watch(String queueName, BlockingQueue<?> queue) {
+        final IndexingStats root = parent == null ? this : parent;
+        List<QueueGauge> gauges = root.queues.get(queueName);
+        if (gauges == null) {
+            root.queues.putIfAbsent(queueName, new CopyOnWriteArrayList<QueueGauge>());
+            gauges = root.queues.get(queueName);
+        }
+        gauges.add(new QueueGauge(queue));
+    }
+
+    void unwatch(String queueName, BlockingQueue<?> queue) {
+        final IndexingStats root = parent == null ? this : parent;
+        final List<QueueGauge> gauges = root.queues.get(queueName);
+        if (gauges != null) {
+            for (QueueGauge gauge : gauges) {
+                if (gauge.queue == queue) {
+                    gauges.remove(gauge);
+                }
+            }
+        }
+    }
+
+    /**
+     * report the sender's settings with the stages, call before {@link #registerMBeans()}
+     */
+    void watch(SenderMBean sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * @return current depth of all queues with the name, summed over species
+     */
+    int queueDepth(String queueName) {
+        int depth = 0;
+        final List<QueueGauge> gauges = queues.get(queueName);
+        if (gauges != null) {
+            for (QueueGauge gauge : gauges) {
+                depth += gauge.getDepth();
+            }
+        }
+        return depth;
+    }
+
+    int queueCapacity(String queueName) {
+        int capacity = 0;
+        final List<QueueGauge> gauges = queues.get(queueName);
+        if (gauges != null) {
+            for (QueueGauge gauge : gauges) {
+                capacity += gauge.getCapacity();
+            }
+        }
+        return capacity;
+    }
+
+    /**
+     * Register every stage, and the queues known so far, with the platform MBean server.
+     */
+    void registerMBeans() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Map.Entry<Stage, StageStats> e : stages.entrySet()) {
+                final ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=IndexingStage,name=" + e.getKey().label());
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(new StandardMBean(e.getValue(), StageMBean.class), objectName);
+                }
+            }
+            for (final String queueName : Arrays.asList(SCORES_QUEUE, DOCS_QUEUE)) {
+                final ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=IndexingQueue,name=" + queueName);
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(new StandardMBean(new QueueMBean() {
+                        @Override
+                        public int getDepth() {
+                            return queueDepth(queueName);
+                        }
+
+                        @Override
+                        public int getCapacity() {
+                            return queueCapacity(queueName);
+                        }
+                    }, QueueMBean.class), objectName);
+                }
+            }
+            final ObjectName senderName = new ObjectName(JMX_DOMAIN + ":type=SolrSender");
+            if (sender != null && !server.isRegistered(senderName)) {
+                server.registerMBean(new StandardMBean(sender, SenderMBean.class), senderName);
+            }
+        } catch (JMException e) {
+            //not worth failing a build for
+            log.warn("failed to register indexing stats with JMX", e);
+        }
+    }
+
+    /**
+     * log all stages every {@code seconds} from a daemon thread, until {@link #stopLogging()}
+     */
+    synchronized void startLogging(int seconds) {
+        if (seconds <= 0 || logger != null) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "indexing-stats");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        logger.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                log(name);
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    synchronized void stopLogging() {
+        if (logger != null) {
+            logger.shutdownNow();
+            logger = null;
+        }
+    }
+
+    /**
+     * one line per stage that saw any rows, and one with the queues
+     */
+    void log(String label) {
+        for (Map.Entry<Stage, StageStats> e : stages.entrySet()) {
+            if (e.getValue().getRows() > 0 || e.getValue().getErrors() > 0) {
+                log.info("stats species=" + label + " stage=" + e.getKey().label() + " " + e.getValue());
+            }
+        }
+        final IndexingStats root = parent == null ? this : parent;
+        if (!root.queues.isEmpty()) {
+            final StringBuilder line = new StringBuilder("stats queues");
+            for (String queueName : new TreeSet<>(root.queues.keySet())) {
+                line.append(' ').append(queueName).append('=').append(root.queueDepth(queueName))
+                        .append('/').append(root.queueCapacity(queueName));
+            }
+            log.info(line);
+        }
+        final SenderMBean sender = root.sender;
+        if (sender != null) {
+            log.info(String.format("stats sender threads=%d/%d batches=%d/%d docs_per_sec=%.0f paused=%b",
+                    sender.getThreads(), sender.getMaxThreads(), sender.getQueueDepth(), sender.getQueueCapacity(),
+                    sender.getDocsPerSecond(), sender.isPaused()));
+        }
+    }
+
+    /**
+     * log the species' totals, call once it's done
+     */
+    void logSummary() {
+        log(name);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder s = new StringBuilder(name);
+        for (Map.Entry<Stage, StageStats> e : stages.entrySet()) {
+            s.append(" [").append(e.getKey().label()).append(' ').append(e.getValue()).append(']');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Read-only int to object table for per species protein data: no boxed keys, no entry objects.
+ * <p/>
+ * Protein ids of a species are (almost) contiguous, so usually values are simply kept in an array
+ * indexed by {@code id - min id}. If the ids are too spread out for that, it falls back to open addressing
+ * (linear probing over an {@code int[]} of keys).
+ */
+final class IntTable<V> {
+    /**
+     * use an array indexed by id as long as no more than this many slots per entry are wasted
+     */
+    static final int MAX_DENSE_SLOTS_PER_ENTRY = 2;
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private final int size;
+    /**
+     * null for the dense layout
+     */
+    private final int[] keys;
+    private final Object[] values;
+    private final int offset;
+    private final int mask;
+
+    private IntTable(int size, int[] keys, Object[] values, int offset) {
+        this.size = size;
+        this.keys = keys;
+        this.values = values;
+        this.offset = offset;
+        this.mask = values.length - 1;
+    }
+
+    static <V> IntTable<V> copyOf(Map<Integer, ? extends V> map) {
+        final Builder<V> builder = new Builder<>(map.size());
+        for (Map.Entry<Integer, ? extends V> e : map.entrySet()) {
+            builder.put(e.getKey(), e.getValue());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the value or null if there's none
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        if (keys == null) {
+            final int index = key - offset;
+            return index >= 0 && index < values.length ? (V) values[index] : null;
+        }
+        if (size == 0) {
+            return null;
+        }
+        int slot = hash(key) & mask;
+        int k;
+        while ((k = keys[slot]) != FREE) {
+            if (k == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * null values are not supported, so this is the same as {@code get(key) != null}
+     */
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isDense() {
+        return keys == null;
+    }
+
+    /**
+     * Visit all entries, in no particular order.
+     */
+    void forEach(Visitor<? super V> visitor) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                @SuppressWarnings("unchecked")
+                final V value = (V) values[slot];
+                visitor.visit(keys == null ? slot + offset : keys[slot], value);
+            }
+        }
+    }
+
+    interface Visitor<V> {
+        void visit(int key, V value);
+    }
+
+    private static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Collects entries one at a time (e.g. rows of a query) into plain arrays, the table's layout
+     * is picked once they're all there.
+     */
+    static final class Builder<V> {
+        private int[] keys;
+        private Object[] values;
+        private int size;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        Builder() {
+            this(1024);
+        }
+
+        /**
+         * @param expectedSize grows beyond that if needed
+         */
+        Builder(int expectedSize) {
+            keys = new int[Math.max(16, expectedSize)];
+            values = new Object[keys.length];
+        }
+
+        /**
+         * @param value null values are skipped, the table doesn't support them
+         */
+        Builder<V> put(int key, V value) {
+            if (value == null) {
+                return this;
+            }
+            if (key == FREE) {
+                throw new IllegalArgumentException("unsupported key: " + key);
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a key was put more than once
+         */
+        IntTable<V> build() {
+            if (size == 0) {
+                return new IntTable<>(0, null, new Object[0], 0);
+            }
+            final long range = (long) max - min + 1;
+            if (range <= (long) size * MAX_DENSE_SLOTS_PER_ENTRY) {
+                final Object[] dense = new Object[(int) range];
+                for (int i = 0; i < size; i++) {
+                    if (dense[keys[i] - min] != null) {
+                        throw new IllegalArgumentException("duplicate key: " + keys[i]);
+                    }
+                    dense[keys[i] - min] = values[i];
+                }
+                return new IntTable<>(size, null, dense, min);
+            }
+            //load factor below 0.5, keeps probe sequences short
+            final int capacity = Integer.highestOneBit(size) << 2;
+            final int[] hashedKeys = new int[capacity];
+            final Object[] hashedValues = new Object[capacity];
+            Arrays.fill(hashedKeys, FREE);
+            for (int i = 0; i < size; i++) {
+                int slot = hash(keys[i]) & (capacity - 1);
+                while (hashedKeys[slot] != FREE) {
+                    if (hashedKeys[slot] == keys[i]) {
+                        throw new IllegalArgumentException("duplicate key: " + keys[i]);
+                    }
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                hashedKeys[slot] = keys[i];
+                hashedValues[slot] = values[i];
+            }
+            return new IntTable<>(size, hashedKeys, hashedValues, 0);
+        }
+    }
+}
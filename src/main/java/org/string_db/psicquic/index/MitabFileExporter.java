@@ -23,55 +23,154 @@ import org.hupo.psi.calimocho.io.IllegalRowException;
 import org.hupo.psi.calimocho.model.Row;
 import org.hupo.psi.calimocho.tab.io.DefaultRowWriter;
 import org.hupo.psi.calimocho.tab.util.MitabDocumentDefinitionFactory;
-import org.string_db.DbFacade;
 import org.string_db.StringDbScores;
 import org.string_db.psicquic.AppProperties;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Exports species to MITAB files, up to {@code export_threads} at a time as long as their estimated
+ * footprints fit into {@code export_heap_budget_mb}, the largest ones first.
+ * <p/>
+ * Every file is written to a temp file first and renamed once complete, so an existing output file
+ * is always a complete one and can safely be skipped on the next run. Each finished file is added to
+ * the manifest with its no. of rows and md5 checksum.
+ * <p/>
+ * Output can be compressed ({@code export_compression}); compressing, checksumming and writing to disk
+ * happen on a separate thread, see {@link AsyncOutputStream}.
+ *
  * @author Milan Simonovic <milan.simonovic@imls.uzh.ch>
  */
 public class MitabFileExporter {
     protected static final AppProperties appProperties = AppProperties.instance;
-    static final DbFacade db = new DbFacade(
-            appProperties.getProteinRepository(),
-            appProperties.getSpeciesRepository(),
-            appProperties.getGenericQueryProcessor());
+    static final IndexingDbFacade db = IndexingDbFacade.of(appProperties);
     static final Logger log = Logger.getLogger(MitabFileExporter.class);
     protected static String OUT_DIR = "output/";
     protected final Map<Integer, String> uniprotIds;
+    protected final ExportCompression compression;
+    /**
+     * null to calculate all ROGIDs from sequences
+     */
+    protected RogidStore rogidStore;
+    /**
+     * loads each species' tables, concurrently unless it's {@link TableLoader#CALLING_THREAD}
+     */
+    protected TableLoader tableLoader = TableLoader.CALLING_THREAD;
+    /**
+     * read and build (that is, write) stages of all species together, each species also gets its own
+     */
+    protected final IndexingStats stats = new IndexingStats();
 
     public MitabFileExporter() throws Exception {
-        final Map<Integer, Set<String>> linkouts = db.loadUniProtLinkouts();
-        this.uniprotIds = readUniProtIds(linkouts);
+        this(ExportCompression.NONE);
+    }
+
+    MitabFileExporter(ExportCompression compression) throws Exception {
+        this.compression = compression;
+        this.uniprotIds = ReferenceData.of(db).uniprotIds();
+    }
+
+    void setRogidStore(RogidStore rogidStore) {
+        this.rogidStore = rogidStore;
+    }
+
+    void setTableLoader(TableLoader tableLoader) {
+        this.tableLoader = tableLoader;
     }
 
     public static void main(String[] args) throws Exception {
         long start = System.currentTimeMillis();
         log.info("indexing to: " + OUT_DIR);
         final List<Integer> speciesIds = db.loadSpeciesIds();
-        final MitabFileExporter exporter = new MitabFileExporter();
+        final MitabFileExporter exporter = new MitabFileExporter(ExportCompression.of(appProperties.exportCompression));
+        final ExportManifest manifest = new ExportManifest(new File(OUT_DIR + "manifest." +
+                AppProperties.STRINGDB_VERSION + "_" + AppProperties.BUILD_NUMBER + ".txt"));
+        final HeapBudget budget = HeapBudget.ofMegabytes(appProperties.exportHeapBudgetMb);
+
+        final RogidStore rogidStore = appProperties.rogidStoreFile.isEmpty()
+                ? null : new RogidStore(new File(appProperties.rogidStoreFile),
+                appProperties.rogidStoreMaxUnusedRuns);
+        exporter.setRogidStore(rogidStore);
+        final TableLoader tableLoader = TableLoader.withThreads(appProperties.tableLoaderThreads);
+        exporter.setTableLoader(tableLoader);
+        exporter.stats.registerMBeans();
+        exporter.stats.startLogging(appProperties.statsLogSeconds);
 
+        exporter.exportSpecies(speciesIds, appProperties.exportThreads, budget, manifest);
+        exporter.stats.stopLogging();
+        exporter.stats.logSummary();
+        tableLoader.shutdown();
+        if (rogidStore != null) {
+            rogidStore.close();
+        }
+
+        log.info("export done in: " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min");
+    }
+
+    String outputFile(Integer spcId) {
+        return OUT_DIR + spcId + "-mitab." + AppProperties.STRINGDB_VERSION + "_" + AppProperties.BUILD_NUMBER + ".txt"
+                + compression.suffix;
+    }
+
+    /**
+     * Export all given species, skipping the ones already exported. Species run largest first,
+     * as many at a time as their estimated footprints fit into the budget, see {@link SpeciesScheduler}.
+     *
+     * @param speciesIds
+     * @param threads    max no. of species exported at the same time
+     * @param budget     holds back new species while memory is short
+     * @param manifest   every exported file gets recorded here
+     * @throws RuntimeException if any of the species failed, after all the others are done
+     */
+    void exportSpecies(final List<Integer> speciesIds, int threads, final HeapBudget budget,
+                       final ExportManifest manifest) throws Exception {
+        final long start = System.currentTimeMillis();
+        final List<Integer> remaining = new ArrayList<>();
         for (Integer spcId : speciesIds) {
-            System.gc();
-            final String outputFile = OUT_DIR + spcId + "-mitab." + AppProperties.STRINGDB_VERSION + "_" + AppProperties.BUILD_NUMBER + ".txt";
-            if (new File(outputFile).exists()) {
+            final File outputFile = new File(outputFile(spcId));
+            if (outputFile.exists()) {
                 log.info("skipping, output file exists " + outputFile);
-                continue;
+                if (manifest.get(outputFile.getName()) == null) {
+                    manifest.put(outputFile.getName(), ExportManifest.describe(outputFile));
+                }
+            } else {
+                remaining.add(spcId);
             }
-            log.info("exporting " + spcId + " (" + (1 + speciesIds.indexOf(spcId)) + ". out of " + speciesIds.size() +
-                    " in " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min)");
-            exporter.exportSpecies(spcId, outputFile);
         }
-
-        log.info("export done in: " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min");
+        log.info("exporting " + remaining.size() + " species, up to " + threads + " at a time, heap budget: " +
+                (budget.getBudgetBytes() >> 20) + "MB");
+        final Map<Integer, Long> footprints = SpeciesScheduler.estimateFootprints(db, remaining, null);
+        final AtomicInteger started = new AtomicInteger();
+        final Map<Integer, Future<Void>> results = new SpeciesScheduler(budget, threads).run(footprints,
+                new SpeciesScheduler.SpeciesTask<Void>() {
+                    @Override
+                    public Void run(Integer spcId) throws Exception {
+                        final File outputFile = new File(outputFile(spcId));
+                        log.info("exporting " + spcId + " (" + started.incrementAndGet() + ". out of " + remaining.size() +
+                                " in " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min)");
+                        manifest.put(outputFile.getName(), exportSpecies(spcId, outputFile.getPath()));
+                        return null;
+                    }
+                });
+        final List<Integer> failed = new ArrayList<>();
+        for (Map.Entry<Integer, Future<Void>> e : results.entrySet()) {
+            try {
+                e.getValue().get();
+            } catch (ExecutionException ex) {
+                log.error("failed to export " + e.getKey(), ex.getCause());
+                failed.add(e.getKey());
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new RuntimeException("failed to export species: " + failed);
+        }
     }
 
     private static void writeToFile(List<Row> rows, String outputFile) {
@@ -92,52 +191,74 @@ public class MitabFileExporter {
         }
     }
 
-    private Map<Integer, String> readUniProtIds(Map<Integer, Set<String>> linkouts) {
-        Map<Integer, String> map = new HashMap<>();
-        for (Map.Entry<Integer, Set<String>> e : linkouts.entrySet()) {
-            if (e.getValue().isEmpty()) {
-                log.warn("UniProt id missing for " + e.getKey());
-                continue;
-            }
-            if (e.getValue().size() > 1) {
-                log.warn("multiple UniProt ids for " + e.getKey() + ": " + e.getValue());
-            }
-
-            final String linkout = e.getValue().iterator().next();
-            String uniprotId = linkout.substring(linkout.lastIndexOf("/") + 1);
-            map.put(e.getKey(), uniprotId);
-        }
-        return map;
-    }
-
-    void exportSpecies(Integer spcId, String outputFile) throws Exception {
+    /**
+     * Write the species to a temp file, and rename it to {@code outputFile} once it's complete.
+     *
+     * @return manifest entry for the written file
+     */
+    ExportManifest.Entry exportSpecies(Integer spcId, String outputFile) throws Exception {
         final long spc = System.currentTimeMillis();
+        final File target = new File(outputFile);
+        final File tmp = new File(outputFile + ".tmp");
+        final MessageDigest md5 = ExportManifest.md5();
 
-        FileWriter fileWriter;
-        try {
-            fileWriter = new FileWriter(outputFile);
-        } catch (IOException e) {
-            throw new RuntimeException("failed to open " + outputFile, e);
-        }
-        DefaultRowWriter writer = new DefaultRowWriter(MitabDocumentDefinitionFactory.mitab25());
-
-        final StringdbRowBuilder stringdbRowBuilder = StringdbRowBuilder.builder(db).build(spcId, this.uniprotIds);
-        final StringDbScoresDataReader scoresReader = new StringDbScoresDataReader(db, AppProperties.instance.getJdbcTemplate(), spcId);
+        final StringdbRowBuilder stringdbRowBuilder = StringdbRowBuilder.builder(db)
+                .withRogidStore(rogidStore).withTableLoader(tableLoader)
+                .build(spcId, this.uniprotIds);
+        //same output as DefaultRowWriter.writeLine() of every stringdbRowBuilder row, without creating the rows
+        final MitabLineWriter writer = new MitabLineWriter(new DefaultRowWriter(MitabDocumentDefinitionFactory.mitab25()),
+                stringdbRowBuilder, appProperties.fieldCacheEntries / ProteinFieldCache.GROUPS);
+        final DataReader<StringDbScores> scoresReader = db.scores(spcId, appProperties.scoresReader,
+                appProperties.scoresPartitions);
         log.debug("scores reader created, exporting...");
+        final IndexingStats speciesStats = stats.forSpecies(spcId);
+        final IndexingStats.StageStats readStats = speciesStats.stage(IndexingStats.Stage.READ);
+        final IndexingStats.StageStats buildStats = speciesStats.stage(IndexingStats.Stage.BUILD);
         long numInteractions = 0;
-        while (scoresReader.next()) {
-            final StringDbScores stringDbScores = scoresReader.get();
-            for (final Row row : stringdbRowBuilder.build(stringDbScores)) {
-                final String mitabRecord = writer.writeLine(row);
-                try {
-                    fileWriter.append(mitabRecord);
-                    numInteractions++;
-                } catch (IOException e) {
-                    log.error("failed to write row: " + mitabRecord, e);
+        //the one an error is counted against
+        IndexingStats.StageStats stage = readStats;
+        try {
+            //closed before the move, if the loop failed a failure to close is suppressed by the loop's one
+            try (OutputStream fileWriter = open(tmp, md5, spcId)) {
+                long start = System.nanoTime();
+                while (scoresReader.next()) {
+                    final StringDbScores scores = scoresReader.get();
+                    readStats.add(1, start);
+                    stage = buildStats;
+                    start = System.nanoTime();
+                    final int lines = writer.write(scores, fileWriter);
+                    buildStats.add(lines, start);
+                    numInteractions += lines;
+                    stage = readStats;
+                    start = System.nanoTime();
                 }
+                stage = buildStats;
             }
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            //a file with missing rows is worse than no file, that one at least gets exported next time
+            stage.error();
+            tmp.delete();
+            throw e;
+        } finally {
+            scoresReader.close();
         }
-        fileWriter.close();
+        StringdbSolrIndexer.logCaches(stringdbRowBuilder);
         log.info(spcId + " total interactions: " + numInteractions + ", done in: " + ((System.currentTimeMillis() - spc) / (1000)) + "sec");
+        speciesStats.logSummary();
+        return new ExportManifest.Entry(numInteractions, target.length(), ExportManifest.hex(md5.digest()));
+    }
+
+    /**
+     * @return compressed stream to the file, written by a thread of its own
+     */
+    private OutputStream open(File tmp, MessageDigest md5, Integer spcId) {
+        try {
+            //the checksum is of the file as it is on disk, i.e. compressed
+            final OutputStream file = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024), md5);
+            return new AsyncOutputStream(compression.wrap(file), "export-writer-" + spcId);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to open " + tmp, e);
+        }
     }
 }
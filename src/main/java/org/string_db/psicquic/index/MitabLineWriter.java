@@ -0,0 +1,358 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.hupo.psi.calimocho.io.IllegalRowException;
+import org.hupo.psi.calimocho.key.CalimochoKeys;
+import org.hupo.psi.calimocho.model.DefaultField;
+import org.hupo.psi.calimocho.model.DefaultRow;
+import org.hupo.psi.calimocho.model.Row;
+import org.hupo.psi.calimocho.tab.io.DefaultRowWriter;
+import org.hupo.psi.calimocho.tab.util.Mitab25ColumnKeys;
+import org.hupo.psi.calimocho.tab.util.Mitab26ColumnKeys;
+import org.string_db.EvidenceType;
+import org.string_db.StringDbScores;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Writes MITAB lines straight from {@link StringDbScores}, without building a {@link Row} per line,
+ * the output is the same as {@link StringdbRowBuilder} rows written by {@link DefaultRowWriter}.
+ * <p/>
+ * That's because it's made of pieces produced by that very {@link DefaultRowWriter}: a MITAB column
+ * only depends on the fields with its key, so each column is cut out of a line written for a
+ * (single protein, single evidence type, single score, ...) row, and cached as bytes. Then every line
+ * is just those bytes copied into a reused buffer. Columns are found by writing a row with a single field
+ * (the writer decides which keys it knows about and where they go, so this works for 2.5 as well as 2.6).
+ * <p/>
+ * Protein columns are computed per protein, and kept in a bounded cache like {@link ProteinFieldCache}'s.
+ * If a protein's ROGID can't be calculated, both checksums of its pairs are left out, as {@link RogidFieldBuilder}
+ * does. Not thread safe.
+ */
+class MitabLineWriter {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    static final byte COLUMN_SEPARATOR = '\t';
+
+    private static final int SPECIES = 0;
+    private static final int PROTEIN_A = 1;
+    private static final int PROTEIN_B = 2;
+    private static final int EVIDENCE = 3;
+    private static final int SOURCE = 4;
+    private static final int CONFIDENCE = 5;
+    private static final Map<String, Integer> KEY_KINDS = new HashMap<>();
+
+    static {
+        for (String key : Arrays.asList(Mitab25ColumnKeys.KEY_ID_A, Mitab25ColumnKeys.KEY_ALTID_A, Mitab25ColumnKeys.KEY_ALIAS_A,
+                Mitab26ColumnKeys.KEY_INTERACTOR_TYPE_A, Mitab26ColumnKeys.KEY_CHECKSUM_A)) {
+            KEY_KINDS.put(key, PROTEIN_A);
+        }
+        for (String key : Arrays.asList(Mitab25ColumnKeys.KEY_ID_B, Mitab25ColumnKeys.KEY_ALTID_B, Mitab25ColumnKeys.KEY_ALIAS_B,
+                Mitab26ColumnKeys.KEY_INTERACTOR_TYPE_B, Mitab26ColumnKeys.KEY_CHECKSUM_B)) {
+            KEY_KINDS.put(key, PROTEIN_B);
+        }
+        KEY_KINDS.put(Mitab25ColumnKeys.KEY_DETMETHOD, EVIDENCE);
+        KEY_KINDS.put(Mitab25ColumnKeys.KEY_INTERACTION_TYPE, EVIDENCE);
+        KEY_KINDS.put(Mitab25ColumnKeys.KEY_SOURCE, SOURCE);
+        KEY_KINDS.put(Mitab25ColumnKeys.KEY_CONFIDENCE, CONFIDENCE);
+    }
+
+    private final DefaultRowWriter writer;
+    private final ConfidenceColumnBuilder scoresParser;
+    private final FieldBuilder appenderChain;
+    private final String terminator;
+    private final byte[] terminatorBytes;
+    /**
+     * what each column depends on, everything else is the same for the whole species
+     */
+    private final int[] kinds;
+    /**
+     * columns of a row without fields
+     */
+    private final byte[][] emptyColumns;
+    /**
+     * -1 if the writer doesn't write checksums
+     */
+    private final int checksumA;
+    private final int checksumB;
+    /**
+     * species wide columns, known once the first protein is written
+     */
+    private byte[][] species;
+
+    /**
+     * a protein goes into the slot {@code protein id % slots}, replacing whatever was there
+     */
+    private final ProteinColumns[] proteins;
+    private final int proteinsMask;
+    private final Map<EvidenceType, byte[][]> evidence = new EnumMap<>(EvidenceType.class);
+    private final byte[][] confidence = new byte[1001][];
+    private final Map<List<Pair<String, String>>, byte[]> sources = new HashMap<>();
+
+    private byte[] line = new byte[8 * 1024];
+    private int length;
+
+    MitabLineWriter(DefaultRowWriter writer, StringdbRowBuilder rowBuilder) {
+        this(writer, rowBuilder, 1 << 16);
+    }
+
+    /**
+     * @param maxProteins upper limit for the no. of proteins whose columns are cached
+     */
+    MitabLineWriter(DefaultRowWriter writer, StringdbRowBuilder rowBuilder, int maxProteins) {
+        this.writer = writer;
+        this.scoresParser = rowBuilder.scoresParser;
+        this.appenderChain = rowBuilder.appenderChain;
+
+        final String empty = writeLine(new DefaultRow());
+        int end = empty.length();
+        while (end > 0 && (empty.charAt(end - 1) == '\n' || empty.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        terminator = empty.substring(end);
+        terminatorBytes = terminator.getBytes(UTF8);
+        final String[] emptyColumns = columns(empty);
+        this.emptyColumns = encode(emptyColumns);
+        kinds = new int[emptyColumns.length];
+        for (Map.Entry<String, Integer> e : KEY_KINDS.entrySet()) {
+            final int column = findColumn(e.getKey(), emptyColumns);
+            if (column >= 0) {
+                kinds[column] = e.getValue();
+            }
+        }
+        checksumA = findColumn(Mitab26ColumnKeys.KEY_CHECKSUM_A, emptyColumns);
+        checksumB = findColumn(Mitab26ColumnKeys.KEY_CHECKSUM_B, emptyColumns);
+        final int capacity = Integer.highestOneBit(Math.max(1, maxProteins));
+        proteins = new ProteinColumns[capacity];
+        proteinsMask = capacity - 1;
+    }
+
+    /**
+     * Write all the lines (one per evidence type) for the pair of proteins.
+     *
+     * @param scores
+     * @param out
+     * @return no. of lines written
+     * @throws IOException
+     */
+    int write(StringDbScores scores, OutputStream out) throws IOException {
+        final Integer proteinA = scores.getProteinA();
+        final Integer proteinB = scores.getProteinB();
+        final ProteinColumns columnsA = protein(proteinA);
+        final ProteinColumns columnsB = protein(proteinB);
+        final byte[][] a = columnsA.columns;
+        final byte[][] b = columnsB.columns;
+        //both or none, like RogidFieldBuilder
+        final boolean checksums = columnsA.checksum && columnsB.checksum;
+        length = 0;
+        int lines = 0;
+        //the same for DATABASE and EXPERIMENTAL, so looked up at most once per pair
+        byte[] source = null;
+        //same order as StringdbRowBuilder.build(): the key order of a HashMap filled in this order
+        for (EvidenceType evidenceType : ConfidenceColumnBuilder.detectionType.keySet()) {
+            final Integer score = scoresParser.getRowScore(scores, evidenceType);
+            if (score == null) {
+                continue;
+            }
+            final byte[][] evidenceColumns = evidence(evidenceType);
+            final boolean lookup = ConfidenceColumnBuilder.usesSourceDbLookup(evidenceType);
+            if (lookup && source == null) {
+                source = source(evidenceType, scoresParser.getSourceDbs(proteinA, proteinB, evidenceType));
+            }
+            for (int column = 0; column < kinds.length; column++) {
+                if (column > 0) {
+                    append(COLUMN_SEPARATOR);
+                }
+                switch (kinds[column]) {
+                    case PROTEIN_A:
+                        append(checksums || column != checksumA ? a[column] : emptyColumns[column]);
+                        break;
+                    case PROTEIN_B:
+                        append(checksums || column != checksumB ? b[column] : emptyColumns[column]);
+                        break;
+                    case EVIDENCE:
+                        append(evidenceColumns[column]);
+                        break;
+                    case SOURCE:
+                        append(lookup ? source : evidenceColumns[column]);
+                        break;
+                    case CONFIDENCE:
+                        append(confidence(score, column));
+                        break;
+                    default:
+                        append(species[column]);
+                }
+            }
+            append(terminatorBytes);
+            lines++;
+        }
+        out.write(line, 0, length);
+        return lines;
+    }
+
+    /**
+     * @return all columns of a row with the protein as both A and B
+     */
+    private ProteinColumns protein(Integer proteinId) {
+        final int slot = proteinId & proteinsMask;
+        ProteinColumns cached = proteins[slot];
+        if (cached == null || cached.proteinId != proteinId) {
+            final byte[][] columns = encode(columns(writeLine(appenderChain.proteins(proteinId, proteinId)
+                    .addTo(new RowBuilder()).build())));
+            if (species == null) {
+                species = columns;
+            } else {
+                checkSpeciesColumns(proteinId, columns);
+            }
+            cached = new ProteinColumns(proteinId, columns,
+                    checksumA < 0 || !Arrays.equals(columns[checksumA], emptyColumns[checksumA]));
+            proteins[slot] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * guards against a field builder adding something per protein this class doesn't know about
+     */
+    private void checkSpeciesColumns(Integer proteinId, byte[][] columns) {
+        for (int column = 0; column < kinds.length; column++) {
+            if (kinds[column] == SPECIES && !Arrays.equals(species[column], columns[column])) {
+                throw new IllegalStateException("column " + (column + 1) + " depends on the protein: " + proteinId);
+            }
+        }
+    }
+
+    private byte[][] evidence(EvidenceType evidenceType) {
+        byte[][] columns = evidence.get(evidenceType);
+        if (columns == null) {
+            columns = encode(columns(writeLine(scoresParser.buildRow(evidenceType, StringDbScoresDataReader.MIN_SCORE,
+                    ConfidenceColumnBuilder.STRINGDB_SOURCE).build())));
+            evidence.put(evidenceType, columns);
+        }
+        return columns;
+    }
+
+    private byte[] source(EvidenceType evidenceType, Set<Pair<String, String>> sourceDbs) {
+        //keyed by the iteration order, that's the order of fields in the column
+        final List<Pair<String, String>> key = new ArrayList<>(sourceDbs);
+        byte[] column = sources.get(key);
+        if (column == null) {
+            final String[] columns = columns(writeLine(scoresParser.buildRow(evidenceType, StringDbScoresDataReader.MIN_SCORE,
+                    new LinkedHashSet<>(key)).build()));
+            column = columns[indexOf(SOURCE)].getBytes(UTF8);
+            sources.put(key, column);
+        }
+        return column;
+    }
+
+    private byte[] confidence(Integer score, int column) {
+        if (score < confidence.length && confidence[score] != null) {
+            return confidence[score];
+        }
+        final byte[] bytes = columns(writeLine(scoresParser.buildRow(EvidenceType.TEXTMINING, score,
+                ConfidenceColumnBuilder.STRINGDB_SOURCE).build()))[column].getBytes(UTF8);
+        if (score < confidence.length) {
+            confidence[score] = bytes;
+        }
+        return bytes;
+    }
+
+    private int indexOf(int kind) {
+        for (int column = 0; column < kinds.length; column++) {
+            if (kinds[column] == kind) {
+                return column;
+            }
+        }
+        throw new IllegalStateException("no column of kind " + kind);
+    }
+
+    /**
+     * @return column the writer puts the key in, -1 if it ignores it
+     */
+    private int findColumn(String key, String[] emptyColumns) {
+        final DefaultField field = new DefaultField();
+        field.set(CalimochoKeys.KEY, "probe");
+        field.set(CalimochoKeys.DB, "probe");
+        field.set(CalimochoKeys.VALUE, "probe");
+        final Row row = new DefaultRow();
+        row.addField(key, field);
+        final String[] columns = columns(writeLine(row));
+        for (int column = 0; column < columns.length; column++) {
+            if (!columns[column].equals(emptyColumns[column])) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    private String writeLine(Row row) {
+        try {
+            return writer.writeLine(row);
+        } catch (IllegalRowException e) {
+            throw new IllegalArgumentException("invalid row", e);
+        }
+    }
+
+    private String[] columns(String line) {
+        final String body = terminator == null ? line : line.substring(0, line.length() - terminator.length());
+        return body.split(String.valueOf((char) COLUMN_SEPARATOR), -1);
+    }
+
+    private static byte[][] encode(String[] columns) {
+        final byte[][] bytes = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            bytes[i] = columns[i].getBytes(UTF8);
+        }
+        return bytes;
+    }
+
+    private void append(byte b) {
+        ensureCapacity(1);
+        line[length++] = b;
+    }
+
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, line, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int more) {
+        if (length + more > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + more));
+        }
+    }
+
+    private static final class ProteinColumns {
+        final int proteinId;
+        final byte[][] columns;
+        /**
+         * false if the protein's ROGID couldn't be calculated
+         */
+        final boolean checksum;
+
+        ProteinColumns(int proteinId, byte[][] columns, boolean checksum) {
+            this.proteinId = proteinId;
+            this.columns = columns;
+            this.checksum = checksum;
+        }
+    }
+}
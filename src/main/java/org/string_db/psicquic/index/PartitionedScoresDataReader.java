@@ -0,0 +1,255 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.string_db.DbFacade;
+import org.string_db.StringDbScores;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads a species' scores split into ranges of {@code node_id_a}, all of them at the same time
+ * (each with its own reader, so its own db connection), and hands them out as a single stream.
+ * Rows of different ranges come out interleaved.
+ * <p/>
+ * Ranges hold roughly the same no. of rows, their bounds are quantiles of {@code node_id_a}
+ * (ids are not evenly spread over the links: only the half with {@code node_id_a < node_id_b} is read).
+ * <p/>
+ * Like {@link IndexingPipeline}, partitions pass on their rows in chunks through a bounded queue,
+ * so a slow consumer holds the readers back. If a partition fails, the others are stopped and
+ * {@link #next()} throws. A consumer that gives up early must {@link #close()} the reader: partitions
+ * waiting for room in the queue notice it and give back their connections.
+ */
+class PartitionedScoresDataReader implements DataReader<StringDbScores> {
+    private static final Logger log = Logger.getLogger(PartitionedScoresDataReader.class);
+    private static final int CHUNK_SIZE = IndexingPipeline.CHUNK_SIZE;
+    private static final int QUEUE_SIZE = 100;
+    /**
+     * how long a partition waits for room in the queue before it checks whether the reader was closed
+     */
+    private static final int OFFER_TIMEOUT_MS = 500;
+    private static final List<StringDbScores> PARTITION_DONE = new ArrayList<>(0);
+
+    /**
+     * lowest {@code node_id_a} of each partition, partitions are numbered by ntile() in the order of node_id_a
+     */
+    static final String BOUNDS_QUERY = "SELECT min(node_id_a) FROM ("
+            + " SELECT node_id_a, ntile(?) OVER (ORDER BY node_id_a) AS partition"
+            + " FROM  network.node_node_links  "
+            + "  WHERE combined_score >= " + StringDbScoresDataReader.MIN_SCORE
+            + "    AND node_id_a < node_id_b "
+            + "    AND node_type_b = ?"
+            + ") AS links GROUP BY partition ORDER BY partition";
+
+    private final BlockingQueue<List<StringDbScores>> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final ExecutorService executor;
+    /**
+     * first failure of a partition, set before the partition is done
+     */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean closed;
+    private int running;
+    private List<StringDbScores> chunk = new ArrayList<>(0);
+    private int position;
+    private StringDbScores current;
+    /**
+     * same guard as {@link StringDbScoresDataReader}'s
+     */
+    private boolean nextCalled;
+
+    /**
+     * @param readers open a partition's reader, called from the partition's own thread
+     */
+    PartitionedScoresDataReader(List<Callable<DataReader<StringDbScores>>> readers) {
+        //daemons, so a reader nobody closed doesn't keep the jvm from exiting
+        executor = Executors.newFixedThreadPool(Math.max(1, readers.size()), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "scores-partition-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        running = readers.size();
+        for (final Callable<DataReader<StringDbScores>> reader : readers) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    DataReader<StringDbScores> partition = null;
+                    try {
+                        partition = reader.call();
+                        read(partition);
+                    } catch (InterruptedException e) {
+                        //closed, nobody is waiting for the rows
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        if (partition != null) {
+                            partition.close();
+                        }
+                        try {
+                            offer(PARTITION_DONE);
+                        } catch (InterruptedException e) {
+                            //closed
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * @param method     see {@link StringDbScoresDataReader#open(DbFacade, JdbcTemplate, Integer, String, String)}
+     * @param partitions no. of partitions, there can be fewer if the species doesn't have that many proteins with links
+     */
+    static PartitionedScoresDataReader open(final DbFacade dbFacade, final JdbcTemplate jdbcTemplate, final Integer speciesId,
+                                            final String method, int partitions) {
+        final List<Integer> bounds = bounds(jdbcTemplate, speciesId, partitions);
+        log.info(speciesId + " split into " + bounds.size() + " partitions, starting at: " + bounds);
+        final List<Callable<DataReader<StringDbScores>>> readers = new ArrayList<>();
+        for (int i = 0; i < bounds.size(); i++) {
+            final String condition = " AND node_id_a >= " + bounds.get(i)
+                    + (i + 1 < bounds.size() ? " AND node_id_a < " + bounds.get(i + 1) : "");
+            readers.add(new Callable<DataReader<StringDbScores>>() {
+                @Override
+                public DataReader<StringDbScores> call() throws Exception {
+                    return StringDbScoresDataReader.open(dbFacade, jdbcTemplate, speciesId, method, condition);
+                }
+            });
+        }
+        return new PartitionedScoresDataReader(readers);
+    }
+
+    /**
+     * @return distinct lower bounds of the partitions, in ascending order
+     */
+    static List<Integer> bounds(JdbcTemplate jdbcTemplate, Integer speciesId, int partitions) {
+        final List<Integer> bounds = new ArrayList<>(partitions);
+        jdbcTemplate.query(BOUNDS_QUERY, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                final int bound = rs.getInt(1);
+                //a protein with lots of links can fill more than one ntile
+                if (bounds.isEmpty() || bounds.get(bounds.size() - 1) != bound) {
+                    bounds.add(bound);
+                }
+            }
+        }, partitions, speciesId);
+        return bounds;
+    }
+
+    private void read(DataReader<StringDbScores> reader) throws InterruptedException {
+        List<StringDbScores> rows = new ArrayList<>(CHUNK_SIZE);
+        while (reader.next()) {
+            rows.add(reader.get());
+            if (rows.size() == CHUNK_SIZE) {
+                if (!offer(rows)) {
+                    return;
+                }
+                rows = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!rows.isEmpty()) {
+            offer(rows);
+        }
+    }
+
+    /**
+     * unlike put(), doesn't wait forever for a consumer that's gone
+     *
+     * @return false if the reader was closed before there was room for {@code rows}
+     */
+    private boolean offer(List<StringDbScores> rows) throws InterruptedException {
+        while (!closed) {
+            if (queue.offer(rows, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean next() {
+        if (nextCalled) {
+            throw new IllegalStateException("next() called for the second time, call get() first");
+        }
+        nextCalled = true;
+        try {
+            while (position == chunk.size()) {
+                if (running == 0) {
+                    checkFailure();
+                    return false;
+                }
+                chunk = queue.take();
+                position = 0;
+                if (chunk == PARTITION_DONE) {
+                    running--;
+                    //fail fast, and stop the others
+                    checkFailure();
+                }
+            }
+            current = chunk.get(position++);
+            return true;
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new DataRetrievalFailureException("interrupted while reading scores", e);
+        }
+    }
+
+    @Override
+    public StringDbScores get() {
+        if (!nextCalled) {
+            throw new IllegalStateException("call next() first!");
+        }
+        nextCalled = false;
+        return current;
+    }
+
+    /**
+     * stops the partitions still reading, their rows are dropped
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        queue.clear();
+    }
+
+    private void checkFailure() {
+        final Throwable e = failure.get();
+        if (e != null) {
+            close();
+            throw new DataRetrievalFailureException("failed to read a partition", e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyInputStream;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.string_db.DbFacade;
+import org.string_db.StringDbScores;
+
+import java.io.*;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Reads the same rows as {@link StringDbScoresDataReader}, but streams them with
+ * {@code COPY ... TO STDOUT (FORMAT binary)} and decodes ids and {@code evidence_scores}
+ * straight from the bytes, instead of going through a cursor and parsing arrays from text.
+ * @see <a href='https://www.postgresql.org/docs/9.4/static/sql-copy.html'>COPY binary format</a>
+ */
+class PgCopyScoresDataReader implements DataReader<StringDbScores> {
+    private static final Logger log = Logger.getLogger(PgCopyScoresDataReader.class);
+    static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final int FIELDS = 3;
+
+    private final Map<Integer, String> scoreTypes;
+    private final DataInputStream in;
+    /**
+     * closed once all rows are read, null if there's nothing to close
+     */
+    private final Connection connection;
+    private final PGCopyInputStream copy;
+    private int proteinA;
+    private int proteinB;
+    private Integer[][] scores;
+    private boolean done;
+    /**
+     * same guard as {@link StringDbScoresDataReader}'s
+     */
+    private boolean nextCalled;
+
+    PgCopyScoresDataReader(DbFacade dbFacade, JdbcTemplate jdbcTemplate, Integer speciesId) {
+        this(dbFacade, jdbcTemplate, speciesId, "");
+    }
+
+    /**
+     * @param condition appended to the query's WHERE clause, e.g. to read a range of proteins only
+     */
+    PgCopyScoresDataReader(DbFacade dbFacade, JdbcTemplate jdbcTemplate, Integer speciesId, String condition) {
+        log.info("init()");
+        try {
+            this.scoreTypes = ReferenceData.of(dbFacade).scoreTypes();
+            connection = jdbcTemplate.getDataSource().getConnection();
+            copy = new PGCopyInputStream(connection.unwrap(PGConnection.class), copyQuery(StringDbScoresDataReader.SCORES_QUERY + speciesId + condition));
+            in = new DataInputStream(new BufferedInputStream(copy, 64 * 1024));
+            readHeader();
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        log.info("done()");
+    }
+
+    /**
+     * @param in         COPY binary output
+     * @param scoreTypes
+     */
+    PgCopyScoresDataReader(InputStream in, Map<Integer, String> scoreTypes) throws IOException {
+        this.scoreTypes = scoreTypes;
+        this.connection = null;
+        this.copy = null;
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        readHeader();
+    }
+
+    static String copyQuery(String query) {
+        return "COPY (" + query + ") TO STDOUT (FORMAT binary)";
+    }
+
+    private void readHeader() throws IOException {
+        final byte[] signature = new byte[SIGNATURE.length];
+        in.readFully(signature);
+        if (!Arrays.equals(SIGNATURE, signature)) {
+            throw new IOException("not a COPY binary stream");
+        }
+        final int flags = in.readInt();
+        if ((flags & (1 << 16)) != 0) {
+            throw new IOException("OIDs are not expected");
+        }
+        final int extension = in.readInt();
+        in.skipBytes(extension);
+    }
+
+    @Override
+    public boolean next() {
+        if (nextCalled) {
+            throw new IllegalStateException("next() called for the second time, call get() first");
+        }
+        nextCalled = true;
+        if (done) {
+            return false;
+        }
+        try {
+            final short fields = in.readShort();
+            if (fields == -1) {
+                finish();
+                return false;
+            }
+            if (fields != FIELDS) {
+                throw new IOException("expected " + FIELDS + " fields, got " + fields);
+            }
+            proteinA = readInt4(in);
+            proteinB = readInt4(in);
+            scores = readIntArray(in);
+            return true;
+        } catch (IOException e) {
+            abort();
+            throw new DataRetrievalFailureException("failed to read scores", e);
+        }
+    }
+
+    @Override
+    public StringDbScores get() {
+        if (!nextCalled) {
+            throw new IllegalStateException("call next() first!");
+        }
+        nextCalled = false;
+        return new StringDbScores(proteinA, proteinB, scoreTypes, scores);
+    }
+
+    static int readInt4(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length != 4) {
+            throw new IOException("expected a non null int4, length: " + length);
+        }
+        return in.readInt();
+    }
+
+    /**
+     * Binary array: no. of dimensions, has nulls flag, element type oid, (size, lower bound) per dimension
+     * and then the elements, each with its length.
+     *
+     * @return 2 dimensional int array, a 1 dimensional one is returned as a single row
+     */
+    static Integer[][] readIntArray(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == -1) {
+            return new Integer[0][];
+        }
+        final int dimensions = in.readInt();
+        in.readInt(); //has nulls
+        in.readInt(); //element type
+        if (dimensions == 0) {
+            return new Integer[0][];
+        }
+        if (dimensions > 2) {
+            throw new IOException("unexpected no. of array dimensions: " + dimensions);
+        }
+        final int rows = dimensions == 2 ? in.readInt() : 1;
+        if (dimensions == 2) {
+            in.readInt();
+        }
+        final int columns = in.readInt();
+        in.readInt();
+        final Integer[][] array = new Integer[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                final int elementLength = in.readInt();
+                if (elementLength == -1) {
+                    continue;
+                }
+                if (elementLength != 4) {
+                    throw new IOException("expected int4 elements, length: " + elementLength);
+                }
+                array[i][j] = in.readInt();
+            }
+        }
+        return array;
+    }
+
+    private void finish() throws IOException {
+        done = true;
+        in.close();
+        if (connection != null) {
+            try {
+                //species are indexed concurrently, each reader with its own connection, so give it back
+                connection.close();
+            } catch (SQLException e) {
+                throw new IOException("failed to close the connection", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!done) {
+            abort();
+        }
+    }
+
+    /**
+     * stop the COPY so the connection can be given back
+     */
+    private void abort() {
+        done = true;
+        try {
+            if (copy != null) {
+                copy.cancelCopy();
+            }
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            log.warn("failed to cancel COPY", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.hupo.psi.calimocho.model.Field;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per species cache of the {@link Field}s {@link PerProteinFieldBuilder}s create for a protein (its ids,
+ * aliases, alternative ids, ROGID), shared by all the species' field builders. A protein's fields are the
+ * same whether it's interactor A or B, and the same in every pair, so they're built once and then
+ * only added to rows. Cached fields must not be modified.
+ * <p/>
+ * Memory is bounded by the no. of slots: an entry goes into the slot {@code (protein id * GROUPS + group) % slots}
+ * and simply replaces whatever was there. Protein ids of a species are (almost) contiguous, so as long as
+ * the species fits, there are hardly any collisions, and if it doesn't, only the least recent of the
+ * colliding proteins gets rebuilt. Safe to use from more than one thread.
+ */
+class ProteinFieldCache {
+    static final int IDS = 0;
+    static final int ALIASES = 1;
+    static final int ALT_IDS = 2;
+    static final int ROGIDS = 3;
+    static final int GROUPS = 4;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param proteins   no. of proteins of the species
+     * @param maxEntries upper limit for the no. of cached field groups
+     */
+    ProteinFieldCache(int proteins, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries: " + maxEntries);
+        }
+        //twice the slots needed keeps collisions low for ids that aren't contiguous
+        final long wanted = Math.min(2L * GROUPS * Math.max(1, proteins), maxEntries);
+        final int capacity = Integer.highestOneBit((int) wanted);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return the protein's fields of the group, or null if they're not cached
+     */
+    Field[] get(int proteinId, int group) {
+        final Entry entry = slots.get(slot(proteinId, group));
+        if (entry != null && entry.proteinId == proteinId && entry.group == group) {
+            hits.incrementAndGet();
+            return entry.fields;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put(int proteinId, int group, Field[] fields) {
+        slots.set(slot(proteinId, group), new Entry(proteinId, group, fields));
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    private int slot(int proteinId, int group) {
+        return (proteinId * GROUPS + group) & mask;
+    }
+
+    @Override
+    public String toString() {
+        final long total = hits.get() + misses.get();
+        return String.format("protein fields: %d slots, %d built, %d reused (%.1f%% hit rate)",
+                slots.length(), misses.get(), hits.get(), total == 0 ? 0 : 100.0 * hits.get() / total);
+    }
+
+    private static final class Entry {
+        final int proteinId;
+        final int group;
+        final Field[] fields;
+
+        Entry(int proteinId, int group, Field[] fields) {
+            this.proteinId = proteinId;
+            this.group = group;
+            this.fields = fields;
+        }
+    }
+}
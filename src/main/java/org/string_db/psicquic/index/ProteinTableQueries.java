@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.string_db.ProteinExternalId;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads a species' protein tables row by row straight into {@link IntTable}s, instead of copying
+ * them out of the boxed maps {@link org.string_db.DbFacade} returns. Same data as DbFacade's loaders.
+ */
+class ProteinTableQueries {
+    static final String EXTERNAL_IDS_QUERY = "SELECT protein_id, protein_external_id "
+            + " FROM items.proteins "
+            + " WHERE species_id = ? ";
+    static final String PREFERRED_NAMES_QUERY = "SELECT protein_id, preferred_name "
+            + " FROM items.proteins "
+            + " WHERE species_id = ? ";
+    /**
+     * same sources as {@link org.string_db.DbFacade#loadRefseqIds(Integer)}, grouped by protein
+     */
+    static final String REFSEQ_IDS_QUERY = "SELECT n.protein_id, n.protein_name "
+            + " FROM items.proteins_names n "
+            + " JOIN items.proteins p ON p.protein_id = n.protein_id "
+            + " WHERE p.species_id = ? "
+            + "   AND n.source IN ('Ensembl_RefSeq', 'Ensembl_HGNC_RefSeq_IDs', 'RefSeq') "
+            + " ORDER BY n.protein_id, n.protein_name";
+    static final String SEQUENCES_QUERY = "SELECT p.protein_id, s.sequence "
+            + " FROM items.proteins p "
+            + " JOIN items.proteins_sequences s ON s.protein_id = p.protein_id "
+            + " WHERE p.species_id = ? ";
+
+    static IntTable<ProteinExternalId> externalIds(JdbcTemplate jdbcTemplate, Integer speciesId) {
+        final IntTable.Builder<ProteinExternalId> table = new IntTable.Builder<>();
+        jdbcTemplate.query(EXTERNAL_IDS_QUERY, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                table.put(rs.getInt(1), new ProteinExternalId(rs.getString(2)));
+            }
+        }, speciesId);
+        return table.build();
+    }
+
+    static IntTable<String> preferredNames(JdbcTemplate jdbcTemplate, Integer speciesId) {
+        return strings(jdbcTemplate, PREFERRED_NAMES_QUERY, speciesId);
+    }
+
+    static IntTable<String> sequences(JdbcTemplate jdbcTemplate, Integer speciesId) {
+        return strings(jdbcTemplate, SEQUENCES_QUERY, speciesId);
+    }
+
+    /**
+     * @return per protein, its RefSeq ids
+     */
+    static IntTable<String[]> refseqIds(JdbcTemplate jdbcTemplate, Integer speciesId) {
+        final RefseqIds ids = new RefseqIds();
+        jdbcTemplate.query(REFSEQ_IDS_QUERY, ids, speciesId);
+        return ids.build();
+    }
+
+    private static IntTable<String> strings(JdbcTemplate jdbcTemplate, String query, Integer speciesId) {
+        final IntTable.Builder<String> table = new IntTable.Builder<>();
+        jdbcTemplate.query(query, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                table.put(rs.getInt(1), rs.getString(2));
+            }
+        }, speciesId);
+        return table.build();
+    }
+
+    /**
+     * Rows come ordered by protein, so a protein's ids are collected until the next one starts.
+     */
+    static class RefseqIds implements RowCallbackHandler {
+        private final IntTable.Builder<String[]> table = new IntTable.Builder<>();
+        private final Set<String> ids = new LinkedHashSet<>();
+        private int proteinId;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            add(rs.getInt(1), rs.getString(2));
+        }
+
+        void add(int proteinId, String id) {
+            if (proteinId != this.proteinId) {
+                flush();
+                this.proteinId = proteinId;
+            }
+            //the same id can come from more than one source
+            ids.add(id);
+        }
+
+        IntTable<String[]> build() {
+            flush();
+            return table.build();
+        }
+
+        private void flush() {
+            if (!ids.isEmpty()) {
+                table.put(proteinId, ids.toArray(new String[ids.size()]));
+                ids.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.string_db.DbFacade;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Tables that are the same for every species, loaded once per run (on first use) and shared read-only
+ * by all species, scores readers and row builders, instead of being read again for each of them:
+ * score types, sets collections ({@link DictionaryMap}, collections are a handful of strings) and UniProt ids
+ * (only the accession of the first UniProt linkout of a protein is kept).
+ * <p/>
+ * One instance per {@link DbFacade}, see {@link #of(DbFacade)}. Each table logs its size and estimated
+ * footprint when loaded.
+ */
+class ReferenceData {
+    private static final Logger log = Logger.getLogger(ReferenceData.class);
+    private static final Map<DbFacade, ReferenceData> shared = new WeakHashMap<>();
+    /**
+     * HashMap entry, boxed key and table slot
+     */
+    static final long BYTES_PER_ENTRY = 32 + 16 + 8;
+
+    private final DbFacade db;
+    // all guarded by this
+    private Map<Integer, String> scoreTypes;
+    private DictionaryMap setsCollections;
+    private Map<Integer, String> uniprotIds;
+    private final Map<String, Long> estimatedBytes = new LinkedHashMap<>();
+
+    ReferenceData(DbFacade db) {
+        this.db = db;
+    }
+
+    /**
+     * @return reference data of the facade, the same instance every time
+     */
+    static synchronized ReferenceData of(DbFacade db) {
+        ReferenceData data = shared.get(db);
+        if (data == null) {
+            data = new ReferenceData(db);
+            shared.put(db, data);
+        }
+        return data;
+    }
+
+    synchronized Map<Integer, String> scoreTypes() throws SQLException {
+        if (scoreTypes == null) {
+            final long start = System.currentTimeMillis();
+            scoreTypes = Collections.unmodifiableMap(new LinkedHashMap<>(db.loadScoreTypes()));
+            long bytes = 0;
+            for (String type : scoreTypes.values()) {
+                bytes += BYTES_PER_ENTRY + DictionaryMap.stringBytes(type);
+            }
+            loaded("score_types", scoreTypes.size() + " types", bytes, start);
+        }
+        return scoreTypes;
+    }
+
+    synchronized Map<String, String> setsCollections() {
+        if (setsCollections == null) {
+            final long start = System.currentTimeMillis();
+            setsCollections = DictionaryMap.copyOf(db.loadSetsCollections());
+            loaded("sets_collections", setsCollections.size() + " sets in " + setsCollections.dictionarySize() +
+                    " collections", setsCollections.estimatedBytes(), start);
+        }
+        return setsCollections;
+    }
+
+    /**
+     * @return protein id to UniProt accession
+     */
+    synchronized Map<Integer, String> uniprotIds() {
+        if (uniprotIds == null) {
+            final long start = System.currentTimeMillis();
+            final Map<Integer, String> ids = new HashMap<>();
+            long bytes = 0;
+            for (Map.Entry<Integer, Set<String>> e : db.loadUniProtLinkouts().entrySet()) {
+                if (e.getValue().isEmpty()) {
+                    log.warn("UniProt id missing for " + e.getKey());
+                    continue;
+                }
+                if (e.getValue().size() > 1) {
+                    log.warn("multiple UniProt ids for " + e.getKey() + ": " + e.getValue());
+                }
+                final String linkout = e.getValue().iterator().next();
+                final String uniprotId = linkout.substring(linkout.lastIndexOf("/") + 1);
+                ids.put(e.getKey(), uniprotId);
+                bytes += BYTES_PER_ENTRY + DictionaryMap.stringBytes(uniprotId);
+            }
+            uniprotIds = Collections.unmodifiableMap(ids);
+            loaded("uniprot_ids", uniprotIds.size() + " proteins", bytes, start);
+        }
+        return uniprotIds;
+    }
+
+    private void loaded(String table, String description, long bytes, long start) {
+        estimatedBytes.put(table, bytes);
+        log.info("reference data: " + table + " loaded in " + (System.currentTimeMillis() - start) + "ms, " +
+                description + ", ~" + (bytes >> 20) + "MB; " + this);
+    }
+
+    /**
+     * @return rough no. of bytes taken by the tables loaded so far
+     */
+    synchronized long getEstimatedBytes() {
+        long bytes = 0;
+        for (Long tableBytes : estimatedBytes.values()) {
+            bytes += tableBytes;
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder tables = new StringBuilder();
+        for (Map.Entry<String, Long> e : estimatedBytes.entrySet()) {
+            tables.append(tables.length() == 0 ? "" : ", ").append(e.getKey()).append('=').append(e.getValue() >> 10).append("KB");
+        }
+        return "reference data ~" + (getEstimatedBytes() >> 20) + "MB (" + tables + ")";
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import uk.ac.ebi.intact.irefindex.seguid.RogidGenerator;
+import uk.ac.ebi.intact.irefindex.seguid.SeguidException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ROGIDs of a species' proteins, each one calculated once and then reused for every pair (and every
+ * evidence type) the protein is part of; hubs have thousands of them. Can be shared between threads.
+ */
+class RogidCache {
+    private static final Logger log = Logger.getLogger(RogidCache.class);
+    /**
+     * marks proteins whose ROGID can't be calculated, so it's not tried again
+     */
+    private static final String FAILED = new String("failed");
+
+    private final String taxid;
+    private final IntTable<String> proteinSequences;
+    private final ConcurrentMap<Integer, String> rogids;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final ThreadLocal<RogidGenerator> rogidGenerator = new ThreadLocal<RogidGenerator>() {
+        @Override
+        protected RogidGenerator initialValue() {
+            return new RogidGenerator();
+        }
+    };
+
+    RogidCache(Integer speciesId, IntTable<String> proteinSequences) {
+        this.taxid = speciesId.toString();
+        this.proteinSequences = proteinSequences;
+        this.rogids = new ConcurrentHashMap<>(Math.max(16, proteinSequences.size() * 4 / 3));
+    }
+
+    /**
+     * @param rogids already known ROGIDs, e.g. from a {@link RogidStore}, no sequences needed
+     */
+    RogidCache(Integer speciesId, Map<Integer, String> rogids) {
+        this(speciesId, IntTable.copyOf(Collections.<Integer, String>emptyMap()));
+        this.rogids.putAll(rogids);
+    }
+
+    /**
+     * @param proteinId
+     * @return the ROGID or null if it can't be calculated
+     */
+    String get(Integer proteinId) {
+        String rogid = rogids.get(proteinId);
+        if (rogid != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            rogid = calculate(proteinId);
+            //another thread might have just done the same, no harm done
+            rogids.putIfAbsent(proteinId, rogid);
+        }
+        return rogid == FAILED ? null : rogid;
+    }
+
+    private String calculate(Integer proteinId) {
+        try {
+            final String rogid = rogidGenerator.get().calculateRogid(proteinSequences.get(proteinId), taxid);
+            return rogid != null ? rogid : FAILED;
+        } catch (SeguidException e) {
+            log.error("error calculating checksum for " + proteinId, e);
+            return FAILED;
+        } catch (RuntimeException e) {
+            log.error("error calculating checksum for " + proteinId, e);
+            return FAILED;
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return share of lookups that didn't have to calculate the ROGID, 0 to 1
+     */
+    double getHitRate() {
+        final long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ROGIDs of %s: %d calculated, %d reused (%.1f%% hit rate)",
+                taxid, misses.get(), hits.get(), 100 * getHitRate());
+    }
+}
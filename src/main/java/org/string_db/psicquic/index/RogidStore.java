@@ -0,0 +1,524 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import uk.ac.ebi.intact.irefindex.seguid.RogidGenerator;
+import uk.ac.ebi.intact.irefindex.seguid.SeguidException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * ROGIDs kept between runs (and releases), keyed by the md5 of the protein sequence and the taxid.
+ * <p/>
+ * Sequences hardly change from one release to the next, so {@link #rogids(JdbcTemplate, Integer)}
+ * only asks the database for sequence digests, and loads the sequences of the proteins that aren't
+ * in the store yet. Those ROGIDs get calculated and added.
+ * <p/>
+ * The file is a memory-mapped open addressing table: a header followed by fixed size slots
+ * (digest, taxid, last run the entry was used in, ROGID), probed linearly. The slots are mapped in
+ * segments, so the file isn't limited to what a single buffer can map. When it's half full it's rewritten
+ * into a temp file that replaces it, leaving out entries not used in the last {@code maxUnusedRuns} runs
+ * (sequences of an old release), and with twice the slots if that's still needed. A slot's taxid is written
+ * last, so a slot is either complete or still free. Safe to use from more than one thread.
+ */
+class RogidStore {
+    private static final Logger log = Logger.getLogger(RogidStore.class);
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MAGIC = 0x52474432; // RGD2
+    static final int DIGEST_LENGTH = 16;
+    static final int MAX_ROGID_LENGTH = 43;
+    private static final int TAXID = DIGEST_LENGTH;
+    private static final int USED = TAXID + 4;
+    private static final int LENGTH = USED + 4;
+    private static final int ROGID = LENGTH + 1;
+    private static final int SLOT_SIZE = ROGID + MAX_ROGID_LENGTH;
+    private static final int HEADER_SIZE = 32;
+    static final int INITIAL_CAPACITY = 1 << 16;
+    /**
+     * 68MB per mapped segment
+     */
+    static final int SEGMENT_SLOTS = 1 << 20;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int FREE = 0;
+
+    /**
+     * md5 of the sequences of a species' proteins, calculated by the database
+     */
+    static final String SEQUENCE_DIGESTS_QUERY = "SELECT p.protein_id, md5(s.sequence) "
+            + " FROM items.proteins p "
+            + " JOIN items.proteins_sequences s ON s.protein_id = p.protein_id "
+            + " WHERE p.species_id = ? ";
+    /**
+     * sequences of some of the proteins, followed by a list of their ids
+     */
+    static final String SEQUENCES_QUERY = "SELECT protein_id, sequence "
+            + " FROM items.proteins_sequences "
+            + " WHERE protein_id IN ";
+    private static final int IDS_PER_QUERY = 1000;
+
+    private final File file;
+    private final int maxUnusedRuns;
+    private final int segmentSlots;
+    private Slots slots;
+    private int size;
+    /**
+     * counts up every time the store is opened
+     */
+    private int run;
+
+    /**
+     * @param maxUnusedRuns entries not used in that many runs are dropped once the store fills up
+     */
+    RogidStore(File file, int maxUnusedRuns) {
+        this(file, maxUnusedRuns, SEGMENT_SLOTS);
+    }
+
+    RogidStore(File file, int maxUnusedRuns, int segmentSlots) {
+        if (maxUnusedRuns < 0 || Integer.bitCount(segmentSlots) != 1) {
+            throw new IllegalArgumentException("maxUnusedRuns: " + maxUnusedRuns + ", segmentSlots: " + segmentSlots);
+        }
+        this.file = file;
+        this.maxUnusedRuns = maxUnusedRuns;
+        this.segmentSlots = segmentSlots;
+        try {
+            if (!file.exists() || file.length() == 0) {
+                Slots.create(file, INITIAL_CAPACITY, segmentSlots, 0, 0).close();
+            }
+            try {
+                slots = Slots.open(file, segmentSlots);
+            } catch (StoreFormatException e) {
+                //it's only a cache, ROGIDs can always be calculated again
+                log.warn("starting a new ROGID store, " + e.getMessage() + ": " + file);
+                Slots.create(file, INITIAL_CAPACITY, segmentSlots, 0, 0).close();
+                slots = Slots.open(file, segmentSlots);
+            }
+            size = slots.header.getInt(12);
+            run = slots.header.getInt(16) + 1;
+            slots.header.putInt(16, run);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to open ROGID store " + file, e);
+        }
+        log.info(size + " ROGIDs in " + file + ", run " + run);
+    }
+
+    /**
+     * @param digest md5 of the sequence
+     * @param taxid
+     * @return the ROGID or null if it's not in the store
+     */
+    synchronized String get(byte[] digest, int taxid) {
+        final int slot = slots.find(digest, taxid);
+        if (slots.getInt(slot, TAXID) == FREE) {
+            return null;
+        }
+        final int length = slots.get(slot, LENGTH);
+        if (length <= 0 || length > MAX_ROGID_LENGTH) {
+            return null;
+        }
+        if (slots.getInt(slot, USED) != run) {
+            slots.putInt(slot, USED, run);
+        }
+        final byte[] rogid = new byte[length];
+        for (int i = 0; i < length; i++) {
+            rogid[i] = slots.get(slot, ROGID + i);
+        }
+        return new String(rogid, ASCII);
+    }
+
+    synchronized void put(byte[] digest, int taxid, String rogid) {
+        if (digest.length != DIGEST_LENGTH || taxid == FREE) {
+            throw new IllegalArgumentException("invalid key, taxid: " + taxid);
+        }
+        final byte[] bytes = rogid.getBytes(ASCII);
+        if (bytes.length == 0 || bytes.length > MAX_ROGID_LENGTH) {
+            throw new IllegalArgumentException("invalid ROGID: " + rogid);
+        }
+        if (2 * (size + 1) > slots.capacity) {
+            rewrite();
+        }
+        final int slot = slots.find(digest, taxid);
+        final boolean added = slots.getInt(slot, TAXID) == FREE;
+        slots.write(slot, digest, taxid, run, bytes);
+        if (added) {
+            size++;
+            slots.header.putInt(12, size);
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int capacity() {
+        return slots.capacity;
+    }
+
+    /**
+     * make sure what's been added so far is on disk
+     */
+    synchronized void force() {
+        slots.force();
+    }
+
+    synchronized void close() throws IOException {
+        slots.force();
+        slots.close();
+    }
+
+    private static int hash(byte[] digest, int taxid) {
+        //md5 is as random as it gets already
+        final int h = ((digest[0] & 0xff) | (digest[1] & 0xff) << 8 | (digest[2] & 0xff) << 16 | (digest[3] & 0xff) << 24)
+                ^ taxid * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Rewrite into a temp file without the stale entries, with twice the slots if the rest still fills
+     * half of them, and replace the store with it.
+     */
+    private void rewrite() {
+        final int oldest = run - maxUnusedRuns;
+        int live = 0;
+        for (int slot = 0; slot < slots.capacity; slot++) {
+            if (slots.getInt(slot, TAXID) != FREE && slots.getInt(slot, USED) >= oldest) {
+                live++;
+            }
+        }
+        int newCapacity = slots.capacity;
+        while (2 * ((long) live + 1) > newCapacity) {
+            newCapacity *= 2;
+        }
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("ROGID store is full: " + file);
+        }
+        final File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (Slots rewritten = Slots.create(tmp, newCapacity, segmentSlots, live, run)) {
+                final byte[] digest = new byte[DIGEST_LENGTH];
+                for (int slot = 0; slot < slots.capacity; slot++) {
+                    final int taxid = slots.getInt(slot, TAXID);
+                    final int used = slots.getInt(slot, USED);
+                    if (taxid == FREE || used < oldest) {
+                        continue;
+                    }
+                    for (int i = 0; i < DIGEST_LENGTH; i++) {
+                        digest[i] = slots.get(slot, i);
+                    }
+                    final byte[] rogid = new byte[slots.get(slot, LENGTH)];
+                    for (int i = 0; i < rogid.length; i++) {
+                        rogid[i] = slots.get(slot, ROGID + i);
+                    }
+                    rewritten.write(rewritten.find(digest, taxid), digest, taxid, used, rogid);
+                }
+                rewritten.force();
+            }
+            slots.close();
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            slots = Slots.open(file, segmentSlots);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to grow ROGID store " + file, e);
+        }
+        log.debug("ROGID store rewritten with " + newCapacity + " slots, " + (size - live) + " stale ROGIDs dropped");
+        size = live;
+    }
+
+    /**
+     * ROGIDs of all the species' proteins, from the store if they're in it, otherwise calculated
+     * from the sequences (only the missing ones are loaded) and added to the store.
+     *
+     * @param jdbcTemplate
+     * @param speciesId
+     * @return protein id to ROGID
+     */
+    Map<Integer, String> rogids(JdbcTemplate jdbcTemplate, final Integer speciesId) {
+        final Map<Integer, byte[]> digests = new HashMap<>();
+        jdbcTemplate.query(SEQUENCE_DIGESTS_QUERY, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                digests.put(rs.getInt(1), fromHex(rs.getString(2)));
+            }
+        }, speciesId);
+        final Map<Integer, String> rogids = new HashMap<>(digests.size() * 4 / 3 + 1);
+        final List<Integer> missing = find(speciesId, digests, rogids);
+        if (missing.isEmpty()) {
+            return rogids;
+        }
+        //most of them missing (e.g. the first run), a scan of the species is cheaper than looking them up
+        final IntTable<String> sequences = 2 * missing.size() > digests.size()
+                ? ProteinTableQueries.sequences(jdbcTemplate, speciesId) : sequences(jdbcTemplate, missing);
+        calculate(speciesId, missing, digests, sequences, rogids);
+        return rogids;
+    }
+
+    /**
+     * Same as {@link #rogids(JdbcTemplate, Integer)}, for sequences that don't come from the database
+     * (e.g. a snapshot): the digests are calculated here, the same way the database does.
+     *
+     * @param speciesId
+     * @param sequences all of the species'
+     * @return protein id to ROGID
+     */
+    Map<Integer, String> rogids(Integer speciesId, IntTable<String> sequences) {
+        final Map<Integer, byte[]> digests = new HashMap<>(sequences.size() * 4 / 3 + 1);
+        final MessageDigest md5 = ExportManifest.md5();
+        sequences.forEach(new IntTable.Visitor<String>() {
+            @Override
+            public void visit(int proteinId, String sequence) {
+                digests.put(proteinId, md5.digest(sequence.getBytes(UTF8)));
+            }
+        });
+        final Map<Integer, String> rogids = new HashMap<>(digests.size() * 4 / 3 + 1);
+        final List<Integer> missing = find(speciesId, digests, rogids);
+        if (!missing.isEmpty()) {
+            calculate(speciesId, missing, digests, sequences, rogids);
+        }
+        return rogids;
+    }
+
+    /**
+     * @param rogids the ones found in the store are added to it
+     * @return proteins not in the store
+     */
+    private List<Integer> find(Integer speciesId, Map<Integer, byte[]> digests, Map<Integer, String> rogids) {
+        final List<Integer> missing = new ArrayList<>();
+        for (Map.Entry<Integer, byte[]> e : digests.entrySet()) {
+            final String rogid = get(e.getValue(), speciesId);
+            if (rogid != null) {
+                rogids.put(e.getKey(), rogid);
+            } else {
+                missing.add(e.getKey());
+            }
+        }
+        log.info(speciesId + ": " + rogids.size() + " ROGIDs found in the store, " + missing.size() + " to calculate");
+        return missing;
+    }
+
+    /**
+     * calculate the {@code missing} ROGIDs, add them to the store and to {@code rogids}
+     */
+    private void calculate(Integer speciesId, List<Integer> missing, Map<Integer, byte[]> digests,
+                           IntTable<String> sequences, Map<Integer, String> rogids) {
+        final RogidGenerator generator = new RogidGenerator();
+        final String taxid = speciesId.toString();
+        for (Integer proteinId : missing) {
+            try {
+                final String rogid = generator.calculateRogid(sequences.get(proteinId), taxid);
+                if (rogid != null) {
+                    put(digests.get(proteinId), speciesId, rogid);
+                    rogids.put(proteinId, rogid);
+                }
+            } catch (SeguidException | RuntimeException e) {
+                log.error("error calculating checksum for " + proteinId, e);
+            }
+        }
+        force();
+    }
+
+    /**
+     * @return sequences of the given proteins only
+     */
+    private static IntTable<String> sequences(JdbcTemplate jdbcTemplate, List<Integer> proteinIds) {
+        final IntTable.Builder<String> sequences = new IntTable.Builder<>(proteinIds.size());
+        final RowCallbackHandler handler = new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                sequences.put(rs.getInt(1), rs.getString(2));
+            }
+        };
+        for (int from = 0; from < proteinIds.size(); from += IDS_PER_QUERY) {
+            final List<Integer> ids = proteinIds.subList(from, Math.min(from + IDS_PER_QUERY, proteinIds.size()));
+            jdbcTemplate.query(inList(SEQUENCES_QUERY, ids), handler);
+        }
+        return sequences.build();
+    }
+
+    /**
+     * ids are ints, so there's nothing to escape
+     */
+    static String inList(String query, List<Integer> ids) {
+        final StringBuilder sql = new StringBuilder(query).append('(');
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(ids.get(i).intValue());
+        }
+        return sql.append(')').toString();
+    }
+
+    static byte[] fromHex(String hex) {
+        if (hex == null || hex.length() != 2 * DIGEST_LENGTH) {
+            throw new IllegalArgumentException("not an md5 digest: " + hex);
+        }
+        final byte[] bytes = new byte[DIGEST_LENGTH];
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+
+    private static class StoreFormatException extends IOException {
+        StoreFormatException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The mapped file: header and slots, the slots mapped in segments of {@code segmentSlots}
+     * (a slot never spans two of them).
+     */
+    private static final class Slots implements Closeable {
+        final RandomAccessFile raf;
+        final MappedByteBuffer header;
+        final MappedByteBuffer[] segments;
+        final int capacity;
+        private final int segmentShift;
+        private final int segmentMask;
+
+        private Slots(RandomAccessFile raf, int capacity, int segmentSlots) throws IOException {
+            this.raf = raf;
+            this.capacity = capacity;
+            final FileChannel channel = raf.getChannel();
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            final int perSegment = Math.min(segmentSlots, capacity);
+            this.segments = new MappedByteBuffer[capacity / perSegment];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + (long) i * perSegment * SLOT_SIZE, (long) perSegment * SLOT_SIZE);
+            }
+            this.segmentShift = Integer.numberOfTrailingZeros(perSegment);
+            this.segmentMask = perSegment - 1;
+        }
+
+        static Slots create(File file, int capacity, int segmentSlots, int size, int run) throws IOException {
+            final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            //all zeros, i.e. all slots free
+            raf.setLength(HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            raf.writeInt(MAGIC);
+            raf.writeInt(SLOT_SIZE);
+            raf.writeInt(capacity);
+            raf.writeInt(size);
+            raf.writeInt(run);
+            return new Slots(raf, capacity, segmentSlots);
+        }
+
+        static Slots open(File file, int segmentSlots) throws IOException {
+            final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            if (raf.length() < HEADER_SIZE) {
+                raf.close();
+                throw new StoreFormatException("not a ROGID store");
+            }
+            final int magic = raf.readInt();
+            final int slotSize = raf.readInt();
+            final int capacity = raf.readInt();
+            if (magic != MAGIC || slotSize != SLOT_SIZE) {
+                raf.close();
+                throw new StoreFormatException("not a ROGID store of this version");
+            }
+            if (Integer.bitCount(capacity) != 1 || raf.length() != HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+                raf.close();
+                throw new IOException("corrupt ROGID store, capacity: " + capacity);
+            }
+            return new Slots(raf, capacity, segmentSlots);
+        }
+
+        /**
+         * @return slot holding the key, or the free slot where it would go
+         */
+        int find(byte[] digest, int taxid) {
+            int slot = hash(digest, taxid) & (capacity - 1);
+            while (true) {
+                final int slotTaxid = getInt(slot, TAXID);
+                if (slotTaxid == FREE || (slotTaxid == taxid && sameDigest(slot, digest))) {
+                    return slot;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+        }
+
+        private boolean sameDigest(int slot, byte[] digest) {
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                if (get(slot, i) != digest[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void write(int slot, byte[] digest, int taxid, int used, byte[] rogid) {
+            final MappedByteBuffer segment = segments[slot >>> segmentShift];
+            final int pos = (slot & segmentMask) * SLOT_SIZE;
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                segment.put(pos + i, digest[i]);
+            }
+            segment.putInt(pos + USED, used);
+            segment.put(pos + LENGTH, (byte) rogid.length);
+            for (int i = 0; i < rogid.length; i++) {
+                segment.put(pos + ROGID + i, rogid[i]);
+            }
+            segment.putInt(pos + TAXID, taxid);
+        }
+
+        int getInt(int slot, int offset) {
+            return segments[slot >>> segmentShift].getInt((slot & segmentMask) * SLOT_SIZE + offset);
+        }
+
+        void putInt(int slot, int offset, int value) {
+            segments[slot >>> segmentShift].putInt((slot & segmentMask) * SLOT_SIZE + offset, value);
+        }
+
+        byte get(int slot, int offset) {
+            return segments[slot >>> segmentShift].get((slot & segmentMask) * SLOT_SIZE + offset);
+        }
+
+        void force() {
+            header.force();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            raf.close();
+        }
+    }
+}
@@ -52,7 +52,8 @@ public class RowBuilder {
      * @return this {@code MitabRowBuilder} instance
      */
     public RowBuilder withIdA(ProteinExternalId externalId) {
-        return withIdA("string", externalId.toString());
+        row.addField(Mitab25ColumnKeys.KEY_ID_A, idField(externalId));
+        return this;
     }
 
     /**
@@ -62,18 +63,7 @@ public class RowBuilder {
      * @return
      */
     public RowBuilder withIdA(String uniprotkbId) {
-        return withIdA("uniprotkb", uniprotkbId);
-    }
-
-    /**
-     * Add unique identifier for interactor A
-     *
-     * @param database database citation, as defined in MI:0444
-     * @param idA      unique id
-     * @return this {@code MitabRowBuilder} instance
-     */
-    private RowBuilder withIdA(String database, String idA) {
-        row.addField(Mitab25ColumnKeys.KEY_ID_A, defaultField(database, idA.toString()));
+        row.addField(Mitab25ColumnKeys.KEY_ID_A, idField(uniprotkbId));
         return this;
     }
 
@@ -84,7 +74,8 @@ public class RowBuilder {
      * @return this {@code MitabRowBuilder} instance
      */
     public RowBuilder withIdB(ProteinExternalId externalId) {
-        return withIdB("string", externalId.toString());
+        row.addField(Mitab25ColumnKeys.KEY_ID_B, idField(externalId));
+        return this;
     }
 
     /**
@@ -94,18 +85,7 @@ public class RowBuilder {
      * @return
      */
     public RowBuilder withIdB(String uniprotkbId) {
-        return withIdB("uniprotkb", uniprotkbId);
-    }
-
-    /**
-     * Add unique identifier for interactor B
-     *
-     * @param database database citation, as defined in MI:0444
-     * @param idB      unique id
-     * @return this {@code MitabRowBuilder} instance
-     */
-    private RowBuilder withIdB(String database, String idB) {
-        row.addField(Mitab25ColumnKeys.KEY_ID_B, defaultField(database, idB));
+        row.addField(Mitab25ColumnKeys.KEY_ID_B, idField(uniprotkbId));
         return this;
     }
 
@@ -258,7 +238,7 @@ public class RowBuilder {
      * @see <a href='http://www.ncbi.nlm.nih.gov/pubmed/18823568'>iRefIndex</a>
      */
     public RowBuilder withChecksumA(String checksum) {
-        row.addField(Mitab26ColumnKeys.KEY_CHECKSUM_A, defaultField("rogid", checksum));
+        row.addField(Mitab26ColumnKeys.KEY_CHECKSUM_A, checksumField(checksum));
         return this;
     }
 
@@ -270,10 +250,63 @@ public class RowBuilder {
      * @see <a href='http://www.ncbi.nlm.nih.gov/pubmed/18823568'>iRefIndex</a>
      */
     public RowBuilder withChecksumB(String checksum) {
-        row.addField(Mitab26ColumnKeys.KEY_CHECKSUM_B, defaultField("rogid", checksum));
+        row.addField(Mitab26ColumnKeys.KEY_CHECKSUM_B, checksumField(checksum));
         return this;
     }
 
+    /**
+     * Add all fields of another row, the fields themselves are shared, not copied
+     *
+     * @param template
+     * @return this {@code MitabRowBuilder} instance
+     */
+    public RowBuilder withFields(Row template) {
+        for (String key : template.keySet()) {
+            for (Field field : template.getFields(key)) {
+                row.addField(key, field);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Add already built fields, e.g. from a {@link ProteinFieldCache}
+     *
+     * @param key    column key
+     * @param fields
+     * @return this {@code MitabRowBuilder} instance
+     */
+    RowBuilder withFields(String key, Field[] fields) {
+        for (Field field : fields) {
+            row.addField(key, field);
+        }
+        return this;
+    }
+
+    /**
+     * @param externalId
+     * @return field for {@link #withIdA(ProteinExternalId)} and {@link #withIdB(ProteinExternalId)}
+     */
+    static Field idField(ProteinExternalId externalId) {
+        return defaultField("string", externalId.toString());
+    }
+
+    /**
+     * @param uniprotkbId
+     * @return field for {@link #withIdA(String)} and {@link #withIdB(String)}
+     */
+    static Field idField(String uniprotkbId) {
+        return defaultField("uniprotkb", uniprotkbId);
+    }
+
+    /**
+     * @param checksum
+     * @return field for {@link #withChecksumA(String)} and {@link #withChecksumB(String)}
+     */
+    static Field checksumField(String checksum) {
+        return defaultField("rogid", checksum);
+    }
+
     /**
      * Helper method, creates a default with with key/value/text.
      *
@@ -282,7 +315,7 @@ public class RowBuilder {
      * @param text
      * @return
      */
-    private Field defaultField(String key, String value, String text) {
+    static Field defaultField(String key, String value, String text) {
         final Field field = defaultField(key, value);
         field.set(CalimochoKeys.TEXT, text);
         return field;
@@ -298,7 +331,7 @@ public class RowBuilder {
      * @param value
      * @return
      */
-    private Field defaultField(String key, String value) {
+    static Field defaultField(String key, String value) {
         DefaultField field = new DefaultField();
         field.set(CalimochoKeys.KEY, key);
         field.set(CalimochoKeys.DB, key);
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.KeywordAnalyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Version;
+import org.apache.solr.common.SolrInputDocument;
+import org.hupo.psi.calimocho.model.Row;
+import org.string_db.psicquic.AppProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Offline index split into shards, each an {@link EmbeddedSearchServer} with its own index writer, so species
+ * indexed at the same time (see {@code indexing_threads}) don't all queue up for a single one. Every species
+ * goes to one shard, see {@link #balance(Map, int)}; documents are routed by the species they're added with.
+ * <p/>
+ * Once closed, the shards are either merged into one index (in {@code offline_index_dir/index}, so that
+ * directory is a solr data dir) or left in {@code offline_index_dir/shards} to be served as a distributed
+ * shard set, one core per shard.
+ */
+class ShardedSearchServer implements SolrIndex {
+    private static final Logger log = Logger.getLogger(ShardedSearchServer.class);
+    static final String SHARDS_DIR = "shards";
+
+    private final List<EmbeddedSearchServer> shards;
+    private final Map<Integer, Integer> speciesShards;
+    /**
+     * shards the calling thread added to or deleted from since its last commit: their buffers are per thread
+     * (see {@link SolrServerConnection}), so only the thread that added documents can send its leftovers
+     */
+    private final ThreadLocal<Set<Integer>> touched = new ThreadLocal<Set<Integer>>() {
+        @Override
+        protected Set<Integer> initialValue() {
+            return new TreeSet<>();
+        }
+    };
+    /**
+     * null to leave the shards as they are
+     */
+    private final File mergedDir;
+    private final int maxSegments;
+
+    /**
+     * @param shards
+     * @param speciesShards shard of each species, see {@link #balance(Map, int)}
+     * @param mergedDir     where the shards are merged into, null to not merge them
+     * @param maxSegments   no. of segments of the merged index, 0 to not merge the segments
+     */
+    ShardedSearchServer(List<EmbeddedSearchServer> shards, Map<Integer, Integer> speciesShards,
+                        File mergedDir, int maxSegments) {
+        this.shards = shards;
+        this.speciesShards = speciesShards;
+        this.mergedDir = mergedDir;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Open {@code offline_shards} shards in {@code offline_index_dir/shards}, the RAM buffer is split between them.
+     *
+     * @param props
+     * @param expectedInteractions no. of score rows per species, to balance the shards
+     */
+    static ShardedSearchServer open(AppProperties props, Map<Integer, Long> expectedInteractions) {
+        final File indexDir = new File(props.offlineIndexDir);
+        final boolean merge = props.offlineMergeShards;
+        final int count = props.offlineShards;
+        final List<EmbeddedSearchServer> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            //merged shards don't need merging on their own
+            shards.add(EmbeddedSearchServer.open(new File(props.offlineSolrHome), new File(new File(indexDir, SHARDS_DIR), "shard-" + i),
+                    Math.max(1, props.offlineRamBufferMb / count), props.offlineMergeFactor, props.solrBatchSize,
+                    merge ? 0 : props.offlineMaxSegments));
+        }
+        return new ShardedSearchServer(shards, balance(expectedInteractions, count),
+                merge ? new File(indexDir, "index") : null, props.offlineMaxSegments);
+    }
+
+    /**
+     * Spread species over shards so that each gets about the same no. of interactions: largest species first,
+     * each to the shard with the fewest interactions so far. The largest species (human, mouse) thus always
+     * end up on different shards.
+     *
+     * @param expectedInteractions no. of interactions (or anything proportional) per species
+     * @param shards
+     * @return shard of each species, largest species first
+     */
+    static Map<Integer, Integer> balance(final Map<Integer, Long> expectedInteractions, int shards) {
+        final List<Integer> species = new ArrayList<>(expectedInteractions.keySet());
+        Collections.sort(species, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                final int bySize = expectedInteractions.get(b).compareTo(expectedInteractions.get(a));
+                return bySize != 0 ? bySize : a.compareTo(b);
+            }
+        });
+        final long[] loads = new long[shards];
+        final int[] counts = new int[shards];
+        final Map<Integer, Integer> speciesShards = new LinkedHashMap<>();
+        for (Integer spcId : species) {
+            int shard = 0;
+            for (int i = 1; i < shards; i++) {
+                if (loads[i] < loads[shard]) {
+                    shard = i;
+                }
+            }
+            speciesShards.put(spcId, shard);
+            loads[shard] += expectedInteractions.get(spcId);
+            counts[shard]++;
+        }
+        for (int i = 0; i < shards; i++) {
+            log.info("shard " + i + ": " + counts[i] + " species, " + loads[i] + " interactions expected");
+        }
+        return speciesShards;
+    }
+
+    /**
+     * species not balanced up front are hashed, consistently for adds and deletes
+     */
+    int shardOf(Integer speciesId) {
+        final Integer shard = speciesShards.get(speciesId);
+        return shard != null ? shard : Math.abs(speciesId % shards.size());
+    }
+
+    /**
+     * converting doesn't depend on the shard
+     */
+    @Override
+    public List<SolrInputDocument> toSolrDocuments(Collection<Row> rows) throws RuntimeException {
+        return shards.get(0).toSolrDocuments(rows);
+    }
+
+    @Override
+    public void addDocuments(Integer speciesId, Collection<SolrInputDocument> docs) throws RuntimeException {
+        final int shard = shardOf(speciesId);
+        shards.get(shard).addDocuments(speciesId, docs);
+        touched.get().add(shard);
+    }
+
+    /**
+     * Rows come without their species (e.g. the test document), they go to the first shard.
+     */
+    @Override
+    public void add(Row row) throws RuntimeException {
+        shards.get(0).add(row);
+        touched.get().add(0);
+    }
+
+    /**
+     * Rows come without their species, they go to the first shard.
+     */
+    @Override
+    public void addAll(Collection<Row> rows) throws RuntimeException {
+        shards.get(0).addAll(rows);
+        touched.get().add(0);
+    }
+
+    @Override
+    public void discard() {
+        for (EmbeddedSearchServer shard : shards) {
+            shard.discard();
+        }
+        touched.get().clear();
+    }
+
+    /**
+     * documents are added from the calling thread
+     */
+    @Override
+    public AdaptiveSolrSender getSender() {
+        return null;
+    }
+
+    /**
+     * Commits the shards the calling thread touched, whatever other threads did to them meanwhile.
+     */
+    @Override
+    public void commit(boolean reopenSearcher) throws RuntimeException {
+        for (Iterator<Integer> it = touched.get().iterator(); it.hasNext(); ) {
+            shards.get(it.next()).commit(reopenSearcher);
+            it.remove();
+        }
+    }
+
+    @Override
+    public Long countIndexedDocuments() {
+        long count = 0;
+        for (EmbeddedSearchServer shard : shards) {
+            count += shard.countIndexedDocuments();
+        }
+        return count;
+    }
+
+    @Override
+    public void deleteAll() throws RuntimeException {
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).deleteAll();
+            touched.get().add(i);
+        }
+    }
+
+    @Override
+    public void deleteSpecies(Integer speciesId) throws RuntimeException {
+        final int shard = shardOf(speciesId);
+        shards.get(shard).deleteSpecies(speciesId);
+        touched.get().add(shard);
+    }
+
+    /**
+     * Finish all shards (concurrently) and merge them if asked to.
+     */
+    @Override
+    public void close() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+        final List<Future<?>> closed = new ArrayList<>();
+        for (final EmbeddedSearchServer shard : shards) {
+            closed.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    shard.close();
+                    return null;
+                }
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (Future<?> future : closed) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while closing the shards", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("failed to close a shard", e.getCause());
+        }
+        if (mergedDir == null) {
+            log.info(shards.size() + " shards ready in " + shards.get(0).getDataDir().getParentFile() +
+                    ", serve each with its own core and query them with the shards parameter");
+            return;
+        }
+        final List<File> indexDirs = new ArrayList<>();
+        for (EmbeddedSearchServer shard : shards) {
+            indexDirs.add(new File(shard.getDataDir(), "index"));
+        }
+        merge(indexDirs, mergedDir, maxSegments);
+        for (EmbeddedSearchServer shard : shards) {
+            delete(shard.getDataDir().toPath());
+        }
+    }
+
+    /**
+     * Merge lucene indexes (as they are, nothing is analyzed again) into a new one.
+     *
+     * @param indexDirs
+     * @param target      replaced if it exists
+     * @param maxSegments 0 to keep the segments of all indexes
+     */
+    static void merge(List<File> indexDirs, File target, int maxSegments) throws IOException {
+        final long start = System.currentTimeMillis();
+        final Directory[] sources = new Directory[indexDirs.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = FSDirectory.open(indexDirs.get(i));
+        }
+        try (Directory targetDir = FSDirectory.open(target);
+             IndexWriter writer = new IndexWriter(targetDir, new IndexWriterConfig(Version.LUCENE_36, new KeywordAnalyzer())
+                     .setOpenMode(IndexWriterConfig.OpenMode.CREATE))) {
+            writer.addIndexes(sources);
+            if (maxSegments > 0) {
+                writer.forceMerge(maxSegments);
+            }
+            log.info(indexDirs.size() + " shards merged into " + target + " (" + writer.numDocs() + " documents) in " +
+                    ((System.currentTimeMillis() - start) / 1000) + "sec");
+        } finally {
+            for (Directory source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.string_db.DbFacade;
+import org.string_db.ProteinExternalId;
+import org.string_db.ProteinRepository;
+import org.string_db.SpeciesRepository;
+import org.string_db.StringDbScores;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link DbFacade} reading from a directory of {@link SpeciesSnapshot}s instead of the database.
+ * Tables that are not per species (score types, sets collections, UniProt linkouts) are put together
+ * from all the snapshots, once. Every loader is overridden, the database is never connected to:
+ * a loader added to DbFacade and not here fails with a message saying so.
+ */
+class SnapshotDbFacade extends IndexingDbFacade {
+    private static final Logger log = Logger.getLogger(SnapshotDbFacade.class);
+    private final File dir;
+    /**
+     * opened once, a snapshot only holds its section table
+     */
+    private final ConcurrentMap<File, SpeciesSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    SnapshotDbFacade(File dir) {
+        super(unavailable(ProteinRepository.class), unavailable(SpeciesRepository.class), null, null);
+        if (!dir.isDirectory()) {
+            throw new IllegalArgumentException("no snapshots in " + dir);
+        }
+        this.dir = dir;
+    }
+
+    /**
+     * @return repository whose every call fails, there's no database behind the snapshots
+     */
+    private static <T> T unavailable(final Class<T> repository) {
+        return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        throw new UnsupportedOperationException(repository.getSimpleName() + "." + method.getName()
+                                + "() reads the database, species snapshots don't have what it reads");
+                    }
+                }));
+    }
+
+    SpeciesSnapshot snapshot(Integer speciesId) {
+        final File file = SpeciesSnapshot.file(dir, speciesId);
+        if (!file.exists()) {
+            throw new IllegalArgumentException("no snapshot of " + speciesId + " in " + dir);
+        }
+        return open(file);
+    }
+
+    private SpeciesSnapshot open(File file) {
+        SpeciesSnapshot snapshot = snapshots.get(file);
+        if (snapshot == null) {
+            snapshot = SpeciesSnapshot.open(file);
+            final SpeciesSnapshot opened = snapshots.putIfAbsent(file, snapshot);
+            if (opened != null) {
+                snapshot = opened;
+            }
+        }
+        return snapshot;
+    }
+
+    private List<SpeciesSnapshot> snapshots() {
+        final File[] files = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SpeciesSnapshot.SUFFIX);
+            }
+        });
+        Arrays.sort(files);
+        final List<SpeciesSnapshot> snapshots = new ArrayList<>(files.length);
+        for (File file : files) {
+            snapshots.add(open(file));
+        }
+        return snapshots;
+    }
+
+    /**
+     * @return the species' scores, as they were in the database when the snapshot was taken,
+     * {@code method} and {@code partitions} don't apply
+     */
+    @Override
+    DataReader<StringDbScores> scores(Integer speciesId, String method, int partitions) {
+        return snapshot(speciesId).scores();
+    }
+
+    /**
+     * @return null if the snapshot has sequences instead of ROGIDs
+     */
+    @Override
+    Map<Integer, String> loadRogids(Integer speciesId) {
+        final SpeciesSnapshot snapshot = snapshot(speciesId);
+        return snapshot.has(SpeciesSnapshot.ROGIDS) ? snapshot.intStrings(SpeciesSnapshot.ROGIDS) : null;
+    }
+
+    /**
+     * @return fingerprint of the species' data in the database the snapshot was taken from
+     */
+    @Override
+    String loadFingerprint(Integer speciesId) {
+        return snapshot(speciesId).strings(SpeciesSnapshot.FINGERPRINT).get(0);
+    }
+
+    /**
+     * @return size of the species' external ids table, one entry per protein
+     */
+    @Override
+    Long loadProteinCount(Integer speciesId) {
+        return (long) snapshot(speciesId).count(SpeciesSnapshot.EXTERNAL_IDS);
+    }
+
+    /**
+     * @return no. of strings in the species' proteins sets and RefSeq ids tables
+     */
+    @Override
+    Long loadSetEntryCount(Integer speciesId) {
+        final SpeciesSnapshot snapshot = snapshot(speciesId);
+        return snapshot.setEntries(SpeciesSnapshot.PROTEINS_SETS) + snapshot.setEntries(SpeciesSnapshot.REFSEQ_IDS);
+    }
+
+    @Override
+    public List<Integer> loadCoreSpecies() {
+        final List<Integer> species = new ArrayList<>();
+        for (SpeciesSnapshot snapshot : snapshots()) {
+            if (snapshot.isCore()) {
+                species.add(snapshot.getSpeciesId());
+            }
+        }
+        return species;
+    }
+
+    @Override
+    public List<Integer> loadSpeciesIds() {
+        final List<Integer> species = new ArrayList<>();
+        for (SpeciesSnapshot snapshot : snapshots()) {
+            species.add(snapshot.getSpeciesId());
+        }
+        return species;
+    }
+
+    @Override
+    public Map<Integer, Set<String>> loadProteinsSets(Integer spcId) {
+        return snapshot(spcId).intStringSets(SpeciesSnapshot.PROTEINS_SETS);
+    }
+
+    /**
+     * union of all snapshots', read once per run by {@link ReferenceData}
+     */
+    @Override
+    public Map<Integer, String> loadScoreTypes() {
+        final Map<Integer, String> scoreTypes = new LinkedHashMap<>();
+        for (SpeciesSnapshot snapshot : snapshots()) {
+            scoreTypes.putAll(snapshot.intStrings(SpeciesSnapshot.SCORE_TYPES));
+        }
+        return scoreTypes;
+    }
+
+    /**
+     * union of all snapshots', read once per run by {@link ReferenceData}
+     */
+    @Override
+    public Map<String, String> loadSetsCollections() {
+        final Map<String, String> setsCollections = new HashMap<>();
+        for (SpeciesSnapshot snapshot : snapshots()) {
+            setsCollections.putAll(snapshot.stringStrings(SpeciesSnapshot.SETS_COLLECTIONS));
+        }
+        log.info(setsCollections.size() + " sets collections read from snapshots");
+        return setsCollections;
+    }
+
+    @Override
+    public Map<Integer, Set<String>> loadRefseqIds(Integer spcId) {
+        return snapshot(spcId).intStringSets(SpeciesSnapshot.REFSEQ_IDS);
+    }
+
+    @Override
+    public Map<Integer, ProteinExternalId> loadProteinExternalIds(Integer spcId) {
+        return snapshot(spcId).externalIds();
+    }
+
+    @Override
+    public Map<Integer, String> loadProteinNames(Integer spcId) {
+        return snapshot(spcId).intStrings(SpeciesSnapshot.PREFERRED_NAMES);
+    }
+
+    /**
+     * @return empty if the snapshot has ROGIDs instead, see {@link #loadRogids(Integer)}
+     */
+    @Override
+    public Map<Integer, String> loadProteinSequences(Integer spcId) {
+        final SpeciesSnapshot snapshot = snapshot(spcId);
+        return snapshot.has(SpeciesSnapshot.SEQUENCES)
+                ? snapshot.intStrings(SpeciesSnapshot.SEQUENCES) : new HashMap<Integer, String>();
+    }
+
+    @Override
+    public String loadSpeciesName(Integer speciesId) {
+        return snapshot(speciesId).strings(SpeciesSnapshot.SPECIES_NAMES).get(0);
+    }
+
+    @Override
+    public Collection<String> loadSpeciesNames(Integer speciesId) {
+        return snapshot(speciesId).strings(SpeciesSnapshot.SPECIES_NAMES);
+    }
+
+    @Override
+    public Map<Integer, Set<String>> loadUniProtLinkouts() {
+        final Map<Integer, Set<String>> linkouts = new HashMap<>();
+        for (SpeciesSnapshot snapshot : snapshots()) {
+            linkouts.putAll(snapshot.intStringSets(SpeciesSnapshot.UNIPROT_LINKOUTS));
+        }
+        log.info(linkouts.size() + " UniProt records read from snapshots");
+        return linkouts;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.string_db.psicquic.index;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.hupo.psi.calimocho.model.Row;
+import org.string_db.psicquic.SearchServer;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link SearchServer} that also takes interactions already converted to solr documents, so converting
+ * and sending can be done (and timed) apart, see {@link IndexingPipeline}. Converted documents are added
+ * with the species they belong to, so an index split by species can route them without looking into them.
+ */
+interface SolrIndex extends SearchServer, Closeable {
+    /**
+     * @param rows
+     * @return one document per row, not added yet
+     * @throws RuntimeException
+     */
+    List<SolrInputDocument> toSolrDocuments(Collection<Row> rows) throws RuntimeException;
+
+    /**
+     * Add already converted interactions; might not be visible for search before {@link #commit(boolean)} is called.
+     *
+     * @param speciesId species of all the documents
+     * @param docs
+     * @throws RuntimeException
+     */
+    void addDocuments(Integer speciesId, Collection<SolrInputDocument> docs) throws RuntimeException;
+
+    /**
+     * Drop the documents the calling thread added but didn't commit, and stop waiting for their batches,
+     * e.g. once its species failed. Documents already sent stay until they're deleted.
+     */
+    void discard();
+
+    /**
+     * @return null if documents are sent from the calling thread
+     */
+    AdaptiveSolrSender getSender();
+}
@@ -21,40 +21,194 @@ package org.string_db.psicquic.index;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.client.solrj.impl.ConcurrentUpdateSolrServer;
+import org.apache.solr.client.solrj.impl.HttpSolrServer;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
 import org.hupo.psi.calimocho.model.Row;
-import org.string_db.psicquic.SearchServer;
 import psidev.psi.mi.calimocho.solr.converter.Converter;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Future;
+
 /**
+ * Added documents are buffered and sent {@link #batchSize} at a time, in a single update request,
+ * by an {@link AdaptiveSolrSender}. {@link #commit(boolean)} sends whatever is left in the buffer
+ * and waits for the batches to get to solr first.
+ * <p/>
+ * A species is added, and committed, by the thread indexing it, so every thread gets its own buffer:
+ * batches don't mix species, and a flush only waits for the batches its own thread sent before it.
+ * A failed batch fails the species it belongs to (its next add or its commit), not the whole run.
+ *
  * @author Milan Simonovic <milan.simonovic@imls.uzh.ch>
  */
-class SolrServerConnection implements SearchServer {
-    /**
-     * max no. of indexing requests to buffer. Once the queue is full, it will block.
-     */
-    static final int REQUEST_QUEUE_SIZE = 1000;
+class SolrServerConnection implements SolrIndex {
+    static final int DEFAULT_BATCH_SIZE = 1000;
 
     protected final SolrServer solrServer;
-    protected final Converter solrDocsConverter = new Converter();
+    /**
+     * null to send batches from the calling thread
+     */
+    protected final AdaptiveSolrSender sender;
+    /**
+     * no. of documents to send in one update request
+     */
+    protected final int batchSize;
+    private final ThreadLocal<Pending> pending = new ThreadLocal<Pending>() {
+        @Override
+        protected Pending initialValue() {
+            return new Pending(batchSize);
+        }
+    };
+    /**
+     * rows can be added from many threads (one per species) so don't share the converter
+     */
+    protected final ThreadLocal<Converter> solrDocsConverter = new ThreadLocal<Converter>() {
+        @Override
+        protected Converter initialValue() {
+            return new Converter();
+        }
+    };
 
     SolrServerConnection(String solrUrl) {
+        this(solrUrl, DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param solrUrl
+     * @param batchSize        no. of documents per update request
+     * @param maxSenderThreads upper limit for the {@link AdaptiveSolrSender}
+     */
+    SolrServerConnection(String solrUrl, int batchSize, int maxSenderThreads) {
         if (solrUrl == null) {
             throw new NullPointerException("No 'solr url' configured for SolrItemWriter");
         }
-        this.solrServer = openConnection(solrUrl);
+        this.solrServer = openConnection(solrUrl, maxSenderThreads + 1);
+        this.sender = new AdaptiveSolrSender(solrServer, maxSenderThreads);
+        this.batchSize = batchSize;
+    }
+
+    SolrServerConnection(SolrServer solrServer, int batchSize) {
+        this(solrServer, batchSize, null);
+    }
+
+    /**
+     * @param sender null to send batches from the calling thread
+     */
+    SolrServerConnection(SolrServer solrServer, int batchSize, AdaptiveSolrSender sender) {
+        this.solrServer = solrServer;
+        this.sender = sender;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public AdaptiveSolrSender getSender() {
+        return sender;
     }
 
     @Override
     public void add(Row row) throws RuntimeException {
+        add(toSolrDocument(row));
+    }
+
+    @Override
+    public void addAll(Collection<Row> rows) throws RuntimeException {
+        addDocuments(toSolrDocuments(rows));
+    }
+
+    @Override
+    public List<SolrInputDocument> toSolrDocuments(Collection<Row> rows) throws RuntimeException {
+        final List<SolrInputDocument> docs = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            docs.add(toSolrDocument(row));
+        }
+        return docs;
+    }
+
+    /**
+     * Add an already converted interaction, see {@link IndexingPipeline}.
+     *
+     * @param doc
+     * @throws RuntimeException
+     */
+    void add(SolrInputDocument doc) throws RuntimeException {
+        final Pending pending = this.pending.get();
+        pending.buffer.add(doc);
+        if (pending.buffer.size() >= batchSize) {
+            send(pending, pending.drain());
+        }
+    }
+
+    /**
+     * all species go to the same index
+     */
+    @Override
+    public void addDocuments(Integer speciesId, Collection<SolrInputDocument> docs) throws RuntimeException {
+        addDocuments(docs);
+    }
+
+    /**
+     * Add already converted interactions, see {@link IndexingPipeline}.
+     *
+     * @param docs
+     * @throws RuntimeException
+     */
+    void addDocuments(Collection<SolrInputDocument> docs) throws RuntimeException {
+        final Pending pending = this.pending.get();
+        for (SolrInputDocument doc : docs) {
+            pending.buffer.add(doc);
+            if (pending.buffer.size() >= batchSize) {
+                send(pending, pending.drain());
+            }
+        }
+    }
+
+    /**
+     * Send the documents buffered by the calling thread and wait for all the batches it sent so far,
+     * batches of other threads (species) aren't waited for.
+     *
+     * @throws RuntimeException if any of the batches failed
+     */
+    void flush() throws RuntimeException {
+        final Pending pending = this.pending.get();
+        if (!pending.buffer.isEmpty()) {
+            send(pending, pending.drain());
+        }
+        final List<Future<?>> tickets = new ArrayList<>(pending.tickets);
+        pending.tickets.clear();
+        AdaptiveSolrSender.await(tickets);
+    }
+
+    @Override
+    public void discard() {
+        final Pending pending = this.pending.get();
+        pending.buffer.clear();
+        pending.tickets.clear();
+    }
+
+    private void send(Pending pending, Collection<SolrInputDocument> docs) throws RuntimeException {
+        if (sender != null) {
+            //batches already sent are done with, a failed one fails the species right away
+            final List<Future<?>> done = new ArrayList<>();
+            for (Iterator<Future<?>> it = pending.tickets.iterator(); it.hasNext(); ) {
+                final Future<?> ticket = it.next();
+                if (ticket.isDone()) {
+                    done.add(ticket);
+                    it.remove();
+                }
+            }
+            AdaptiveSolrSender.await(done);
+            pending.tickets.add(sender.send(docs));
+            return;
+        }
         final UpdateResponse response;
         try {
-            SolrInputDocument doc = solrDocsConverter.toSolrDocument(row);
-            response = solrServer.add(doc);
+            response = solrServer.add(docs);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -63,8 +217,17 @@ class SolrServerConnection implements SearchServer {
         }
     }
 
+    private SolrInputDocument toSolrDocument(Row row) throws RuntimeException {
+        try {
+            return solrDocsConverter.get().toSolrDocument(row);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void commit(boolean reopenSearcher) throws RuntimeException {
+        flush();
         final UpdateResponse response;
         try {
             response = solrServer.commit(true, reopenSearcher);
@@ -88,6 +251,8 @@ class SolrServerConnection implements SearchServer {
 
     @Override
     public void deleteAll() throws RuntimeException {
+        //documents added before this call have to go too
+        flush();
         final UpdateResponse response;
         try {
             response = solrServer.deleteByQuery("*:*");
@@ -99,13 +264,41 @@ class SolrServerConnection implements SearchServer {
         }
     }
 
-    private SolrServer openConnection(String solrUrl) {
+    @Override
+    public void deleteSpecies(Integer speciesId) throws RuntimeException {
+        flush();
+        final UpdateResponse response;
+        try {
+            //both interactors are always from the same species
+            response = solrServer.deleteByQuery("taxidA:" + speciesId);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        if (0 != response.getStatus()) {
+            throw new RuntimeException("operation failed: " + response);
+        }
+    }
+
+    /**
+     * Stop the sender's threads and release the connection, documents not committed are lost.
+     */
+    @Override
+    public void close() throws IOException {
+        if (sender != null) {
+            sender.shutdown();
+        }
+        solrServer.shutdown();
+    }
+
+    private SolrServer openConnection(String solrUrl, int maxConnections) {
         final SolrServer server;
         try {
-//            server = new HttpSolrServer(solrUrl);
-            // to enable authentication, i have to create and setup the HttpClient and give it to the ConcurrentUpdateSolrServer
-            server = new ConcurrentUpdateSolrServer(solrUrl, REQUEST_QUEUE_SIZE,
-                    2/*Runtime.getRuntime().availableProcessors()*/);
+            // to enable authentication, i have to create and setup the HttpClient and give it to the HttpSolrServer
+            // updates are sent concurrently by the AdaptiveSolrSender, one connection per thread
+            final HttpSolrServer httpServer = new HttpSolrServer(solrUrl);
+            httpServer.setDefaultMaxConnectionsPerHost(maxConnections);
+            httpServer.setMaxTotalConnections(maxConnections);
+            server = httpServer;
         } catch (Exception e) {
             throw new ExceptionInInitializerError(e);
         }
@@ -120,4 +313,24 @@ class SolrServerConnection implements SearchServer {
         }
         return server;
     }
+
+    /**
+     * documents a thread added but didn't send yet, and the tickets of the batches it sent
+     */
+    private static final class Pending {
+        private final int batchSize;
+        private List<SolrInputDocument> buffer;
+        private final List<Future<?>> tickets = new ArrayList<>();
+
+        Pending(int batchSize) {
+            this.batchSize = batchSize;
+            this.buffer = new ArrayList<>(batchSize);
+        }
+
+        List<SolrInputDocument> drain() {
+            final List<SolrInputDocument> batch = buffer;
+            buffer = new ArrayList<>(batchSize);
+            return batch;
+        }
+    }
 }
@@ -21,6 +21,8 @@ package org.string_db.psicquic.index;
 import org.apache.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * For a pair of proteins, locate all shared {@code evidence.sets},
@@ -108,38 +110,119 @@ class SourceDbLookup {
 
 
     /**
-     * evidence.sets_items table
+     * distinct values of {@link #collections}, a collection's bit in a mask is its index here
      */
-    final Map<Integer, Set<String>> proteinsSets;
+    private static final List<Pair<String, String>> sourceDbs = new ArrayList<>(new LinkedHashSet<>(collections.values()));
+
+    static {
+        if (sourceDbs.size() > Long.SIZE) {
+            throw new ExceptionInInitializerError("too many source databases for a long mask: " + sourceDbs.size());
+        }
+    }
+
+    /**
+     * per protein, codes of its {@code evidence.sets_items}, sorted
+     */
+    private final IntTable<int[]> proteinsSets;
     /**
-     * evidence.sets table
+     * set code to the index of its collection's source db, -1 if it's not mapped
      */
-    final Map<String, String> setsCollections;
+    private final int[] setsSourceDbs;
+    /**
+     * results are immutable, so the same instance is returned for all pairs sharing the same source dbs
+     */
+    private final ConcurrentMap<Long, Set<Pair<String, String>>> results = new ConcurrentHashMap<>();
 
+    /**
+     * @param proteinsSets    evidence.sets_items table
+     * @param setsCollections evidence.sets table
+     */
     SourceDbLookup(Map<Integer, Set<String>> proteinsSets, Map<String, String> setsCollections) {
-        this.proteinsSets = proteinsSets;
-        this.setsCollections = setsCollections;
+        //only sets of this species' proteins get a code
+        final Map<String, Integer> setCodes = new HashMap<>();
+        final Map<Integer, int[]> encoded = new HashMap<>();
+        for (Map.Entry<Integer, Set<String>> e : proteinsSets.entrySet()) {
+            final int[] codes = new int[e.getValue().size()];
+            int i = 0;
+            for (String set : e.getValue()) {
+                Integer code = setCodes.get(set);
+                if (code == null) {
+                    code = setCodes.size();
+                    setCodes.put(set, code);
+                }
+                codes[i++] = code;
+            }
+            Arrays.sort(codes);
+            encoded.put(e.getKey(), codes);
+        }
+        this.proteinsSets = IntTable.copyOf(encoded);
+        this.setsSourceDbs = new int[setCodes.size()];
+        final Set<String> notFound = new HashSet<>();
+        for (Map.Entry<String, Integer> e : setCodes.entrySet()) {
+            final String collection = setsCollections.get(e.getKey());
+            final Pair<String, String> sourceDb = collections.get(collection);
+            if (sourceDb == null) {
+                notFound.add(collection);
+            }
+            setsSourceDbs[e.getValue()] = sourceDb == null ? -1 : sourceDbs.indexOf(sourceDb);
+        }
+        if (!notFound.isEmpty()) {
+            log.error("collections not found: " + notFound);
+        }
     }
 
 
     Set<Pair<String, String>> getSourceDbs(Integer proteinA, Integer proteinB) {
-        if (!proteinsSets.containsKey(proteinA) || !proteinsSets.containsKey(proteinB)) {
+        final int[] setsA = proteinsSets.get(proteinA);
+        final int[] setsB = proteinsSets.get(proteinB);
+        if (setsA == null || setsB == null) {
             log.warn("no set for: " + proteinA + " " + proteinB);
             return Collections.emptySet();
         }
-        Set<Pair<String, String>> results = new HashSet<Pair<String, String>>();
-        //find overlap
-        final Set<String> setB = proteinsSets.get(proteinB);
-        for (String set : proteinsSets.get(proteinA)) {
-            if (setB.contains(set)) {
-                final String collection = setsCollections.get(set);
-                if (!collections.containsKey(collection)) {
-                    log.error(collection + " not found! proteins: " + proteinA + "-" + proteinB);
-                } else {
-                    results.add(collections.get(collection));
+        return sourceDbs(sharedSourceDbs(setsA, setsB));
+    }
+
+    /**
+     * find overlap of two sorted arrays of set codes
+     *
+     * @return mask of the shared sets' source dbs
+     */
+    private long sharedSourceDbs(int[] setsA, int[] setsB) {
+        long mask = 0;
+        int a = 0;
+        int b = 0;
+        while (a < setsA.length && b < setsB.length) {
+            if (setsA[a] < setsB[b]) {
+                a++;
+            } else if (setsA[a] > setsB[b]) {
+                b++;
+            } else {
+                final int sourceDb = setsSourceDbs[setsA[a]];
+                if (sourceDb >= 0) {
+                    mask |= 1L << sourceDb;
+                }
+                a++;
+                b++;
+            }
+        }
+        return mask;
+    }
+
+    private Set<Pair<String, String>> sourceDbs(long mask) {
+        if (mask == 0) {
+            return Collections.emptySet();
+        }
+        Set<Pair<String, String>> result = results.get(mask);
+        if (result == null) {
+            final Set<Pair<String, String>> set = new HashSet<>();
+            for (int i = 0; i < sourceDbs.size(); i++) {
+                if ((mask & (1L << i)) != 0) {
+                    set.add(sourceDbs.get(i));
                 }
             }
+            result = Collections.unmodifiableSet(set);
+            results.putIfAbsent(mask, result);
         }
-        return results;
+        return result;
     }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Cheap per species fingerprints of the data that goes into the index, stored in a file next to the index,
+ * one species per line:
+ * <pre>
+ * 9606	links=5876:-123412341234|proteins=19566:6d2c1a0f9e3b4a77
+ * </pre>
+ * If a species' fingerprint didn't change since it was indexed there's no need to index it again.
+ * <p/>
+ * Both parts are computed by the database, so nothing is transferred: the links part is the row count and
+ * sum of row hashes over {@code node_id_a, node_id_b, evidence_scores}, the proteins part the protein count
+ * and sums of row hashes over every per species table the documents are built from (see
+ * {@link #PROTEINS_FINGERPRINT_QUERY}). Only kept with {@code index_fingerprints_file} set, delta indexing
+ * needs them.
+ */
+class SpeciesFingerprints {
+    private static final Logger log = Logger.getLogger(SpeciesFingerprints.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String LINKS_PART = "links=";
+    private static final String PROTEINS_PART = "proteins=";
+    /**
+     * same rows {@link StringDbScoresDataReader} reads
+     */
+    private static final String LINKS = " FROM  network.node_node_links  "
+            + "  WHERE combined_score >= " + StringDbScoresDataReader.MIN_SCORE
+            + "    AND node_id_a < node_id_b "
+            + "    AND node_type_b = ?";
+    static final String LINKS_FINGERPRINT_QUERY = "SELECT count(*) || ':' || "
+            + " coalesce(sum(hashtext(node_id_a || ',' || node_id_b || ',' || evidence_scores::text)::bigint), 0)"
+            + LINKS;
+    static final String LINKS_COUNT_QUERY = "SELECT count(*)" + LINKS;
+    /**
+     * stops counting at the limit, the second parameter
+     */
+    static final String LINKS_COUNT_UP_TO_QUERY = "SELECT count(*) FROM (SELECT 1" + LINKS + " LIMIT ?) t";
+    /**
+     * no. of proteins, then one order independent hash per table: external ids and preferred names, RefSeq ids,
+     * sequences (their md5, as {@link RogidStore} takes them), UniProt ids, sets with their collections and
+     * species names
+     */
+    static final String PROTEINS_FINGERPRINT_QUERY = "SELECT "
+            + " (SELECT count(*) FROM items.proteins WHERE species_id = ?), "
+            + " (SELECT " + sumOfHashes("protein_id || ',' || protein_external_id || ',' || coalesce(preferred_name, '')")
+            + "    FROM items.proteins WHERE species_id = ?), "
+            + " (SELECT " + sumOfHashes("n.protein_id || ',' || n.protein_name")
+            + "    FROM items.proteins_names n JOIN items.proteins p ON p.protein_id = n.protein_id "
+            + "   WHERE p.species_id = ? AND n.source IN ('Ensembl_RefSeq', 'Ensembl_HGNC_RefSeq_IDs', 'RefSeq')), "
+            + " (SELECT " + sumOfHashes("p.protein_id || ',' || md5(s.sequence)")
+            + "    FROM items.proteins p JOIN items.proteins_sequences s ON s.protein_id = p.protein_id "
+            + "   WHERE p.species_id = ?), "
+            + " (SELECT " + sumOfHashes("l.protein_id || ',' || l.linkout_url")
+            + "    FROM items.proteins_linkouts l JOIN items.proteins p ON p.protein_id = l.protein_id "
+            + "   WHERE p.species_id = ? AND l.linkout_type = 'UniProt'), "
+            + " (SELECT " + sumOfHashes("i.item_id || ',' || i.set_id || ',' || coalesce(s.collection_id, '')")
+            + "    FROM evidence.sets_items i LEFT JOIN evidence.sets s ON s.set_id = i.set_id "
+            + "   WHERE i.item_id > 0 AND i.species_id = ?), "
+            + " (SELECT " + sumOfHashes("official_name || ',' || species_name")
+            + "    FROM items.species_names WHERE species_id = ?)";
+    /**
+     * the species id is given to each of the sub-queries
+     */
+    static final int PROTEINS_FINGERPRINT_PARAMETERS = 7;
+
+    private final File file;
+    private final Map<Integer, String> fingerprints = new TreeMap<>();
+
+    SpeciesFingerprints(File file) {
+        this.file = file;
+        if (file.exists()) {
+            load();
+            log.info(fingerprints.size() + " species fingerprints read from " + file);
+        }
+    }
+
+    private void load() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] record = line.trim().split("\t");
+                if (record.length != 2) {
+                    log.warn("ignoring fingerprint record: " + line);
+                    continue;
+                }
+                try {
+                    fingerprints.put(Integer.valueOf(record[0]), record[1]);
+                } catch (NumberFormatException e) {
+                    log.warn("ignoring fingerprint record: " + line);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("failed to read fingerprints " + file, e);
+        }
+    }
+
+    /**
+     * @return fingerprint of the indexed species or null if it's not in the index
+     */
+    synchronized String get(Integer speciesId) {
+        return fingerprints.get(speciesId);
+    }
+
+    synchronized Set<Integer> getSpecies() {
+        return new TreeSet<>(fingerprints.keySet());
+    }
+
+    /**
+     * Call only once the species' documents are committed.
+     */
+    synchronized void put(Integer speciesId, String fingerprint) {
+        fingerprints.put(speciesId, fingerprint);
+        save();
+    }
+
+    synchronized void remove(Integer speciesId) {
+        if (fingerprints.remove(speciesId) != null) {
+            save();
+        }
+    }
+
+    /**
+     * forget all species, e.g. when the whole index is rebuilt
+     */
+    synchronized void clear() {
+        fingerprints.clear();
+        save();
+    }
+
+    /**
+     * write to a temp file and rename it, so the file is never left half written
+     */
+    private void save() {
+        final File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF8));
+                for (Map.Entry<Integer, String> e : fingerprints.entrySet()) {
+                    writer.write(e.getKey() + "\t" + e.getValue() + "\n");
+                }
+                writer.flush();
+                out.getFD().sync();
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to write fingerprints " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+
+    /**
+     * @return no. of score rows of the species (pairs of proteins), from the snapshot's fingerprint
+     * or counted by the database
+     */
+    static long linkCount(IndexingDbFacade db, Integer speciesId) {
+        final String recorded = db.loadFingerprint(speciesId);
+        if (recorded != null) {
+            return linkCount(recorded);
+        }
+        return db.getJdbcTemplate().queryForObject(LINKS_COUNT_QUERY, Long.class, speciesId);
+    }
+
+    /**
+     * @param max no. of rows the count stops at, the database doesn't go through all of a large species
+     * @return no. of score rows of the species, up to {@code max}
+     */
+    static long linkCount(IndexingDbFacade db, Integer speciesId, long max) {
+        final String recorded = db.loadFingerprint(speciesId);
+        if (recorded != null) {
+            return Math.min(linkCount(recorded), max);
+        }
+        return db.getJdbcTemplate().queryForObject(LINKS_COUNT_UP_TO_QUERY, Long.class, speciesId, max);
+    }
+
+    /**
+     * @return the row count of the links part of a fingerprint
+     */
+    static long linkCount(String fingerprint) {
+        return count(fingerprint, LINKS_PART);
+    }
+
+    private static long count(String fingerprint, String part) {
+        final int start = fingerprint.indexOf(part);
+        final int end = fingerprint.indexOf(':', start);
+        if (start < 0 || end < 0) {
+            throw new IllegalArgumentException("no " + part + " count in fingerprint: " + fingerprint);
+        }
+        return Long.parseLong(fingerprint.substring(start + part.length(), end));
+    }
+
+    /**
+     * @return fingerprint of the species' links, recorded when the snapshot was taken (so it matches the one
+     * of an index built from the database), or computed by the database
+     */
+    static String links(IndexingDbFacade db, Integer speciesId) {
+        final String recorded = db.loadFingerprint(speciesId);
+        if (recorded != null) {
+            final int end = recorded.indexOf('|');
+            return end < 0 ? recorded : recorded.substring(0, end);
+        }
+        return LINKS_PART + db.getJdbcTemplate().queryForObject(LINKS_FINGERPRINT_QUERY, String.class, speciesId);
+    }
+
+    /**
+     * @return fingerprint of the species' tables the documents are built from, hashed by the database
+     */
+    static String proteins(JdbcTemplate jdbcTemplate, Integer speciesId) {
+        final Object[] args = new Object[PROTEINS_FINGERPRINT_PARAMETERS];
+        Arrays.fill(args, speciesId);
+        return jdbcTemplate.queryForObject(PROTEINS_FINGERPRINT_QUERY, new RowMapper<String>() {
+            @Override
+            public String mapRow(ResultSet rs, int rowNum) throws SQLException {
+                final long[] tableHashes = new long[PROTEINS_FINGERPRINT_PARAMETERS - 1];
+                for (int i = 0; i < tableHashes.length; i++) {
+                    tableHashes[i] = rs.getLong(i + 2);
+                }
+                return proteins(rs.getLong(1), tableHashes);
+            }
+        }, args);
+    }
+
+    /**
+     * @param proteins    no. of proteins
+     * @param tableHashes one per table, always in the same order
+     * @return proteins part of a fingerprint
+     */
+    static String proteins(long proteins, long... tableHashes) {
+        long hash = 0;
+        for (int i = 0; i < tableHashes.length; i++) {
+            //mixing in the table no. so that moving a value from one table to another shows up
+            hash = hash * 31 + tableHashes[i] + i;
+        }
+        return PROTEINS_PART + proteins + ":" + Long.toHexString(hash);
+    }
+
+    private static String sumOfHashes(String row) {
+        return "coalesce(sum(hashtext(" + row + ")::bigint), 0)";
+    }
+
+    /**
+     * Cheap enough to be taken before any of the species' tables are loaded, so species that didn't change
+     * are skipped right away.
+     *
+     * @return the species' fingerprint, recorded when the snapshot was taken or computed by the database
+     */
+    static String of(IndexingDbFacade db, Integer speciesId) {
+        final String recorded = db.loadFingerprint(speciesId);
+        if (recorded != null) {
+            return recorded;
+        }
+        return links(db, speciesId) + "|" + proteins(db.getJdbcTemplate(), speciesId);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs species concurrently within a {@link HeapBudget}: the largest species first (those above half the
+ * budget one at a time, alone), then the smaller ones packed together, as many as fit next to each other
+ * and there are threads for.
+ * <p/>
+ * Species are started in order by the calling thread, each once its estimated footprint fits, so a big
+ * species isn't overtaken by small ones and the threads are never all stuck waiting for memory. A species'
+ * reservation is released as soon as it finishes; its lookup tables are garbage by then.
+ */
+class SpeciesScheduler {
+    private static final Logger log = Logger.getLogger(SpeciesScheduler.class);
+    /**
+     * scores reader, db connection, batches on their way to solr
+     */
+    static final long BYTES_PER_SPECIES = 16L << 20;
+    /**
+     * tables with an entry per protein: external id, preferred name, UniProt id, sequence and ROGID, and its
+     * cached fields
+     */
+    static final long BYTES_PER_PROTEIN = 3L << 10;
+    /**
+     * an entry of the tables with a set of strings per protein (set memberships, RefSeq ids): the string
+     * read from the database and its node in the set. Set memberships are most of a large species' tables,
+     * up to hundreds per protein.
+     */
+    static final long BYTES_PER_SET_ENTRY = 128;
+    /**
+     * a pair's rows and documents, while they're queued up between the stages
+     */
+    static final long BYTES_PER_ROW = 2L << 10;
+    /**
+     * the queues between stages are bounded, so rows only add up to this many
+     */
+    static final long MAX_ROWS_IN_FLIGHT = 200 * IndexingPipeline.CHUNK_SIZE;
+    static final String PROTEINS_COUNT_QUERY = "SELECT species_id, count(*) FROM items.proteins GROUP BY species_id";
+    /**
+     * same rows the proteins sets and RefSeq ids are loaded from
+     */
+    static final String SET_ENTRIES_COUNT_QUERY = "SELECT species_id, sum(entries) FROM ("
+            + " SELECT species_id, count(*) AS entries FROM evidence.sets_items "
+            + "  WHERE item_id > 0 GROUP BY species_id "
+            + " UNION ALL "
+            + " SELECT p.species_id, count(*) FROM items.proteins_names n JOIN items.proteins p ON p.protein_id = n.protein_id "
+            + "  WHERE n.source IN ('Ensembl_RefSeq', 'Ensembl_HGNC_RefSeq_IDs', 'RefSeq') GROUP BY p.species_id "
+            + ") t GROUP BY species_id";
+
+    interface SpeciesTask<T> {
+        T run(Integer speciesId) throws Exception;
+    }
+
+    private final HeapBudget budget;
+    private final int threads;
+
+    /**
+     * @param budget
+     * @param threads max no. of species running at the same time
+     */
+    SpeciesScheduler(HeapBudget budget, int threads) {
+        this.budget = budget;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param rows       no. of scores rows (protein pairs)
+     * @param proteins   no. of proteins
+     * @param setEntries no. of set memberships and RefSeq ids of the proteins
+     * @return rough estimate of the heap a species takes while it's indexed or exported
+     */
+    static long footprint(long rows, long proteins, long setEntries) {
+        return BYTES_PER_SPECIES + proteins * BYTES_PER_PROTEIN + setEntries * BYTES_PER_SET_ENTRY
+                + Math.min(rows, MAX_ROWS_IN_FLIGHT) * BYTES_PER_ROW;
+    }
+
+    /**
+     * Footprints from the link, protein and set entry counts recorded in snapshots, or from the database: proteins
+     * and set entries counted for all species in one go, rows taken from {@code known} fingerprints (of the last run) where there is one,
+     * otherwise counted up to {@link #MAX_ROWS_IN_FLIGHT}, the footprint doesn't grow past it.
+     *
+     * @param known null if there are no fingerprints
+     */
+    static Map<Integer, Long> estimateFootprints(IndexingDbFacade db, Collection<Integer> speciesIds,
+                                                  SpeciesFingerprints known) {
+        final long start = System.currentTimeMillis();
+        final Map<Integer, Long> footprints = new HashMap<>();
+        Map<Integer, Long> proteins = null;
+        Map<Integer, Long> setEntries = null;
+        for (Integer spcId : speciesIds) {
+            final String recorded = db.loadFingerprint(spcId);
+            if (recorded != null) {
+                footprints.put(spcId, footprint(SpeciesFingerprints.linkCount(recorded), db.loadProteinCount(spcId),
+                        db.loadSetEntryCount(spcId)));
+                continue;
+            }
+            if (proteins == null) {
+                proteins = countPerSpecies(db.getJdbcTemplate(), PROTEINS_COUNT_QUERY);
+                setEntries = countPerSpecies(db.getJdbcTemplate(), SET_ENTRIES_COUNT_QUERY);
+            }
+            final String fingerprint = known == null ? null : known.get(spcId);
+            final long rows = fingerprint != null ? SpeciesFingerprints.linkCount(fingerprint)
+                    : SpeciesFingerprints.linkCount(db, spcId, MAX_ROWS_IN_FLIGHT);
+            final Long proteinCount = proteins.get(spcId);
+            final Long setEntryCount = setEntries.get(spcId);
+            footprints.put(spcId, footprint(rows, proteinCount == null ? 0 : proteinCount,
+                    setEntryCount == null ? 0 : setEntryCount));
+        }
+        log.info("footprints of " + footprints.size() + " species estimated in " +
+                ((System.currentTimeMillis() - start) / 1000) + "sec");
+        return footprints;
+    }
+
+    private static Map<Integer, Long> countPerSpecies(JdbcTemplate jdbcTemplate, String query) {
+        final Map<Integer, Long> counts = new HashMap<>();
+        jdbcTemplate.query(query, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                counts.put(rs.getInt(1), rs.getLong(2));
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * @return largest first, ties by species id
+     */
+    static List<Integer> largestFirst(final Map<Integer, Long> footprints) {
+        final List<Integer> species = new ArrayList<>(footprints.keySet());
+        Collections.sort(species, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                final int bySize = footprints.get(b).compareTo(footprints.get(a));
+                return bySize != 0 ? bySize : a.compareTo(b);
+            }
+        });
+        return species;
+    }
+
+    /**
+     * Start all species, largest first, and return once the last one is started.
+     *
+     * @param footprints estimated footprint of each species to run
+     * @param task
+     * @return result of each species, in the order they were started
+     */
+    <T> Map<Integer, Future<T>> run(Map<Integer, Long> footprints, final SpeciesTask<T> task) throws InterruptedException {
+        final List<Integer> species = largestFirst(footprints);
+        if (!species.isEmpty()) {
+            log.info(species.size() + " species, up to " + threads + " at a time, heap budget: " +
+                    (budget.getBudgetBytes() >> 20) + "MB, largest: " + species.get(0) + " (" +
+                    (footprints.get(species.get(0)) >> 20) + "MB estimated)");
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Semaphore idleThreads = new Semaphore(threads);
+        final Map<Integer, Future<T>> results = new LinkedHashMap<>();
+        try {
+            for (final Integer spcId : species) {
+                final long footprint = footprints.get(spcId);
+                idleThreads.acquire();
+                try {
+                    budget.acquire(footprint);
+                } catch (InterruptedException e) {
+                    idleThreads.release();
+                    throw e;
+                }
+                if (budget.runsAlone(footprint)) {
+                    log.info(spcId + " runs alone, " + (footprint >> 20) + "MB estimated");
+                }
+                results.put(spcId, executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        try {
+                            return task.run(spcId);
+                        } finally {
+                            budget.release(footprint);
+                            idleThreads.release();
+                        }
+                    }
+                }));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,650 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.io.CountingOutputStream;
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.string_db.ProteinExternalId;
+import org.string_db.StringDbScores;
+import org.string_db.psicquic.AppProperties;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Everything needed to index or export a species, dumped from the database into a single binary file,
+ * so that builds can run without postgres (see {@link SnapshotDbFacade}).
+ * <p/>
+ * Layout (big endian): a header (magic, format version, species id, core species flag), then the sections,
+ * then the section table (no. of sections, and id, offset, length of each) and finally the table's offset.
+ * Strings are an int byte length followed by UTF-8 bytes. Sections are only read when asked for, each one
+ * memory-mapped on its own; the scores are mapped in windows, so there's no limit to their size.
+ * <p/>
+ * Snapshots have either the protein sequences or the ROGIDs calculated from them (when dumped with a
+ * {@link RogidStore}), the latter are a fraction of the size and spare recalculating them every time.
+ * <p/>
+ * A file with a different {@link #VERSION} is rejected, dump the species again.
+ */
+public class SpeciesSnapshot {
+    private static final Logger log = Logger.getLogger(SpeciesSnapshot.class);
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    static final int MAGIC = 0x53504331;
+    static final int VERSION = 1;
+    static final String SUFFIX = ".snapshot";
+
+    static final int SPECIES_NAMES = 1;
+    static final int SCORE_TYPES = 2;
+    static final int EXTERNAL_IDS = 3;
+    static final int PREFERRED_NAMES = 4;
+    static final int REFSEQ_IDS = 5;
+    static final int SEQUENCES = 6;
+    static final int ROGIDS = 7;
+    static final int PROTEINS_SETS = 8;
+    static final int SETS_COLLECTIONS = 9;
+    static final int UNIPROT_LINKOUTS = 10;
+    static final int FINGERPRINT = 11;
+    static final int SCORES = 12;
+
+    /**
+     * scores are mapped this much at a time
+     */
+    static final int SCORES_WINDOW = 64 << 20;
+    /**
+     * marks null elements of score arrays
+     */
+    private static final int NULL = Integer.MIN_VALUE;
+
+    private final File file;
+    private final int speciesId;
+    private final boolean core;
+    /**
+     * section id to {offset, length}
+     */
+    private final Map<Integer, long[]> sections = new HashMap<>();
+    /**
+     * sections mapped so far, all but the scores are mapped as a whole
+     */
+    private final Map<Integer, ByteBuffer> mapped = new HashMap<>();
+
+    private SpeciesSnapshot(File file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer header = read(channel, 0, 13);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a species snapshot: " + file);
+            }
+            final int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " is version " + version + " of the format, expected " + VERSION);
+            }
+            speciesId = header.getInt();
+            core = header.get() != 0;
+            final long tableOffset = read(channel, channel.size() - 8, 8).getLong();
+            final int count = read(channel, tableOffset, 4).getInt();
+            final ByteBuffer table = read(channel, tableOffset + 4, count * 20);
+            for (int i = 0; i < count; i++) {
+                sections.put(table.getInt(), new long[]{table.getLong(), table.getLong()});
+            }
+        }
+    }
+
+    static SpeciesSnapshot open(File file) {
+        try {
+            return new SpeciesSnapshot(file);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to open " + file, e);
+        }
+    }
+
+    static File file(File dir, Integer speciesId) {
+        return new File(dir, speciesId + SUFFIX);
+    }
+
+    int getSpeciesId() {
+        return speciesId;
+    }
+
+    boolean isCore() {
+        return core;
+    }
+
+    boolean has(int section) {
+        return sections.containsKey(section);
+    }
+
+    /**
+     * @return no. of entries in a section, as written before them, without reading the entries
+     */
+    int count(int section) {
+        return map(section).getInt();
+    }
+
+    /**
+     * @return no. of strings in a section written with {@link Writer#intStringSets(Map)}, counted without
+     * decoding them; 0 if there's no such section
+     */
+    long setEntries(int section) {
+        if (!has(section)) {
+            return 0;
+        }
+        final ByteBuffer in = map(section);
+        final int count = in.getInt();
+        long entries = 0;
+        for (int i = 0; i < count; i++) {
+            in.getInt();
+            final int size = in.getInt();
+            for (int j = 0; j < size; j++) {
+                final int length = in.getInt();
+                if (length > 0) {
+                    in.position(in.position() + length);
+                }
+            }
+            entries += size;
+        }
+        return entries;
+    }
+
+    List<String> strings(int section) {
+        final ByteBuffer in = map(section);
+        final int count = in.getInt();
+        final List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(getString(in));
+        }
+        return strings;
+    }
+
+    Map<Integer, String> intStrings(int section) {
+        final ByteBuffer in = map(section);
+        final int count = in.getInt();
+        final Map<Integer, String> map = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+        for (int i = 0; i < count; i++) {
+            map.put(in.getInt(), getString(in));
+        }
+        return map;
+    }
+
+    Map<Integer, Set<String>> intStringSets(int section) {
+        final ByteBuffer in = map(section);
+        final int count = in.getInt();
+        final Map<Integer, Set<String>> map = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+        for (int i = 0; i < count; i++) {
+            final int key = in.getInt();
+            final int size = in.getInt();
+            final Set<String> values = new LinkedHashSet<>(Math.max(4, size * 4 / 3 + 1));
+            for (int j = 0; j < size; j++) {
+                values.add(getString(in));
+            }
+            map.put(key, values);
+        }
+        return map;
+    }
+
+    Map<String, String> stringStrings(int section) {
+        final ByteBuffer in = map(section);
+        final int count = in.getInt();
+        final Map<String, String> map = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+        for (int i = 0; i < count; i++) {
+            map.put(getString(in), getString(in));
+        }
+        return map;
+    }
+
+    Map<Integer, ProteinExternalId> externalIds() {
+        final Map<Integer, ProteinExternalId> ids = new HashMap<>();
+        for (Map.Entry<Integer, String> e : intStrings(EXTERNAL_IDS).entrySet()) {
+            ids.put(e.getKey(), new ProteinExternalId(e.getValue()));
+        }
+        return ids;
+    }
+
+    /**
+     * @return reader of the species' scores, in the order they were dumped
+     */
+    DataReader<StringDbScores> scores() {
+        return scores(SCORES_WINDOW);
+    }
+
+    DataReader<StringDbScores> scores(int windowSize) {
+        final long[] section = section(SCORES);
+        return new ScoresReader(file, section[0], section[1], intStrings(SCORE_TYPES), windowSize);
+    }
+
+    private long[] section(int section) {
+        final long[] offsetLength = sections.get(section);
+        if (offsetLength == null) {
+            throw new IllegalArgumentException("no section " + section + " in " + file);
+        }
+        return offsetLength;
+    }
+
+    /**
+     * @return the section, mapped the first time it's asked for
+     */
+    private synchronized ByteBuffer map(int section) {
+        ByteBuffer buffer = mapped.get(section);
+        if (buffer == null) {
+            final long[] offsetLength = section(section);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                //the mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, offsetLength[0], offsetLength[1]);
+            } catch (IOException e) {
+                throw new RuntimeException("failed to map section " + section + " of " + file, e);
+            }
+            mapped.put(section, buffer);
+        }
+        //a position of its own for every reader
+        return buffer.duplicate();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("truncated snapshot");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static String getString(ByteBuffer in) {
+        final int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * Scores of a snapshot, same rows as the {@link StringDbScoresDataReader} the snapshot was dumped from.
+     * Each row is: protein A, protein B, no. of array rows and columns (shorts), and the array elements.
+     */
+    static class ScoresReader implements DataReader<StringDbScores> {
+        private final FileChannel channel;
+        private final long end;
+        private final Map<Integer, String> scoreTypes;
+        private final int windowSize;
+        private ByteBuffer window;
+        /**
+         * file position of the window's first byte
+         */
+        private long windowStart;
+        private StringDbScores current;
+        /**
+         * same guard as {@link StringDbScoresDataReader}'s
+         */
+        private boolean nextCalled;
+
+        ScoresReader(File file, long offset, long length, Map<Integer, String> scoreTypes, int windowSize) {
+            this.end = offset + length;
+            this.scoreTypes = scoreTypes;
+            this.windowSize = windowSize;
+            try {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                mapFrom(offset);
+            } catch (IOException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        @Override
+        public boolean next() {
+            if (nextCalled) {
+                throw new IllegalStateException("next() called for the second time, call get() first");
+            }
+            nextCalled = true;
+            try {
+                if (windowStart + window.position() >= end) {
+                    channel.close();
+                    return false;
+                }
+                ensure(12);
+                final int proteinA = window.getInt();
+                final int proteinB = window.getInt();
+                final int rows = window.getShort();
+                final int columns = window.getShort();
+                ensure(4L * rows * columns);
+                final Integer[][] scores = new Integer[rows][columns];
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < columns; j++) {
+                        final int value = window.getInt();
+                        scores[i][j] = value == NULL ? null : value;
+                    }
+                }
+                current = new StringDbScores(proteinA, proteinB, scoreTypes, scores);
+                return true;
+            } catch (IOException e) {
+                throw new DataRetrievalFailureException("failed to read scores", e);
+            }
+        }
+
+        @Override
+        public StringDbScores get() {
+            if (!nextCalled) {
+                throw new IllegalStateException("call next() first!");
+            }
+            nextCalled = false;
+            return current;
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("failed to close the scores file", e);
+            }
+        }
+
+        /**
+         * move the window if the next {@code bytes} are not all in it
+         */
+        private void ensure(long bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                mapFrom(windowStart + window.position());
+                if (window.remaining() < bytes) {
+                    throw new EOFException("truncated scores section");
+                }
+            }
+        }
+
+        private void mapFrom(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, end - position));
+        }
+    }
+
+    /**
+     * Writes a snapshot, section by section, to a temp file renamed to the target once closed.
+     */
+    static class Writer implements Closeable {
+        private final File target;
+        private final File tmp;
+        private final CountingOutputStream counter;
+        private final DataOutputStream out;
+        private final Map<Integer, long[]> sections = new LinkedHashMap<>();
+        private int section;
+
+        Writer(File target, Integer speciesId, boolean core) throws IOException {
+            this.target = target;
+            this.tmp = new File(target.getPath() + ".tmp");
+            counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024));
+            out = new DataOutputStream(counter);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(speciesId);
+            out.writeByte(core ? 1 : 0);
+        }
+
+        /**
+         * start a new section, ends the previous one
+         */
+        Writer section(int id) throws IOException {
+            endSection();
+            out.flush();
+            section = id;
+            sections.put(id, new long[]{counter.getCount(), 0});
+            return this;
+        }
+
+        private void endSection() throws IOException {
+            out.flush();
+            if (section != 0) {
+                final long[] offsetLength = sections.get(section);
+                offsetLength[1] = counter.getCount() - offsetLength[0];
+                //sections are mapped as a whole, apart from the scores
+                if (section != SCORES && offsetLength[1] > Integer.MAX_VALUE) {
+                    throw new IOException("section " + section + " too big: " + offsetLength[1]);
+                }
+                section = 0;
+            }
+        }
+
+        Writer strings(Collection<String> strings) throws IOException {
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                writeString(s);
+            }
+            return this;
+        }
+
+        Writer intStrings(Map<Integer, ?> map) throws IOException {
+            out.writeInt(map.size());
+            for (Map.Entry<Integer, ?> e : map.entrySet()) {
+                out.writeInt(e.getKey());
+                writeString(e.getValue() == null ? null : e.getValue().toString());
+            }
+            return this;
+        }
+
+        Writer intStringSets(Map<Integer, ? extends Collection<String>> map) throws IOException {
+            out.writeInt(map.size());
+            for (Map.Entry<Integer, ? extends Collection<String>> e : map.entrySet()) {
+                out.writeInt(e.getKey());
+                out.writeInt(e.getValue().size());
+                for (String s : e.getValue()) {
+                    writeString(s);
+                }
+            }
+            return this;
+        }
+
+        Writer stringStrings(Map<String, String> map) throws IOException {
+            out.writeInt(map.size());
+            for (Map.Entry<String, String> e : map.entrySet()) {
+                writeString(e.getKey());
+                writeString(e.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * one row of the {@link #SCORES} section
+         */
+        Writer scores(int proteinA, int proteinB, Integer[][] scores) throws IOException {
+            out.writeInt(proteinA);
+            out.writeInt(proteinB);
+            final int columns = scores.length == 0 ? 0 : scores[0].length;
+            if (scores.length > Short.MAX_VALUE || columns > Short.MAX_VALUE) {
+                throw new IOException("scores array too big: " + scores.length + "x" + columns);
+            }
+            out.writeShort(scores.length);
+            out.writeShort(columns);
+            for (Integer[] row : scores) {
+                for (Integer value : row) {
+                    out.writeInt(value == null ? NULL : value);
+                }
+            }
+            return this;
+        }
+
+        private void writeString(String s) throws IOException {
+            if (s == null) {
+                out.writeInt(-1);
+                return;
+            }
+            final byte[] bytes = s.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * write the section table and move the file into place
+         */
+        @Override
+        public void close() throws IOException {
+            endSection();
+            final long tableOffset = counter.getCount();
+            out.writeInt(sections.size());
+            for (Map.Entry<Integer, long[]> e : sections.entrySet()) {
+                out.writeInt(e.getKey());
+                out.writeLong(e.getValue()[0]);
+                out.writeLong(e.getValue()[1]);
+            }
+            out.writeLong(tableOffset);
+            out.close();
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * drop the unfinished file
+         */
+        void abort() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("failed to close " + tmp, e);
+            }
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Dump a species from the database.
+     *
+     * @param setsCollections all of them, only the ones the species' proteins belong to are dumped
+     * @param linkouts        UniProt linkouts of all proteins, only the species' ones are dumped
+     * @param rogidStore      null to dump sequences instead of ROGIDs
+     */
+    static void dump(IndexingDbFacade db, Integer speciesId, boolean core,
+                     Map<Integer, String> scoreTypes, Map<String, String> setsCollections,
+                     Map<Integer, Set<String>> linkouts, RogidStore rogidStore, File file) throws Exception {
+        final long start = System.currentTimeMillis();
+        final JdbcTemplate jdbcTemplate = db.getJdbcTemplate();
+        final Writer writer = new Writer(file, speciesId, core);
+        try {
+            final List<String> speciesNames = new ArrayList<>(db.loadSpeciesNames(speciesId));
+            writer.section(SPECIES_NAMES).strings(speciesNames);
+            writer.section(SCORE_TYPES).intStrings(scoreTypes);
+            final Map<Integer, ProteinExternalId> externalIds = db.loadProteinExternalIds(speciesId);
+            writer.section(EXTERNAL_IDS).intStrings(externalIds);
+            final Map<Integer, String> proteinNames = db.loadProteinNames(speciesId);
+            writer.section(PREFERRED_NAMES).intStrings(proteinNames);
+            final Map<Integer, Set<String>> refseqIds = db.loadRefseqIds(speciesId);
+            writer.section(REFSEQ_IDS).intStringSets(refseqIds);
+            if (rogidStore != null) {
+                writer.section(ROGIDS).intStrings(rogidStore.rogids(jdbcTemplate, speciesId));
+            } else {
+                writer.section(SEQUENCES).intStrings(db.loadProteinSequences(speciesId));
+            }
+            final Map<Integer, Set<String>> proteinsSets = db.loadProteinsSets(speciesId);
+            writer.section(PROTEINS_SETS).intStringSets(proteinsSets);
+            final Map<String, String> speciesCollections = new HashMap<>();
+            for (Set<String> sets : proteinsSets.values()) {
+                for (String set : sets) {
+                    if (setsCollections.containsKey(set)) {
+                        speciesCollections.put(set, setsCollections.get(set));
+                    }
+                }
+            }
+            writer.section(SETS_COLLECTIONS).stringStrings(speciesCollections);
+            final Map<Integer, Set<String>> speciesLinkouts = new HashMap<>();
+            for (Integer proteinId : externalIds.keySet()) {
+                if (linkouts.containsKey(proteinId)) {
+                    speciesLinkouts.put(proteinId, linkouts.get(proteinId));
+                }
+            }
+            writer.section(UNIPROT_LINKOUTS).intStringSets(speciesLinkouts);
+            writer.section(FINGERPRINT).strings(Collections.singletonList(SpeciesFingerprints.of(db, speciesId)));
+            writer.section(SCORES);
+            final long rows = dumpScores(jdbcTemplate, speciesId, writer);
+            writer.close();
+            log.info(speciesId + ": " + rows + " scores rows dumped to " + file + " (" + (file.length() >> 20) + "MB) in "
+                    + ((System.currentTimeMillis() - start) / 1000) + "sec");
+        } catch (Exception e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * the raw arrays, with the same query as {@link StringDbScoresDataReader}
+     */
+    private static long dumpScores(JdbcTemplate jdbcTemplate, Integer speciesId, Writer writer) throws SQLException, IOException {
+        long rows = 0;
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(StringDbScoresDataReader.SCORES_QUERY + speciesId)) {
+                statement.setFetchSize(StringDbScoresDataReader.FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        writer.scores(rs.getInt(1), rs.getInt(2), (Integer[][]) rs.getArray(3).getArray());
+                        rows++;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Dump all species to {@code snapshot_dir}, skipping the ones already there.
+     */
+    public static void main(String[] args) throws Exception {
+        final long start = System.currentTimeMillis();
+        final AppProperties appProperties = AppProperties.instance;
+        if (appProperties.snapshotDir.isEmpty()) {
+            throw new IllegalArgumentException("snapshot_dir property missing");
+        }
+        final File dir = new File(appProperties.snapshotDir);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can't create " + dir);
+        }
+        //the database, snapshot_dir is where the snapshots go
+        final IndexingDbFacade db = new IndexingDbFacade(appProperties.getProteinRepository(),
+                appProperties.getSpeciesRepository(), appProperties.getGenericQueryProcessor(),
+                appProperties.getJdbcTemplate());
+        final Set<Integer> core = new HashSet<>(db.loadCoreSpecies());
+        final Map<Integer, String> scoreTypes = db.loadScoreTypes();
+        final Map<String, String> setsCollections = db.loadSetsCollections();
+        final Map<Integer, Set<String>> linkouts = db.loadUniProtLinkouts();
+        final RogidStore rogidStore = appProperties.rogidStoreFile.isEmpty()
+                ? null : new RogidStore(new File(appProperties.rogidStoreFile),
+                appProperties.rogidStoreMaxUnusedRuns);
+        final List<Integer> speciesIds = db.loadSpeciesIds();
+        log.info("dumping " + speciesIds.size() + " species to " + dir);
+        for (Integer spcId : speciesIds) {
+            final File file = file(dir, spcId);
+            if (file.exists()) {
+                log.info("skipping, snapshot exists " + file);
+                continue;
+            }
+            dump(db, spcId, core.contains(spcId), scoreTypes, setsCollections, linkouts, rogidStore, file);
+        }
+        if (rogidStore != null) {
+            rogidStore.close();
+        }
+        log.info("snapshots done in: " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min");
+    }
+}
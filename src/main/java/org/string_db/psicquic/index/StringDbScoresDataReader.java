@@ -43,12 +43,13 @@ class StringDbScoresDataReader implements DataReader<StringDbScores> {
     static final Integer MIN_SCORE = 400;
 
     private static final Logger log = Logger.getLogger(StringDbScoresDataReader.class);
+    final Connection connection;
     final PreparedStatement preparedStatement;
     /**
      * there's a lot of data to be indexed so let's filter out scores below 400.
      * Optionally, only 'core' species could be indexed.
      */
-    private final String scoresQuery = "SELECT node_id_a, node_id_b, evidence_scores"
+    static final String SCORES_QUERY = "SELECT node_id_a, node_id_b, evidence_scores"
             + " FROM  network.node_node_links  "
             + "  WHERE combined_score >= " + MIN_SCORE
         /*
@@ -68,13 +69,20 @@ class StringDbScoresDataReader implements DataReader<StringDbScores> {
     private boolean nextCalled;
 
     StringDbScoresDataReader(DbFacade dbFacade, JdbcTemplate jdbcTemplate, Integer speciesId) {
+        this(dbFacade, jdbcTemplate, speciesId, "");
+    }
+
+    /**
+     * @param condition appended to the query's WHERE clause, e.g. to read a range of proteins only
+     */
+    StringDbScoresDataReader(DbFacade dbFacade, JdbcTemplate jdbcTemplate, Integer speciesId, String condition) {
         log.info("init()");
         try {
-            this.scoreTypes = dbFacade.loadScoreTypes();
+            this.scoreTypes = ReferenceData.of(dbFacade).scoreTypes();
             jdbcTemplate.setFetchSize(FETCH_SIZE);
-            final Connection connection = jdbcTemplate.getDataSource().getConnection();
+            connection = jdbcTemplate.getDataSource().getConnection();
             connection.setAutoCommit(false);
-            preparedStatement = connection.prepareStatement(scoresQuery + speciesId);
+            preparedStatement = connection.prepareStatement(SCORES_QUERY + speciesId + condition);
             //setting fetchSize on jdbcTemplate doesn't work, must do it on the statement:
             preparedStatement.setFetchSize(FETCH_SIZE);
 //            this.rs = jdbcTemplate.queryForRowSet(scoresQuery + speciesId);
@@ -86,6 +94,22 @@ class StringDbScoresDataReader implements DataReader<StringDbScores> {
         log.info("done()");
     }
 
+    /**
+     * @param method    {@code jdbc} for this reader, {@code copy} for {@link PgCopyScoresDataReader}
+     * @param condition appended to the query's WHERE clause
+     */
+    static DataReader<StringDbScores> open(DbFacade dbFacade, JdbcTemplate jdbcTemplate, Integer speciesId,
+                                           String method, String condition) {
+        switch (method) {
+            case "jdbc":
+                return new StringDbScoresDataReader(dbFacade, jdbcTemplate, speciesId, condition);
+            case "copy":
+                return new PgCopyScoresDataReader(dbFacade, jdbcTemplate, speciesId, condition);
+            default:
+                throw new IllegalArgumentException("unknown scores reader: " + method);
+        }
+    }
+
     @Override
     public boolean next() {
         if (nextCalled == true) {
@@ -95,16 +119,28 @@ class StringDbScoresDataReader implements DataReader<StringDbScores> {
         try {
             final boolean next = rs.next();
             if (!next) {
-                rs.close();
-                preparedStatement.close();
+                close();
             }
             return next;
         } catch (SQLException e) {
+            close();
             throw new DataRetrievalFailureException("failed to move the cursor", e);
         }
 
     }
 
+    @Override
+    public void close() {
+        try {
+            rs.close();
+            preparedStatement.close();
+            //species are indexed concurrently, each reader with its own connection, so give it back
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("failed to close the cursor", e);
+        }
+    }
+
     @Override
     public StringDbScores get() {
         if (nextCalled == false) {
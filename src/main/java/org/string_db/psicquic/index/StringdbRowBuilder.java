@@ -19,13 +19,14 @@
 package org.string_db.psicquic.index;
 
 import org.hupo.psi.calimocho.model.Row;
-import org.string_db.DbFacade;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.string_db.EvidenceType;
+import org.string_db.ProteinExternalId;
 import org.string_db.StringDbScores;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Takes STRINGDB's data (proteins, mappings, evidence, sequences...)
@@ -37,33 +38,110 @@ class StringdbRowBuilder {
 
     protected final ConfidenceColumnBuilder scoresParser;
     protected final FieldBuilder appenderChain;
+    /**
+     * null if the chain doesn't calculate ROGIDs
+     */
+    private final RogidCache rogids;
+    /**
+     * null if the chain doesn't cache fields
+     */
+    private final ProteinFieldCache fieldCache;
 
 
     StringdbRowBuilder(ConfidenceColumnBuilder scoresParser, FieldBuilder appenderChain) {
+        this(scoresParser, appenderChain, null, null);
+    }
+
+    StringdbRowBuilder(ConfidenceColumnBuilder scoresParser, FieldBuilder appenderChain, RogidCache rogids,
+                       ProteinFieldCache fieldCache) {
         this.scoresParser = scoresParser;
         this.appenderChain = appenderChain;
+        this.rogids = rogids;
+        this.fieldCache = fieldCache;
     }
 
-    static Builder builder(DbFacade util) {
+    static Builder builder(IndexingDbFacade util) {
         return new Builder(util);
     }
 
+    /**
+     * One row per evidence type. Interactor columns don't depend on the evidence type, so the
+     * {@link FieldBuilder} chain runs once per pair and its fields are shared by all the pair's rows.
+     *
+     * @param scores
+     * @return
+     */
     public List<Row> build(StringDbScores scores) {
-        List<Row> results = new ArrayList<Row>();
-        for (RowBuilder rowBuilder : scoresParser.buildRowForEachEvidenceType(scores).values()) {
-            appenderChain.proteins(scores.getProteinA(), scores.getProteinB()).addTo(rowBuilder);
-            results.add(rowBuilder.build());
+        final Map<EvidenceType, RowBuilder> evidenceRows = scoresParser.buildRowForEachEvidenceType(scores);
+        List<Row> results = new ArrayList<Row>(evidenceRows.size());
+        if (evidenceRows.isEmpty()) {
+            return results;
+        }
+        final Row interactors = appenderChain.proteins(scores.getProteinA(), scores.getProteinB())
+                .addTo(new RowBuilder()).build();
+        for (RowBuilder rowBuilder : evidenceRows.values()) {
+            results.add(rowBuilder.withFields(interactors).build());
         }
         return results;
     }
 
+    /**
+     * @return ROGIDs calculated so far, shared by all copies built for the species, or null
+     */
+    RogidCache getRogids() {
+        return rogids;
+    }
+
+    /**
+     * @return protein fields cached so far, shared by all copies built for the species, or null
+     */
+    ProteinFieldCache getFieldCache() {
+        return fieldCache;
+    }
+
     static class Builder {
-        private DbFacade util;
+        private IndexingDbFacade util;
+        private RogidStore rogidStore;
+        private int fieldCacheEntries;
+        private TableLoader tableLoader = TableLoader.CALLING_THREAD;
 
-        Builder(DbFacade util) {
+        Builder(IndexingDbFacade util) {
             this.util = util;
         }
 
+        /**
+         * Take ROGIDs from the store (adding the missing ones) instead of calculating them all from sequences.
+         *
+         * @param rogidStore null to always calculate them
+         * @return this
+         */
+        Builder withRogidStore(RogidStore rogidStore) {
+            this.rogidStore = rogidStore;
+            return this;
+        }
+
+        /**
+         * Build the fields of each protein once and reuse them, see {@link ProteinFieldCache}.
+         *
+         * @param maxEntries upper limit for the no. of cached field groups, 0 to not cache them
+         * @return this
+         */
+        Builder withFieldCache(int maxEntries) {
+            this.fieldCacheEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Load the species' tables concurrently.
+         *
+         * @param tableLoader {@link TableLoader#CALLING_THREAD} to load them one after another
+         * @return this
+         */
+        Builder withTableLoader(TableLoader tableLoader) {
+            this.tableLoader = tableLoader;
+            return this;
+        }
+
         /**
          * Return a newly created instance with all the
          * {@link FieldBuilder} chained.
@@ -73,25 +151,130 @@ class StringdbRowBuilder {
          * @return
          */
         StringdbRowBuilder build(Integer speciesId, Map<Integer, String> uniprotIds) {
+            return build(speciesId, uniprotIds, 1).get(0);
+        }
+
+        /**
+         * Return {@code copies} newly created instances, sharing the same (read-only) species data.
+         * {@link FieldBuilder}s keep track of the current pair of proteins so an instance can't be
+         * used from more than one thread, but each copy can.
+         *
+         * @param speciesId
+         * @param uniprotIds
+         * @param copies
+         * @return
+         */
+        List<StringdbRowBuilder> build(final Integer speciesId, Map<Integer, String> uniprotIds, int copies) {
             try {
-                Map<String, String> setsCollections = util.loadSetsCollections();
-                Map<Integer, Set<String>> proteinsSets = util.loadProteinsSets(speciesId);
-                final ConfidenceColumnBuilder scoresBuilder = new ConfidenceColumnBuilder(new SourceDbLookup(proteinsSets, setsCollections));
+                //protein tables are read straight into IntTables (see ProteinTableQueries), unless they come
+                //as maps from somewhere else than the database
+                final JdbcTemplate jdbcTemplate = util.getJdbcTemplate();
+                //all at once, each table is a round trip and a scan of its own
+                final TableLoader.Tables tables = tableLoader.tables(speciesId);
+                final Future<Map<String, String>> setsCollectionsTable = tables.load("sets_collections", new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() throws Exception {
+                        //the same for all species, only the first one waits for it
+                        return ReferenceData.of(util).setsCollections();
+                    }
+                });
+                final Future<Map<Integer, Set<String>>> proteinsSetsTable = tables.load("proteins_sets", new Callable<Map<Integer, Set<String>>>() {
+                    @Override
+                    public Map<Integer, Set<String>> call() throws Exception {
+                        return util.loadProteinsSets(speciesId);
+                    }
+                });
+                final Future<IntTable<ProteinExternalId>> externalIdsTable = tables.load("external_ids", new Callable<IntTable<ProteinExternalId>>() {
+                    @Override
+                    public IntTable<ProteinExternalId> call() throws Exception {
+                        return jdbcTemplate != null ? ProteinTableQueries.externalIds(jdbcTemplate, speciesId)
+                                : IntTable.copyOf(util.loadProteinExternalIds(speciesId));
+                    }
+                });
+                final Future<IntTable<String[]>> refseqIdsTable = tables.load("refseq_ids", new Callable<IntTable<String[]>>() {
+                    @Override
+                    public IntTable<String[]> call() throws Exception {
+                        return jdbcTemplate != null ? ProteinTableQueries.refseqIds(jdbcTemplate, speciesId)
+                                : RefseqAlternativeIdsFieldBuilder.toArrays(util.loadRefseqIds(speciesId));
+                    }
+                });
+                final Future<IntTable<String>> proteinNamesTable = tables.load("protein_names", new Callable<IntTable<String>>() {
+                    @Override
+                    public IntTable<String> call() throws Exception {
+                        return jdbcTemplate != null ? ProteinTableQueries.preferredNames(jdbcTemplate, speciesId)
+                                : IntTable.copyOf(util.loadProteinNames(speciesId));
+                    }
+                });
+                final Future<Collection<String>> speciesNamesTable = tables.load("species_names", new Callable<Collection<String>>() {
+                    @Override
+                    public Collection<String> call() throws Exception {
+                        return util.loadSpeciesNames(speciesId);
+                    }
+                });
+                //a protein's ROGID is the same in every pair, so it's calculated once for all the copies
+                final Future<RogidCache> rogidsTable = tables.load("rogids", new Callable<RogidCache>() {
+                    @Override
+                    public RogidCache call() throws Exception {
+                        final Map<Integer, String> recorded = util.loadRogids(speciesId);
+                        if (recorded != null) {
+                            return new RogidCache(speciesId, recorded);
+                        }
+                        if (rogidStore != null) {
+                            //without the database to take digests from, the store goes by the sequences
+                            return new RogidCache(speciesId, jdbcTemplate != null
+                                    ? rogidStore.rogids(jdbcTemplate, speciesId)
+                                    : rogidStore.rogids(speciesId, IntTable.copyOf(util.loadProteinSequences(speciesId))));
+                        }
+                        return new RogidCache(speciesId, jdbcTemplate != null
+                                ? ProteinTableQueries.sequences(jdbcTemplate, speciesId)
+                                : IntTable.copyOf(util.loadProteinSequences(speciesId)));
+                    }
+                });
+
+                final ConfidenceColumnBuilder scoresBuilder = new ConfidenceColumnBuilder(
+                        new SourceDbLookup(tables.get(proteinsSetsTable), tables.get(setsCollectionsTable)));
+                final IntTable<ProteinExternalId> externalIds = tables.get(externalIdsTable);
+                final IntTable<String> speciesUniprotIds = speciesOnly(uniprotIds, externalIds);
+                final IntTable<String[]> refseqIds = tables.get(refseqIdsTable);
+                final IntTable<String> proteinNames = tables.get(proteinNamesTable);
+                final Collection<String> speciesNames = tables.get(speciesNamesTable);
+                final RogidCache rogids = tables.get(rogidsTable);
+                tables.loaded();
+                final ProteinFieldCache fieldCache = fieldCacheEntries > 0
+                        ? new ProteinFieldCache(externalIds.size(), fieldCacheEntries) : null;
 
-                FieldBuilder appenderChain = new IdsFieldBuilder(util.loadProteinExternalIds(speciesId), uniprotIds);
-                appenderChain.chain(new RefseqAlternativeIdsFieldBuilder(util.loadRefseqIds(speciesId)));
-                appenderChain.chain(new AliasFieldBuilder(util.loadProteinNames(speciesId)));
-//                appenderChain.chain(new TaxonFieldBuilder(speciesId, util.loadSpeciesName(speciesId)));
-                appenderChain.chain(new MultipleTaxonNamesFieldBuilder(speciesId, util.loadSpeciesNames(speciesId)));
+                List<StringdbRowBuilder> builders = new ArrayList<>(copies);
+                for (int i = 0; i < copies; i++) {
+                    FieldBuilder appenderChain = new IdsFieldBuilder(externalIds, speciesUniprotIds).cachingFields(fieldCache);
+                    appenderChain.chain(new RefseqAlternativeIdsFieldBuilder(refseqIds).cachingFields(fieldCache));
+                    appenderChain.chain(new AliasFieldBuilder(proteinNames).cachingFields(fieldCache));
+//                    appenderChain.chain(new TaxonFieldBuilder(speciesId, util.loadSpeciesName(speciesId)));
+                    appenderChain.chain(new MultipleTaxonNamesFieldBuilder(speciesId, speciesNames));
 
 
-                appenderChain.chain(new InteractorTypeFieldBuilder());
-                appenderChain.chain(new RogidFieldBuilder(speciesId, util.loadProteinSequences(speciesId)));
-                return new StringdbRowBuilder(scoresBuilder, appenderChain);
+                    appenderChain.chain(new InteractorTypeFieldBuilder());
+                    appenderChain.chain(new RogidFieldBuilder(rogids).cachingFields(fieldCache));
+                    builders.add(new StringdbRowBuilder(scoresBuilder, appenderChain, rogids, fieldCache));
+                }
+                return builders;
             } catch (Exception e) {
                 throw new ExceptionInInitializerError(e);
             }
         }
+
+        /**
+         * @return UniProt ids of the species' proteins, the map with all of them is too big to copy per species
+         */
+        private static IntTable<String> speciesOnly(final Map<Integer, String> uniprotIds, IntTable<?> proteins) {
+            final IntTable.Builder<String> ids = new IntTable.Builder<>(proteins.size());
+            proteins.forEach(new IntTable.Visitor<Object>() {
+                @Override
+                public void visit(int proteinId, Object value) {
+                    ids.put(proteinId, uniprotIds.get(proteinId));
+                }
+            });
+            return ids.build();
+        }
     }
 
 }
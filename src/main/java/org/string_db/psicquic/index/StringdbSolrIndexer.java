@@ -19,21 +19,21 @@ package org.string_db.psicquic.index;
 
 import org.apache.log4j.Logger;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
 import org.hupo.psi.calimocho.model.Row;
 import org.hupo.psi.mi.psicquic.indexing.batch.reader.MitabCalimochoLineMapper;
-import org.string_db.DbFacade;
 import org.string_db.StringDbScores;
 import org.string_db.UniprotAC;
 import org.string_db.psicquic.AppProperties;
 import org.string_db.psicquic.SearchServer;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Creates the PSICQUIC index based on the data from string-db: postgresql database + uniprot ids mapping list.
@@ -43,75 +43,420 @@ import java.util.Set;
 public class StringdbSolrIndexer {
 
     private static final Logger log = Logger.getLogger(StringdbSolrIndexer.class);
-    private static final DbFacade db = new DbFacade(AppProperties.instance.getProteinRepository(),
-            AppProperties.instance.getSpeciesRepository(),
-            AppProperties.instance.getGenericQueryProcessor());
+    protected final IndexingDbFacade db;
     protected final Map<Integer, String> uniprotIds;
     protected final SearchServer searchServer;
+    /**
+     * the search server if it converts rows to solr documents, null if it takes rows as they are
+     */
+    private final SolrIndex solrIndex;
+    /**
+     * null to read, build and send rows from a single thread
+     */
+    protected final IndexingPipeline pipeline;
+    protected final int pipelineWorkers;
+    /**
+     * null if progress isn't recorded
+     */
+    protected final IndexingCheckpoint checkpoint;
+    /**
+     * null if fingerprints aren't recorded
+     */
+    protected final SpeciesFingerprints fingerprints;
+    /**
+     * only index species whose fingerprint changed, needs {@link #fingerprints}
+     */
+    protected final boolean delta;
+    /**
+     * null to calculate all ROGIDs from sequences
+     */
+    protected RogidStore rogidStore;
+    /**
+     * loads each species' tables, concurrently unless it's {@link TableLoader#CALLING_THREAD}
+     */
+    protected TableLoader tableLoader = TableLoader.CALLING_THREAD;
+    /**
+     * all species together, each species also gets its own
+     */
+    protected final IndexingStats stats = new IndexingStats();
+    /**
+     * species indexed concurrently have to fit into it, null for 3/4 of the heap
+     */
+    protected HeapBudget heapBudget;
 
     public StringdbSolrIndexer(SearchServer searchServer, Map<Integer, UniprotAC> uniprotAcs) throws Exception {
+        this(IndexingDbFacade.of(AppProperties.instance), searchServer, uniprotAcs, null, 0, null, null, false);
+    }
+
+    /**
+     * @param checkpoint   null to always index everything from scratch
+     * @param fingerprints null to not record what's been indexed
+     * @param delta        true to index only species whose fingerprint changed since the last run
+     */
+    StringdbSolrIndexer(IndexingDbFacade db, SearchServer searchServer, Map<Integer, UniprotAC> uniprotAcs,
+                        IndexingPipeline pipeline, int pipelineWorkers, IndexingCheckpoint checkpoint,
+                        SpeciesFingerprints fingerprints, boolean delta) throws Exception {
+        if (delta && fingerprints == null) {
+            throw new IllegalArgumentException("delta indexing needs fingerprints");
+        }
+        this.db = db;
+        this.pipeline = pipeline;
+        this.checkpoint = checkpoint;
+        this.fingerprints = fingerprints;
+        this.delta = delta;
+        this.pipelineWorkers = pipelineWorkers;
         this.uniprotIds = new HashMap<>();
         for (Map.Entry<Integer, UniprotAC> e : uniprotAcs.entrySet()) {
             this.uniprotIds.put(e.getKey(), e.getValue().toString());
         }
         this.searchServer = searchServer;
+        this.solrIndex = searchServer instanceof SolrIndex ? (SolrIndex) searchServer : null;
         //        this shouldn't run if assertions are disabled: -disableassertions
         assert (indexDummyInteraction());
     }
 
+    void setRogidStore(RogidStore rogidStore) {
+        this.rogidStore = rogidStore;
+    }
+
+    void setTableLoader(TableLoader tableLoader) {
+        this.tableLoader = tableLoader;
+    }
+
+    void setHeapBudget(HeapBudget heapBudget) {
+        this.heapBudget = heapBudget;
+    }
+
     public static void main(String[] args) throws Exception {
         long start = System.currentTimeMillis();
-        log.info("indexing to: " + AppProperties.instance.solrUrl);
+        final AppProperties props = AppProperties.instance;
+        final IndexingDbFacade db = IndexingDbFacade.of(props);
         List<Integer> species = db.loadCoreSpecies();
-        final SolrServerConnection solrServerConnection = new SolrServerConnection(AppProperties.instance.solrUrl);
+        final SolrIndex solrIndex;
+        if (props.offlineIndexDir.isEmpty()) {
+            log.info("indexing to: " + props.solrUrl);
+            solrIndex = new SolrServerConnection(props.solrUrl, props.solrBatchSize, props.solrMaxSenderThreads);
+        } else if (props.offlineShards > 1) {
+            final Map<Integer, Long> expectedInteractions = new HashMap<>();
+            for (Integer spcId : species) {
+                expectedInteractions.put(spcId, SpeciesFingerprints.linkCount(db, spcId));
+            }
+            solrIndex = ShardedSearchServer.open(props, expectedInteractions);
+        } else {
+            solrIndex = EmbeddedSearchServer.open(new File(props.offlineSolrHome),
+                    new File(props.offlineIndexDir), props.offlineRamBufferMb, props.offlineMergeFactor,
+                    props.solrBatchSize, props.offlineMaxSegments);
+        }
 
-        final Map<Integer, Set<String>> linkouts = db.loadUniProtLinkouts();
-        final Map<Integer, UniprotAC> uniprotIds = new HashMap((int) (linkouts.size() * 1.2));
-        for (Integer id : linkouts.keySet()) {
-            uniprotIds.put(id, new UniprotAC(linkouts.get(id).iterator().next()));
+        final Map<Integer, String> accessions = ReferenceData.of(db).uniprotIds();
+        final Map<Integer, UniprotAC> uniprotIds = new HashMap<>((int) (accessions.size() * 1.2));
+        for (Map.Entry<Integer, String> e : accessions.entrySet()) {
+            uniprotIds.put(e.getKey(), new UniprotAC(e.getValue()));
         }
 
-        final StringdbSolrIndexer indexer = new StringdbSolrIndexer(solrServerConnection, uniprotIds);
-        indexer.indexSpecies(species);
+        final int pipelineWorkers = AppProperties.instance.pipelineWorkers;
+        final IndexingPipeline pipeline = pipelineWorkers > 0
+                ? new IndexingPipeline(solrIndex, AppProperties.instance.pipelineQueueSize) : null;
+        final IndexingCheckpoint checkpoint = props.indexCheckpointFile.isEmpty()
+                ? null : new IndexingCheckpoint(new File(props.indexCheckpointFile));
+        final SpeciesFingerprints fingerprints = props.indexFingerprintsFile.isEmpty()
+                ? null : new SpeciesFingerprints(new File(props.indexFingerprintsFile));
+        final StringdbSolrIndexer indexer = new StringdbSolrIndexer(db, solrIndex, uniprotIds, pipeline, pipelineWorkers,
+                checkpoint, fingerprints, AppProperties.instance.deltaIndexing);
+        final RogidStore rogidStore = AppProperties.instance.rogidStoreFile.isEmpty()
+                ? null : new RogidStore(new File(AppProperties.instance.rogidStoreFile),
+                AppProperties.instance.rogidStoreMaxUnusedRuns);
+        indexer.setRogidStore(rogidStore);
+        final TableLoader tableLoader = TableLoader.withThreads(props.tableLoaderThreads);
+        indexer.setTableLoader(tableLoader);
+        indexer.setHeapBudget(HeapBudget.ofMegabytes(props.indexingHeapBudgetMb));
+        if (solrIndex.getSender() != null) {
+            indexer.stats.watch(solrIndex.getSender());
+        }
+        indexer.stats.registerMBeans();
+        indexer.stats.startLogging(AppProperties.instance.statsLogSeconds);
+        indexer.indexSpecies(species, AppProperties.instance.indexingThreads);
+        indexer.stats.stopLogging();
+        tableLoader.shutdown();
+        if (rogidStore != null) {
+            rogidStore.close();
+        }
+        //an offline index is finished (merged) once closed
+        solrIndex.close();
         log.info("indexing done in: " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min");
     }
 
     void indexSpecies(List<Integer> speciesIds) throws Exception {
-        long start = System.currentTimeMillis();
+        indexSpecies(speciesIds, 1);
+    }
+
+    /**
+     * Index all given species, up to {@code threads} of them at the same time within the {@link #heapBudget},
+     * largest first (see {@link SpeciesScheduler}). Every species gets its own
+     * {@link StringdbRowBuilder} and {@link StringDbScoresDataReader} (so its own db connection),
+     * and they all feed the same {@link SearchServer}. With a checkpoint, species already committed
+     * in a previous run are skipped. In delta mode only species whose fingerprint changed are re-indexed,
+     * one at a time, and species no longer in the list are removed from the index.
+     *
+     * @param allSpeciesIds
+     * @param threads    max number of species indexed concurrently, 1 to index them one after another
+     */
+    void indexSpecies(List<Integer> allSpeciesIds, int threads) throws Exception {
+        final long start = System.currentTimeMillis();
+        if (delta && threads > 1) {
+            //a commit of another species would make a replaced species' deletes visible before its new documents
+            log.info("delta indexing replaces species one at a time, ignoring " + threads + " threads");
+            threads = 1;
+        }
+        final List<Integer> speciesIds = checkpoint == null ? allSpeciesIds : checkpoint.remaining(allSpeciesIds);
+        if (speciesIds.size() < allSpeciesIds.size()) {
+            log.info("resuming from " + checkpoint + ": " + (allSpeciesIds.size() - speciesIds.size()) +
+                    " species already indexed, " + speciesIds.size() + " to go");
+        }
+        //before the fingerprints of the last run are gone, they have the no. of rows
+        final Map<Integer, Long> footprints = threads <= 1 ? null : estimateFootprints(speciesIds);
+        if (fingerprints != null && !delta && (checkpoint == null || checkpoint.isEmpty())) {
+            //everything gets indexed again, old fingerprints would only be misleading if this run doesn't finish
+            fingerprints.clear();
+        }
+        final Map<Integer, Long> speciesTimes = new ConcurrentHashMap<>();
+
+        if (threads <= 1) {
+            for (Integer spcId : speciesIds) {
+                log.info("indexing " + spcId + " (" + speciesIds.indexOf(spcId) + ". out of " + speciesIds.size() +
+                        " in " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min)");
+                //the species' tables are garbage once it's done, no need to collect them here
+                speciesTimes.put(spcId, indexSpecies(spcId));
+            }
+        } else {
+            log.info("indexing " + speciesIds.size() + " species, up to " + threads + " at a time");
+            final AtomicInteger started = new AtomicInteger();
+            final HeapBudget budget = heapBudget != null ? heapBudget : HeapBudget.ofMegabytes(0);
+            final Map<Integer, Future<Long>> results = new SpeciesScheduler(budget, threads).run(footprints,
+                    new SpeciesScheduler.SpeciesTask<Long>() {
+                        @Override
+                        public Long run(Integer spcId) throws Exception {
+                            log.info("indexing " + spcId + " (" + started.incrementAndGet() + ". out of " + speciesIds.size() +
+                                    " in " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min)");
+                            return indexSpecies(spcId);
+                        }
+                    });
+            List<Integer> failed = new ArrayList<>();
+            for (Map.Entry<Integer, Future<Long>> e : results.entrySet()) {
+                try {
+                    speciesTimes.put(e.getKey(), e.getValue().get());
+                } catch (ExecutionException ex) {
+                    log.error("failed to index " + e.getKey(), ex.getCause());
+                    failed.add(e.getKey());
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new RuntimeException("failed to index species: " + failed);
+            }
+        }
+        if (delta) {
+            deleteSpeciesNotIn(allSpeciesIds);
+        }
+        if (checkpoint != null) {
+            final List<Integer> uncommitted = checkpoint.remaining(allSpeciesIds);
+            if (uncommitted.isEmpty()) {
+                checkpoint.complete();
+            } else {
+                log.warn("commit failed for " + uncommitted + ", run again to resume from " + checkpoint);
+            }
+        }
+        logSummary(speciesTimes, System.currentTimeMillis() - start);
+        stats.logSummary();
+    }
+
+    /**
+     * @return estimated heap needed to index each species, see {@link SpeciesScheduler#estimateFootprints}
+     */
+    Map<Integer, Long> estimateFootprints(List<Integer> speciesIds) {
+        return SpeciesScheduler.estimateFootprints(db, speciesIds, fingerprints);
+    }
+
+    /**
+     * @return time spent on this species, in milliseconds
+     */
+    long indexSpecies(Integer spcId) throws Exception {
+        long spc = System.currentTimeMillis();
+        //taken before any of the tables are loaded, so unchanged species cost only the fingerprint queries
+        final String fingerprint = fingerprints == null ? null : SpeciesFingerprints.of(db, spcId);
+        if (delta && fingerprint.equals(fingerprints.get(spcId))) {
+            log.info(spcId + " didn't change since it was indexed, skipping");
+            if (checkpoint != null) {
+                checkpoint.committed(spcId);
+            }
+            return System.currentTimeMillis() - spc;
+        }
+        final List<StringdbRowBuilder> rowBuilders = rowBuilders().build(spcId, uniprotIds,
+                pipeline != null ? pipelineWorkers : 1);
+        long interactionCount;
+        final IndexingStats speciesStats = stats.forSpecies(spcId);
+        boolean committed = false;
+        try {
+            final boolean partial = checkpoint != null && checkpoint.getPartial().contains(spcId);
+            if (partial || delta) {
+                //not visible until the species' commit, species aren't indexed concurrently in delta mode so no other
+                //commit comes in between, and searchers switch from old to new documents at once
+                log.info("deleting previously indexed documents of " + spcId);
+                searchServer.deleteSpecies(spcId);
+            }
+            if (checkpoint != null) {
+                checkpoint.started(spcId);
+            }
+            if (pipeline != null) {
+                DataReader<StringDbScores> scoresReader = db.scores(spcId, AppProperties.instance.scoresReader,
+                    AppProperties.instance.scoresPartitions);
+                log.info("scores reader created, sending to solr through " + pipelineWorkers + " row builders...");
+                interactionCount = pipeline.index(spcId, scoresReader, rowBuilders, speciesStats);
+                logCaches(rowBuilders.get(0));
+            } else {
+                interactionCount = indexSerially(spcId, rowBuilders.get(0), speciesStats);
+            }
+            committed = commit(spcId, speciesStats.stage(IndexingStats.Stage.COMMIT));
+            if (committed) {
+                if (fingerprints != null) {
+                    fingerprints.put(spcId, fingerprint);
+                }
+                if (checkpoint != null) {
+                    checkpoint.committed(spcId);
+                }
+            }
+        } finally {
+            if (!committed && solrIndex != null) {
+                //the pooled thread goes on with another species, which mustn't send (or wait for) these documents
+                solrIndex.discard();
+            }
+        }
+        final long time = System.currentTimeMillis() - spc;
+        log.info(spcId + " total interactions: " + interactionCount + ", done in: " + (time / (1000 * 60)) + "min");
+        speciesStats.logSummary();
+        return time;
+    }
+
+    /**
+     * remove species that were indexed in an earlier run but aren't there anymore
+     */
+    private void deleteSpeciesNotIn(List<Integer> speciesIds) {
+        final Set<Integer> gone = fingerprints.getSpecies();
+        gone.removeAll(speciesIds);
+        for (Integer spcId : gone) {
+            log.info(spcId + " is not indexed anymore, deleting its documents");
+            searchServer.deleteSpecies(spcId);
+        }
+        if (!gone.isEmpty()) {
+            searchServer.commit(false);
+            for (Integer spcId : gone) {
+                fingerprints.remove(spcId);
+            }
+        }
+    }
 
-        for (Integer spcId : speciesIds) {
-            int interactionCount = 1;
-            log.info("indexing " + spcId + " (" + speciesIds.indexOf(spcId) + ". out of " + speciesIds.size() +
-                    " in " + ((System.currentTimeMillis() - start) / (1000 * 60)) + "min)");
-            long spc = System.currentTimeMillis();
+    private StringdbRowBuilder.Builder rowBuilders() {
+        return StringdbRowBuilder.builder(db).withRogidStore(rogidStore)
+                .withFieldCache(AppProperties.instance.fieldCacheEntries).withTableLoader(tableLoader);
+    }
 
-            StringdbRowBuilder stringdbRowBuilder = StringdbRowBuilder.builder(db).build(spcId, uniprotIds);
-            StringDbScoresDataReader scoresReader = new StringDbScoresDataReader(db, AppProperties.instance.getJdbcTemplate(), spcId);
-            log.info("scores reader created, sending to solr...");
+    private long indexSerially(Integer spcId, StringdbRowBuilder stringdbRowBuilder, IndexingStats stats) {
+        final IndexingStats.StageStats readStats = stats.stage(IndexingStats.Stage.READ);
+        final IndexingStats.StageStats buildStats = stats.stage(IndexingStats.Stage.BUILD);
+        final IndexingStats.StageStats convertStats = stats.stage(IndexingStats.Stage.CONVERT);
+        final IndexingStats.StageStats sendStats = stats.stage(IndexingStats.Stage.SEND);
+        long interactionCount = 0;
+        DataReader<StringDbScores> scoresReader = db.scores(spcId, AppProperties.instance.scoresReader,
+                AppProperties.instance.scoresPartitions);
+        log.info("scores reader created, sending to solr...");
+        try {
+            long start = System.nanoTime();
             while (scoresReader.next()) {
-                final StringDbScores stringDbScores = scoresReader.get();
-                for (Row row : stringdbRowBuilder.build(stringDbScores)) {
-                    searchServer.add(row);
-                    if (interactionCount++ % 20000 == 0) {
-//                            commit(spcId);
-                        log.trace(interactionCount + " docs indexed");
+                final StringDbScores scores = scoresReader.get();
+                readStats.add(1, start);
+                start = System.nanoTime();
+                final List<Row> rows = stringdbRowBuilder.build(scores);
+                buildStats.add(rows.size(), start);
+                start = System.nanoTime();
+                //converted first, so that converting isn't counted as sending (same stages as the pipeline's)
+                List<SolrInputDocument> docs = null;
+                if (solrIndex != null) {
+                    try {
+                        docs = solrIndex.toSolrDocuments(rows);
+                    } catch (RuntimeException e) {
+                        convertStats.error();
+                        throw e;
                     }
-
+                    convertStats.add(docs.size(), start);
+                    start = System.nanoTime();
                 }
+                try {
+                    if (docs != null) {
+                        solrIndex.addDocuments(spcId, docs);
+                    } else {
+                        searchServer.addAll(rows);
+                    }
+                } catch (RuntimeException e) {
+                    sendStats.error();
+                    throw e;
+                }
+                sendStats.add(rows.size(), start);
+                interactionCount += rows.size();
+                start = System.nanoTime();
+            }
+        } finally {
+            scoresReader.close();
+        }
+        logCaches(stringdbRowBuilder);
+        return interactionCount;
+    }
+
+    /**
+     * hit rates of the caches shared by a species' row builders
+     */
+    static void logCaches(StringdbRowBuilder rowBuilder) {
+        if (log.isDebugEnabled()) {
+            log.debug((rowBuilder.getRogids() == null ? "ROGIDs not cached" : rowBuilder.getRogids()) + "; " +
+                    (rowBuilder.getFieldCache() == null ? "protein fields not cached" : rowBuilder.getFieldCache()));
+        }
+    }
+
+    /**
+     * Log wall-clock time against the time spent on each species (the slowest ones first),
+     * the ratio of the two is the speedup gained by indexing species concurrently.
+     */
+    private void logSummary(Map<Integer, Long> speciesTimes, long wallClock) {
+        long total = 0;
+        final List<Map.Entry<Integer, Long>> slowest = new ArrayList<>(speciesTimes.entrySet());
+        for (Map.Entry<Integer, Long> e : slowest) {
+            total += e.getValue();
+        }
+        Collections.sort(slowest, new Comparator<Map.Entry<Integer, Long>>() {
+            @Override
+            public int compare(Map.Entry<Integer, Long> o1, Map.Entry<Integer, Long> o2) {
+                return o2.getValue().compareTo(o1.getValue());
             }
-            commit(spcId);
-            log.info(spcId + " total interactions: " + interactionCount + ", done in: " + ((System.currentTimeMillis() - spc) / (1000 * 60)) + "min");
-            System.gc();
+        });
+        log.info(speciesTimes.size() + " species indexed in: " + (wallClock / 1000) + "sec, sum of per species times: " +
+                (total / 1000) + "sec, speedup: " + String.format("%.1f", wallClock == 0 ? 1.0 : (double) total / wallClock));
+        for (Map.Entry<Integer, Long> e : slowest) {
+            log.info("\t" + e.getKey() + ": " + (e.getValue() / 1000) + "sec");
         }
     }
 
-    private void commit(Integer spcId) throws SolrServerException, IOException {
+    /**
+     * @return false if the commit failed, the species then stays unfinished in the checkpoint
+     */
+    private boolean commit(Integer spcId, IndexingStats.StageStats commitStats) throws SolrServerException, IOException {
+        final long start = System.nanoTime();
         try {
             searchServer.commit(false);
+            commitStats.add(1, start);
+            return true;
         } catch (RuntimeException e) {
+            commitStats.error();
             log.error("error indexing '" + spcId +
                     "':\n\t: " + e.getMessage());
-
+            return false;
         }
     }
 
@@ -121,6 +466,10 @@ public class StringdbSolrIndexer {
      * @return
      */
     private boolean indexDummyInteraction() {
+        if (delta || (checkpoint != null && !checkpoint.isEmpty())) {
+            log.info("updating the existing index, not touching it");
+            return true;
+        }
         try {
             searchServer.deleteAll();
             searchServer.commit(true);
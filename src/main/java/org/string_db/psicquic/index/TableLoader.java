@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a species' lookup tables at the same time, on a small pool shared by all species (so the no. of
+ * extra db connections stays small however many species run), and logs how long each table took.
+ * Setting up a species then takes about as long as its slowest table rather than all of them together.
+ */
+class TableLoader {
+    private static final Logger log = Logger.getLogger(TableLoader.class);
+    /**
+     * loads the tables one after another, on the calling thread
+     */
+    static final TableLoader CALLING_THREAD = new TableLoader(null);
+
+    /**
+     * null to load on the calling thread
+     */
+    private final ExecutorService executor;
+
+    private TableLoader(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @param threads no. of tables loaded at the same time (by all species), 0 to load them on the calling thread
+     */
+    static TableLoader withThreads(int threads) {
+        if (threads <= 0) {
+            return CALLING_THREAD;
+        }
+        return new TableLoader(Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "table-loader-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+    }
+
+    /**
+     * @return a new set of tables of one species
+     */
+    Tables tables(Integer speciesId) {
+        return new Tables(speciesId);
+    }
+
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tables of one species, loading.
+     */
+    class Tables {
+        private final Integer speciesId;
+        private final long start = System.currentTimeMillis();
+        private final Map<String, Long> times = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+        private final Map<String, Future<?>> loading = new LinkedHashMap<>();
+
+        private Tables(Integer speciesId) {
+            this.speciesId = speciesId;
+        }
+
+        /**
+         * Start loading a table.
+         *
+         * @param name   to log its time with
+         * @param loader
+         */
+        <T> Future<T> load(final String name, final Callable<T> loader) {
+            final FutureTask<T> task = new FutureTask<>(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    final long tableStart = System.currentTimeMillis();
+                    final T table = loader.call();
+                    times.put(name, System.currentTimeMillis() - tableStart);
+                    return table;
+                }
+            });
+            loading.put(name, task);
+            if (executor == null) {
+                task.run();
+            } else {
+                executor.execute(task);
+            }
+            return task;
+        }
+
+        /**
+         * Wait for a table; if it failed the others aren't needed anymore and are cancelled.
+         *
+         * @throws Exception the table loader's
+         */
+        <T> T get(Future<T> table) throws Exception {
+            try {
+                return table.get();
+            } catch (ExecutionException e) {
+                cancel();
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (InterruptedException e) {
+                cancel();
+                throw e;
+            }
+        }
+
+        private void cancel() {
+            for (Future<?> table : loading.values()) {
+                table.cancel(true);
+            }
+        }
+
+        /**
+         * Log the time of each table, call once they're all there.
+         */
+        void loaded() {
+            final StringBuilder tables = new StringBuilder();
+            synchronized (times) {
+                for (Map.Entry<String, Long> e : times.entrySet()) {
+                    tables.append(tables.length() == 0 ? "" : ", ").append(e.getKey()).append('=').append(e.getValue()).append("ms");
+                }
+            }
+            log.info(speciesId + ": " + times.size() + " tables loaded in " + (System.currentTimeMillis() - start) +
+                    "ms (" + tables + ")");
+        }
+    }
+}
@@ -18,13 +18,12 @@
 
 package org.string_db.psicquic.index;
 
-import org.apache.log4j.Logger;
+import org.hupo.psi.calimocho.model.Field;
+import org.hupo.psi.calimocho.tab.util.Mitab25ColumnKeys;
+import org.hupo.psi.calimocho.tab.util.Mitab26ColumnKeys;
 import org.string_db.ProteinExternalId;
-import uk.ac.ebi.intact.irefindex.seguid.RogidGenerator;
-import uk.ac.ebi.intact.irefindex.seguid.SeguidException;
 
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Base class for all {@link FieldBuilder}s
@@ -84,6 +83,66 @@ abstract class TwoProteinsFieldBuilder extends FieldBuilder {
 }
 
 
+/**
+ * Builds the same fields for a protein whether it's interactor A or B, and in every pair,
+ * so they can be reused, see {@link ProteinFieldCache}.
+ */
+abstract class PerProteinFieldBuilder extends TwoProteinsFieldBuilder {
+    static final Field[] NO_FIELDS = new Field[0];
+    /**
+     * null to build fields for every pair
+     */
+    private ProteinFieldCache fieldCache;
+
+    protected PerProteinFieldBuilder() {
+    }
+
+    protected PerProteinFieldBuilder(FieldBuilder next) {
+        super(next);
+    }
+
+    /**
+     * Reuse the fields built for a protein, instead of building them for every pair it's in.
+     *
+     * @param fieldCache shared by the species' builders
+     * @return this instance
+     */
+    PerProteinFieldBuilder cachingFields(ProteinFieldCache fieldCache) {
+        this.fieldCache = fieldCache;
+        return this;
+    }
+
+    /**
+     * @return the protein's fields, from the cache if there is one
+     */
+    protected Field[] fields(Integer proteinId) {
+        if (fieldCache == null) {
+            return buildFields(proteinId);
+        }
+        Field[] fields = fieldCache.get(proteinId, fieldGroup());
+        if (fields == null) {
+            fields = buildFields(proteinId);
+            fieldCache.put(proteinId, fieldGroup(), fields);
+        }
+        return fields;
+    }
+
+    /**
+     * @return fields of the protein, the same for interactor A and B
+     */
+    protected abstract Field[] buildFields(Integer proteinId);
+
+    /**
+     * @return one of the {@link ProteinFieldCache} groups
+     */
+    protected abstract int fieldGroup();
+
+    static Field[] toArray(List<Field> fields) {
+        return fields.isEmpty() ? NO_FIELDS : fields.toArray(new Field[fields.size()]);
+    }
+}
+
+
 /**
  * Adds <a href='http://www.ebi.ac.uk/ontology-lookup/?termId=MI%3A1014'>string</a> external ids
  * and optionally <a href='http://www.ebi.ac.uk/ontology-lookup/?termId=MI%3A0486'>UniProtKB</a> ids as
@@ -96,41 +155,48 @@ abstract class TwoProteinsFieldBuilder extends FieldBuilder {
  * @author Milan Simonovic <milan.simonovic@imls.uzh.ch>
  * @see <a href='http://www.ebi.ac.uk/ontology-lookup/browse.do?ontName=MI&termId=MI:0444&termName=database%20citation'></a>
  */
-class IdsFieldBuilder extends TwoProteinsFieldBuilder {
-    protected final Map<Integer, ProteinExternalId> proteins;
-    protected final Map<Integer, String> uniprotids;
+class IdsFieldBuilder extends PerProteinFieldBuilder {
+    protected final IntTable<ProteinExternalId> proteins;
+    protected final IntTable<String> uniprotids;
 
     IdsFieldBuilder(Map<Integer, ProteinExternalId> proteins, Map<Integer, String> uniprotids, FieldBuilder next) {
         super(next);
-        this.proteins = proteins;
-        this.uniprotids = uniprotids;
+        this.proteins = IntTable.copyOf(proteins);
+        this.uniprotids = IntTable.copyOf(uniprotids);
     }
 
     IdsFieldBuilder(Map<Integer, ProteinExternalId> proteins, Map<Integer, String> uniprotids) {
+        this(IntTable.copyOf(proteins), IntTable.copyOf(uniprotids));
+    }
+
+    IdsFieldBuilder(IntTable<ProteinExternalId> proteins, IntTable<String> uniprotids) {
         this.proteins = proteins;
         this.uniprotids = uniprotids;
     }
 
     @Override
     protected void appendInteractors(RowBuilder rowBuilder) {
-        checkIfExternalIdsExist();
-        rowBuilder.withIdA(proteins.get(getFirstProteinId()));
-        rowBuilder.withIdB(proteins.get(getSecondProteinId()));
-        if (uniprotids.containsKey(getFirstProteinId())) {
-            rowBuilder.withIdA(uniprotids.get(getFirstProteinId()));
-        }
-        if (uniprotids.containsKey(getSecondProteinId())) {
-            rowBuilder.withIdB(uniprotids.get(getSecondProteinId()));
-        }
+        final Field[] idsA = fields(getFirstProteinId());
+        final Field[] idsB = fields(getSecondProteinId());
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_ID_A, idsA);
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_ID_B, idsB);
     }
 
-    private void checkIfExternalIdsExist() {
-        if (!proteins.containsKey(getFirstProteinId())) {
-            throw new IllegalArgumentException("no external id found for " + getFirstProteinId());
-        }
-        if (!proteins.containsKey(getSecondProteinId())) {
-            throw new IllegalArgumentException("no external id  found for " + getSecondProteinId());
+    @Override
+    protected Field[] buildFields(Integer proteinId) {
+        final ProteinExternalId externalId = proteins.get(proteinId);
+        if (externalId == null) {
+            throw new IllegalArgumentException("no external id found for " + proteinId);
         }
+        final String uniprotId = uniprotids.get(proteinId);
+        return uniprotId == null
+                ? new Field[]{RowBuilder.idField(externalId)}
+                : new Field[]{RowBuilder.idField(externalId), RowBuilder.idField(uniprotId)};
+    }
+
+    @Override
+    protected int fieldGroup() {
+        return ProteinFieldCache.IDS;
     }
 }
 
@@ -142,32 +208,42 @@ class IdsFieldBuilder extends TwoProteinsFieldBuilder {
  *
  * @author Milan Simonovic <milan.simonovic@imls.uzh.ch>
  */
-class AliasFieldBuilder extends TwoProteinsFieldBuilder {
-    private final Map<Integer, String> proteinNames;
+class AliasFieldBuilder extends PerProteinFieldBuilder {
+    private final IntTable<String> proteinNames;
 
     AliasFieldBuilder(Map<Integer, String> proteinNames) {
+        this(IntTable.copyOf(proteinNames));
+    }
+
+    AliasFieldBuilder(IntTable<String> proteinNames) {
         this.proteinNames = proteinNames;
     }
 
     AliasFieldBuilder(Map<Integer, String> proteinNames, FieldBuilder next) {
         super(next);
-        this.proteinNames = proteinNames;
+        this.proteinNames = IntTable.copyOf(proteinNames);
     }
 
     @Override
     protected void appendInteractors(RowBuilder rowBuilder) {
-        checkIfNamesExist();
-        rowBuilder.withAliasA("string", proteinNames.get(getFirstProteinId()));
-        rowBuilder.withAliasB("string", proteinNames.get(getSecondProteinId()));
+        final Field[] aliasA = fields(getFirstProteinId());
+        final Field[] aliasB = fields(getSecondProteinId());
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_ALIAS_A, aliasA);
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_ALIAS_B, aliasB);
     }
 
-    private void checkIfNamesExist() {
-        if (!proteinNames.containsKey(getFirstProteinId())) {
-            throw new IllegalArgumentException("no name found for " + getFirstProteinId());
-        }
-        if (!proteinNames.containsKey(getSecondProteinId())) {
-            throw new IllegalArgumentException("no name found for " + getFirstProteinId());
+    @Override
+    protected Field[] buildFields(Integer proteinId) {
+        final String name = proteinNames.get(proteinId);
+        if (name == null) {
+            throw new IllegalArgumentException("no name found for " + proteinId);
         }
+        return new Field[]{RowBuilder.defaultField("string", name)};
+    }
+
+    @Override
+    protected int fieldGroup() {
+        return ProteinFieldCache.ALIASES;
     }
 }
 
@@ -179,30 +255,54 @@ class AliasFieldBuilder extends TwoProteinsFieldBuilder {
  * @author Milan Simonovic <milan.simonovic@imls.uzh.ch>
  *         TODO add Ensembl ids
  */
-class RefseqAlternativeIdsFieldBuilder extends TwoProteinsFieldBuilder {
-    private final Map<Integer, Set<String>> stringdbRefseqIds;
+class RefseqAlternativeIdsFieldBuilder extends PerProteinFieldBuilder {
+    private final IntTable<String[]> stringdbRefseqIds;
 
     public RefseqAlternativeIdsFieldBuilder(Map<Integer, Set<String>> stringdbRefseqIds) {
+        this(toArrays(stringdbRefseqIds));
+    }
+
+    RefseqAlternativeIdsFieldBuilder(IntTable<String[]> stringdbRefseqIds) {
         this.stringdbRefseqIds = stringdbRefseqIds;
     }
 
     public RefseqAlternativeIdsFieldBuilder(Map<Integer, Set<String>> stringdbRefseqIds, FieldBuilder next) {
         super(next);
-        this.stringdbRefseqIds = stringdbRefseqIds;
+        this.stringdbRefseqIds = toArrays(stringdbRefseqIds);
+    }
+
+    /**
+     * a set per protein costs a lot more than an array, the order of ids is kept
+     */
+    static IntTable<String[]> toArrays(Map<Integer, Set<String>> ids) {
+        final Map<Integer, String[]> arrays = new HashMap<>((int) (ids.size() / 0.75) + 1);
+        for (Map.Entry<Integer, Set<String>> e : ids.entrySet()) {
+            arrays.put(e.getKey(), e.getValue().toArray(new String[e.getValue().size()]));
+        }
+        return IntTable.copyOf(arrays);
     }
 
     @Override
     protected void appendInteractors(RowBuilder rowBuilder) {
-        if (stringdbRefseqIds.containsKey(getFirstProteinId())) {
-            for (String altId : stringdbRefseqIds.get(getFirstProteinId())) {
-                rowBuilder.withAltIdA("refseq", altId);
-            }
-        }
-        if (stringdbRefseqIds.containsKey(getSecondProteinId())) {
-            for (String altId : stringdbRefseqIds.get(getSecondProteinId())) {
-                rowBuilder.withAltIdB("refseq", altId);
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_ALTID_A, fields(getFirstProteinId()));
+        rowBuilder.withFields(Mitab25ColumnKeys.KEY_ALTID_B, fields(getSecondProteinId()));
+    }
+
+    @Override
+    protected Field[] buildFields(Integer proteinId) {
+        final String[] altIds = stringdbRefseqIds.get(proteinId);
+        final List<Field> fields = new ArrayList<>();
+        if (altIds != null) {
+            for (String altId : altIds) {
+                fields.add(RowBuilder.defaultField("refseq", altId));
             }
         }
+        return toArray(fields);
+    }
+
+    @Override
+    protected int fieldGroup() {
+        return ProteinFieldCache.ALT_IDS;
     }
 }
 
@@ -215,29 +315,50 @@ class RefseqAlternativeIdsFieldBuilder extends TwoProteinsFieldBuilder {
  * @author Milan Simonovic <milan.simonovic@imls.uzh.ch>
  * @see <a href='https://docs.google.com/document/pub?id=11HpddNs-Bt5a4KOPGCXWivJ4MROYFbY2nhpk4PkvbTA'>Data Distribution Best Practices</a>
  */
-class RogidFieldBuilder extends TwoProteinsFieldBuilder {
+class RogidFieldBuilder extends PerProteinFieldBuilder {
 
-    private static final Logger log = Logger.getLogger(RogidFieldBuilder.class);
+    private final RogidCache rogids;
 
-    private final RogidGenerator rogidGenerator = new RogidGenerator();
+    RogidFieldBuilder(Integer speciesId, Map<Integer, String> proteinSequences) {
+        this(speciesId, IntTable.copyOf(proteinSequences));
+    }
 
-    private final String taxid;
-    private final Map<Integer, String> proteinSequences;
+    RogidFieldBuilder(Integer speciesId, IntTable<String> proteinSequences) {
+        this(new RogidCache(speciesId, proteinSequences));
+    }
 
-    RogidFieldBuilder(Integer speciesId, Map<Integer, String> proteinSequences) {
-        this.taxid = speciesId.toString();
-        this.proteinSequences = proteinSequences;
+    /**
+     * @param rogids can be shared by builders of the same species, see {@link StringdbRowBuilder.Builder}
+     */
+    RogidFieldBuilder(RogidCache rogids) {
+        this.rogids = rogids;
+    }
+
+    RogidCache getRogids() {
+        return rogids;
     }
 
     @Override
     protected void appendInteractors(RowBuilder rowBuilder) {
-        try {
-            final String rogidA = rogidGenerator.calculateRogid(proteinSequences.get(getFirstProteinId()), taxid);
-            final String rogidB = rogidGenerator.calculateRogid(proteinSequences.get(getSecondProteinId()), taxid);
-            rowBuilder.withChecksumA(rogidA);
-            rowBuilder.withChecksumB(rogidB);
-        } catch (SeguidException e) {
-            log.error("error calculating checksum for " + getFirstProteinId() + " - " + getSecondProteinId(), e);
+        final Field[] rogidA = fields(getFirstProteinId());
+        final Field[] rogidB = fields(getSecondProteinId());
+        if (rogidA.length > 0 && rogidB.length > 0) {
+            rowBuilder.withFields(Mitab26ColumnKeys.KEY_CHECKSUM_A, rogidA);
+            rowBuilder.withFields(Mitab26ColumnKeys.KEY_CHECKSUM_B, rogidB);
         }
     }
+
+    /**
+     * @return no fields if the ROGID can't be calculated
+     */
+    @Override
+    protected Field[] buildFields(Integer proteinId) {
+        final String rogid = rogids.get(proteinId);
+        return rogid == null ? NO_FIELDS : new Field[]{RowBuilder.checksumField(rogid)};
+    }
+
+    @Override
+    protected int fieldGroup() {
+        return ProteinFieldCache.ROGIDS;
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveSolrSenderTest {
+    final AdaptiveSolrSender idle = new AdaptiveSolrSender(new SolrServerConnectionTest.RecordingSolrServer(), 8);
+
+    @Test
+    public void sends_all_batches() throws Exception {
+        final SolrServerConnectionTest.RecordingSolrServer solrServer = new SolrServerConnectionTest.RecordingSolrServer();
+        final AdaptiveSolrSender sender = new AdaptiveSolrSender(solrServer, 4);
+        final List<Future<?>> tickets = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tickets.add(sender.send(Arrays.asList(new SolrInputDocument(), new SolrInputDocument())));
+        }
+        AdaptiveSolrSender.await(tickets);
+        sender.shutdown();
+
+        assertEquals(50, solrServer.batches.size());
+        assertEquals(100, sender.getDocsSent());
+        assertTrue(sender.getThreads() >= 1 && sender.getThreads() <= 4);
+    }
+
+    @Test
+    public void failed_batch_only_fails_its_own_ticket() throws Exception {
+        final AdaptiveSolrSender sender = new AdaptiveSolrSender(new SolrServerConnectionTest.RecordingSolrServer() {
+            @Override
+            public UpdateResponse add(Collection<SolrInputDocument> docs) {
+                if (docs.size() == 1) {
+                    throw new IllegalStateException("bad document");
+                }
+                return super.add(docs);
+            }
+        }, 2);
+        final Future<?> bad = sender.send(Arrays.asList(new SolrInputDocument()));
+        final Future<?> good = sender.send(Arrays.asList(new SolrInputDocument(), new SolrInputDocument()));
+        try {
+            AdaptiveSolrSender.await(Arrays.<Future<?>>asList(bad));
+            fail("batch failed");
+        } catch (RuntimeException e) {
+            assertEquals("bad document", e.getCause().getMessage());
+        }
+        AdaptiveSolrSender.await(Arrays.<Future<?>>asList(good));
+        //and later batches still go through
+        AdaptiveSolrSender.await(Arrays.<Future<?>>asList(sender.send(Arrays.asList(new SolrInputDocument(), new SolrInputDocument()))));
+        sender.shutdown();
+    }
+
+    @Test
+    public void adds_threads_while_throughput_grows() throws Exception {
+        assertEquals(2, idle.getThreads());
+        idle.adjust(0, 1000, true);
+        assertEquals(3, idle.getThreads());
+        idle.adjust(5000, 1400, true);
+        assertEquals(4, idle.getThreads());
+        idle.shutdown();
+    }
+
+    @Test
+    public void takes_back_a_thread_that_did_not_pay_off() throws Exception {
+        idle.adjust(0, 1000, true);
+        assertEquals(3, idle.getThreads());
+        idle.adjust(5000, 1020, true);
+        assertEquals(2, idle.getThreads());
+        //and holds on for a while
+        idle.adjust(10000, 1020, true);
+        assertEquals(2, idle.getThreads());
+        idle.adjust(10000 + AdaptiveSolrSender.HOLD_MS, 1020, true);
+        assertEquals(3, idle.getThreads());
+        idle.shutdown();
+    }
+
+    @Test
+    public void throttles_once_throughput_drops() throws Exception {
+        idle.adjust(0, 1000, true);
+        idle.adjust(5000, 1400, true);
+        assertEquals(4, idle.getThreads());
+        idle.adjust(10000, 300, true);
+        assertEquals(2, idle.getThreads());
+        assertEquals(2 * AdaptiveSolrSender.BATCHES_PER_THREAD, idle.getQueueCapacity());
+        idle.shutdown();
+    }
+
+    @Test
+    public void left_alone_while_nothing_waits_to_be_sent() throws Exception {
+        idle.adjust(0, 1000, true);
+        idle.adjust(5000, 10, false);
+        idle.adjust(10000, 10, false);
+        assertEquals(3, idle.getThreads());
+        assertEquals(1000, idle.getBestDocsPerSecond(), 100);
+        idle.shutdown();
+    }
+}
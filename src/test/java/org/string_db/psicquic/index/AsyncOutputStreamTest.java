@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.*;
+
+public class AsyncOutputStreamTest {
+
+    @Test
+    public void writes_everything_in_order() throws Exception {
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final AsyncOutputStream async = new AsyncOutputStream(out, "test-writer");
+        for (int i = 0; i < 200000; i++) {
+            final byte[] line = ("9606.ENSP" + i + "\n").getBytes("UTF-8");
+            async.write(line, 0, line.length);
+            expected.write(line, 0, line.length);
+        }
+        async.write('x');
+        expected.write('x');
+        async.close();
+
+        assertArrayEquals(expected.toByteArray(), out.toByteArray());
+    }
+
+    @Test(timeout = 10000)
+    public void flushing_full_buffers_does_not_grow_the_pool() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final AsyncOutputStream async = new AsyncOutputStream(out, "test-writer");
+        final byte[] full = new byte[AsyncOutputStream.BUFFER_SIZE];
+        for (int i = 0; i < 4 * AsyncOutputStream.BUFFERS; i++) {
+            full[0] = (byte) i;
+            async.write(full);
+            async.flush();
+        }
+        async.write(full);
+        async.close();
+
+        final byte[] written = out.toByteArray();
+        assertEquals((4 * AsyncOutputStream.BUFFERS + 1) * AsyncOutputStream.BUFFER_SIZE, written.length);
+        assertEquals(3, written[3 * AsyncOutputStream.BUFFER_SIZE]);
+    }
+
+    @Test
+    public void failed_write_fails_close() throws Exception {
+        final AsyncOutputStream async = new AsyncOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("disk full");
+            }
+        }, "test-writer");
+        try {
+            async.write(new byte[10 * AsyncOutputStream.BUFFER_SIZE]);
+            async.close();
+            fail("failure should be rethrown");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BgzfOutputStreamTest {
+
+    @Test
+    public void gzip_reads_all_blocks() throws Exception {
+        final byte[] data = new byte[3 * BgzfOutputStream.MAX_BLOCK_INPUT + 123];
+        //half random (incompressible), half repetitive
+        new Random(42).nextBytes(data);
+        Arrays.fill(data, data.length / 2, data.length, (byte) 'A');
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BgzfOutputStream bgzf = new BgzfOutputStream(out);
+        bgzf.write(data, 0, 1000);
+        bgzf.write(data, 1000, data.length - 1000);
+        bgzf.close();
+
+        assertArrayEquals(data, gunzip(out.toByteArray()));
+    }
+
+    @Test
+    public void blocks_carry_their_size_and_file_ends_with_eof_block() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BgzfOutputStream bgzf = new BgzfOutputStream(out);
+        bgzf.write(new byte[2 * BgzfOutputStream.MAX_BLOCK_INPUT]);
+        bgzf.close();
+        final byte[] file = out.toByteArray();
+
+        int blocks = 0;
+        int at = 0;
+        while (at < file.length) {
+            assertEquals(0x1f, file[at] & 0xff);
+            assertEquals(0x8b, file[at + 1] & 0xff);
+            assertEquals('B', file[at + 12]);
+            assertEquals('C', file[at + 13]);
+            at += (file[at + 16] & 0xff | (file[at + 17] & 0xff) << 8) + 1;
+            blocks++;
+        }
+        assertEquals(file.length, at);
+        assertEquals(3, blocks);
+        assertArrayEquals(BgzfOutputStream.EOF_BLOCK,
+                Arrays.copyOfRange(file, file.length - BgzfOutputStream.EOF_BLOCK.length, file.length));
+    }
+
+    static byte[] gunzip(byte[] compressed) throws Exception {
+        final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
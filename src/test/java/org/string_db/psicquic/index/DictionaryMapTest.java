@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DictionaryMapTest {
+
+    @Test
+    public void values_are_kept_once() throws Exception {
+        final Map<String, String> sets = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            sets.put("biogrid:" + i, "grid");
+            sets.put("hprd:" + i, "hprd");
+            sets.put("BCID:" + i, "bind");
+        }
+        final DictionaryMap cut = DictionaryMap.copyOf(sets);
+        assertEquals(30000, cut.size());
+        assertEquals(3, cut.dictionarySize());
+        assertEquals("grid", cut.get("biogrid:193"));
+        assertEquals("hprd", cut.get("hprd:9999"));
+        assertNull(cut.get("hprd:10000"));
+        assertNull(cut.get(null));
+        assertEquals(sets, cut);
+        assertEquals(cut, sets);
+    }
+
+    @Test
+    public void empty_map() throws Exception {
+        final DictionaryMap cut = DictionaryMap.copyOf(new HashMap<String, String>());
+        assertEquals(0, cut.size());
+        assertNull(cut.get("hprd:35158"));
+        assertTrue(cut.entrySet().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void read_only() throws Exception {
+        DictionaryMap.copyOf(ImmutableMap.of("hprd:35158", "hprd")).put("grid:1", "grid");
+    }
+}
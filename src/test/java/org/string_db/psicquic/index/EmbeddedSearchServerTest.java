@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.hupo.psi.mi.psicquic.indexing.batch.reader.MitabCalimochoLineMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EmbeddedSearchServerTest {
+    static final File SOLR_HOME = new File("docs/solr-home");
+    final String interaction = "string:9606.ENSP00000000233|uniprotkb:P84085\tstring:9606.ENSP00000254584|uniprotkb:Q15027\trefseq:NM_001662|refseq:NP_001653.1\trefseq:XM_290852\tstring:\"ARF5\"\tstring:\"ARFIP2\"\tpsi-mi:\"MI:0045\"(experimental interaction detection)\t-\t-\ttaxid:9606(Homo sapiens)\ttaxid:9606(Homo sapiens)\t-\tpsi-mi:\"MI:0463\"(grid)\tbiogrid:193555\tscore:771";
+    final MitabCalimochoLineMapper lineMapper = new MitabCalimochoLineMapper();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected = ExceptionInInitializerError.class)
+    public void needs_a_solr_home() throws Exception {
+        EmbeddedSearchServer.open(folder.newFolder("solr-home"), folder.newFolder("index"), 64, 10, 100, 1);
+    }
+
+    @Test
+    public void builds_a_finished_index_in_its_data_dir() throws Exception {
+        final File dataDir = folder.newFolder("index");
+        EmbeddedSearchServer server = EmbeddedSearchServer.open(SOLR_HOME, dataDir, 16, 10, 100, 1);
+        server.addAll(Arrays.asList(lineMapper.mapLine(interaction, 1), lineMapper.mapLine(interaction, 2)));
+        server.commit(true);
+        assertEquals(Long.valueOf(2), server.countIndexedDocuments());
+        server.close();
+        assertTrue(new File(dataDir, "index").isDirectory());
+
+        server = EmbeddedSearchServer.open(SOLR_HOME, dataDir, 16, 10, 100, 0);
+        try {
+            assertEquals(Long.valueOf(2), server.countIndexedDocuments());
+            server.deleteSpecies(9606);
+            server.commit(true);
+            assertEquals(Long.valueOf(0), server.countIndexedDocuments());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void servers_keep_their_own_data_dirs() throws Exception {
+        final EmbeddedSearchServer first = EmbeddedSearchServer.open(SOLR_HOME, folder.newFolder("first"), 16, 10, 100, 0);
+        final EmbeddedSearchServer second = EmbeddedSearchServer.open(SOLR_HOME, folder.newFolder("second"), 16, 10, 100, 0);
+        try {
+            first.addAll(Arrays.asList(lineMapper.mapLine(interaction, 1)));
+            first.commit(true);
+            second.commit(true);
+            assertEquals(Long.valueOf(1), first.countIndexedDocuments());
+            assertEquals(Long.valueOf(0), second.countIndexedDocuments());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+}
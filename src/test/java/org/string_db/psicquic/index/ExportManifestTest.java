@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ExportManifestTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void describes_existing_file() throws Exception {
+        final File file = new File(folder.getRoot(), "9606-mitab.txt");
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write("hello\nworld\n".getBytes("UTF-8"));
+        out.close();
+
+        final ExportManifest.Entry entry = ExportManifest.describe(file);
+        assertEquals(2, entry.rows);
+        assertEquals(12, entry.bytes);
+        //md5sum of the same content
+        assertEquals("0f723ae7f9bf07744445e93ac5595156", entry.md5);
+    }
+
+    @Test
+    public void entries_survive_a_restart() throws Exception {
+        final File file = new File(folder.getRoot(), "manifest.txt");
+        new ExportManifest(file).put("9606-mitab.txt", new ExportManifest.Entry(2, 12, "0f723ae7f9bf07744445e93ac5595156"));
+
+        final ExportManifest reloaded = new ExportManifest(file);
+        assertEquals("2\t12\t0f723ae7f9bf07744445e93ac5595156", reloaded.get("9606-mitab.txt").toString());
+        assertNull(reloaded.get("4932-mitab.txt"));
+    }
+}
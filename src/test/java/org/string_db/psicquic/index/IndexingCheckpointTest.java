@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class IndexingCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void new_checkpoint_is_empty() throws Exception {
+        final IndexingCheckpoint checkpoint = new IndexingCheckpoint(new File(folder.getRoot(), "checkpoint.txt"));
+        assertTrue(checkpoint.isEmpty());
+        assertEquals(Arrays.asList(9606, 511145), checkpoint.remaining(Arrays.asList(9606, 511145)));
+    }
+
+    @Test
+    public void resumes_from_first_unfinished_species() throws Exception {
+        final File file = new File(folder.getRoot(), "checkpoint.txt");
+        final IndexingCheckpoint run = new IndexingCheckpoint(file);
+        run.started(9606);
+        run.committed(9606);
+        run.started(511145);
+
+        final IndexingCheckpoint resumed = new IndexingCheckpoint(file);
+        assertFalse(resumed.isEmpty());
+        assertTrue(resumed.isCommitted(9606));
+        assertEquals(Collections.singleton(511145), resumed.getPartial());
+        assertEquals(Arrays.asList(511145, 4932), resumed.remaining(Arrays.asList(9606, 511145, 4932)));
+    }
+
+    @Test
+    public void ignores_a_torn_last_line() throws Exception {
+        final File file = new File(folder.getRoot(), "checkpoint.txt");
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write("started 9606\ncommitted 9606\nstarted 4932\ncommi".getBytes("UTF-8"));
+        out.close();
+
+        final IndexingCheckpoint checkpoint = new IndexingCheckpoint(file);
+        assertTrue(checkpoint.isCommitted(9606));
+        assertFalse(checkpoint.isCommitted(4932));
+        assertEquals(Collections.singleton(4932), checkpoint.getPartial());
+    }
+
+    @Test
+    public void ends_a_torn_line_before_appending() throws Exception {
+        final File file = new File(folder.getRoot(), "checkpoint.txt");
+        final FileOutputStream out = new FileOutputStream(file);
+        out.write("started 9606\ncommitted 9606\nstarted 4932\ncommi".getBytes("UTF-8"));
+        out.close();
+
+        new IndexingCheckpoint(file).committed(4932);
+
+        final IndexingCheckpoint resumed = new IndexingCheckpoint(file);
+        assertTrue(resumed.isCommitted(4932));
+        assertTrue(resumed.getPartial().isEmpty());
+    }
+
+    @Test
+    public void complete_run_is_forgotten() throws Exception {
+        final File file = new File(folder.getRoot(), "checkpoint.txt");
+        final IndexingCheckpoint run = new IndexingCheckpoint(file);
+        run.started(9606);
+        run.committed(9606);
+        run.complete();
+
+        assertFalse(file.exists());
+        assertTrue(run.isEmpty());
+        assertTrue(new IndexingCheckpoint(file).isEmpty());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.string_db.EvidenceType;
+import org.string_db.StringDbScores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IndexingPipelineTest {
+    final SolrServerConnectionTest.RecordingSolrServer solrServer = new SolrServerConnectionTest.RecordingSolrServer();
+    final IndexingPipeline cut = new IndexingPipeline(new SolrServerConnection(solrServer, 300), 2);
+
+    @Test(timeout = 10000)
+    public void every_row_is_handed_over_before_index_returns() throws Exception {
+        final long count = cut.index(9606, new ScoresReader(1000), rowBuilders(3, -1));
+
+        assertEquals(1000, count);
+        //only what didn't fill a batch is still buffered
+        assertEquals(900, sum(solrServer.batches));
+    }
+
+    @Test(timeout = 10000)
+    public void nothing_to_read() throws Exception {
+        assertEquals(0, cut.index(9606, new ScoresReader(0), rowBuilders(2, -1)));
+        assertEquals(0, solrServer.batches.size());
+    }
+
+    @Test(timeout = 10000)
+    public void reader_failure_fails_the_species() throws Exception {
+        final RuntimeException readError = new RuntimeException("connection reset");
+        try {
+            cut.index(9606, new ScoresReader(Integer.MAX_VALUE) {
+                @Override
+                public boolean next() {
+                    if (read.get() == 250) {
+                        throw readError;
+                    }
+                    return super.next();
+                }
+            }, rowBuilders(2, -1));
+            fail("reader failed");
+        } catch (RuntimeException e) {
+            assertSame(readError, e.getCause());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void row_builder_failure_stops_the_other_stages() throws Exception {
+        final ScoresReader reader = new ScoresReader(Integer.MAX_VALUE);
+        try {
+            cut.index(9606, reader, rowBuilders(2, 300));
+            fail("row builder failed");
+        } catch (RuntimeException e) {
+            assertEquals("can't build 300", e.getCause().getMessage());
+        }
+        //the reader was blocked on a full queue, it must not go on reading
+        final int read = reader.read.get();
+        Thread.sleep(100);
+        assertEquals(read, reader.read.get());
+        assertTrue("reader closed", reader.closed);
+    }
+
+    private static int sum(List<Integer> batches) {
+        int sum = 0;
+        for (Integer batch : batches) {
+            sum += batch;
+        }
+        return sum;
+    }
+
+    /**
+     * @param failOn protein A of the pair the builders fail on, -1 to never fail
+     */
+    private static List<StringdbRowBuilder> rowBuilders(int count, final int failOn) {
+        final List<StringdbRowBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            builders.add(new StringdbRowBuilder(new ConfidenceColumnBuilder(null) {
+                @Override
+                Map<EvidenceType, RowBuilder> buildRowForEachEvidenceType(StringDbScores scores) {
+                    if (scores.getProteinA() == failOn) {
+                        throw new IllegalStateException("can't build " + failOn);
+                    }
+                    return ImmutableMap.of(EvidenceType.NEIGHBOURHOOD, new RowBuilder().withConfidence(771));
+                }
+            }, new InteractorTypeFieldBuilder()));
+        }
+        return builders;
+    }
+
+    static class ScoresReader implements DataReader<StringDbScores> {
+        final AtomicInteger read = new AtomicInteger();
+        final int size;
+        volatile boolean closed;
+
+        ScoresReader(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean next() {
+            return read.incrementAndGet() <= size;
+        }
+
+        @Override
+        public StringDbScores get() {
+            return StringDbScores.builder(read.get(), read.get() + 1).build();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
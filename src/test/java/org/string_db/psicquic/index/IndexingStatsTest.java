@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.Assert.*;
+
+public class IndexingStatsTest {
+
+    @Test
+    public void species_add_up() throws Exception {
+        final IndexingStats all = new IndexingStats();
+        final IndexingStats human = all.forSpecies(9606);
+        final IndexingStats mouse = all.forSpecies(10090);
+        human.stage(IndexingStats.Stage.READ).add(100, System.nanoTime());
+        mouse.stage(IndexingStats.Stage.READ).add(50, System.nanoTime());
+        mouse.stage(IndexingStats.Stage.SEND).error();
+
+        assertEquals(100, human.stage(IndexingStats.Stage.READ).getRows());
+        assertEquals(150, all.stage(IndexingStats.Stage.READ).getRows());
+        assertEquals(0, human.stage(IndexingStats.Stage.SEND).getErrors());
+        assertEquals(1, all.stage(IndexingStats.Stage.SEND).getErrors());
+        assertEquals(0, all.stage(IndexingStats.Stage.BUILD).getRowsPerSecond(), 0);
+    }
+
+    @Test
+    public void queue_depths_of_all_species() throws Exception {
+        final IndexingStats all = new IndexingStats();
+        final BlockingQueue<Integer> humanQueue = new ArrayBlockingQueue<>(10);
+        final BlockingQueue<Integer> mouseQueue = new ArrayBlockingQueue<>(10);
+        all.forSpecies(9606).watch(IndexingStats.SCORES_QUEUE, humanQueue);
+        all.forSpecies(10090).watch(IndexingStats.SCORES_QUEUE, mouseQueue);
+        humanQueue.put(1);
+        humanQueue.put(2);
+        mouseQueue.put(3);
+        assertEquals(3, all.queueDepth(IndexingStats.SCORES_QUEUE));
+        assertEquals(20, all.queueCapacity(IndexingStats.SCORES_QUEUE));
+
+        all.unwatch(IndexingStats.SCORES_QUEUE, humanQueue);
+        assertEquals(1, all.queueDepth(IndexingStats.SCORES_QUEUE));
+        assertEquals(0, all.queueDepth(IndexingStats.DOCS_QUEUE));
+    }
+
+    @Test
+    public void visible_in_jmx() throws Exception {
+        final IndexingStats all = new IndexingStats();
+        all.registerMBeans();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(IndexingStats.JMX_DOMAIN + ":type=IndexingStage,name=build");
+        try {
+            all.stage(IndexingStats.Stage.BUILD).add(42, System.nanoTime());
+            assertEquals(42L, server.getAttribute(name, "Rows"));
+            assertTrue(server.isRegistered(new ObjectName(IndexingStats.JMX_DOMAIN + ":type=IndexingQueue,name=docs")));
+        } finally {
+            for (ObjectName registered : server.queryNames(new ObjectName(IndexingStats.JMX_DOMAIN + ":*"), null)) {
+                server.unregisterMBean(registered);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class IntTableTest {
+
+    @Test
+    public void contiguous_ids_go_into_an_array() throws Exception {
+        final IntTable<String> table = IntTable.copyOf(ImmutableMap.of(975673, "ARF5", 975674, "M6PR", 975676, "ESRRA"));
+        assertTrue(table.isDense());
+        assertEquals(3, table.size());
+        assertEquals("ARF5", table.get(975673));
+        assertEquals("ESRRA", table.get(975676));
+        assertNull(table.get(975675));
+        assertNull(table.get(975672));
+        assertNull(table.get(975677));
+        assertFalse(table.containsKey(-1));
+    }
+
+    @Test
+    public void spread_out_ids_are_hashed() throws Exception {
+        final Map<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i * 1013, i);
+        }
+        final IntTable<Integer> table = IntTable.copyOf(map);
+        assertFalse(table.isDense());
+        assertEquals(10000, table.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Integer.valueOf(i), table.get(i * 1013));
+            assertNull(table.get(i * 1013 + 1));
+        }
+    }
+
+    @Test
+    public void empty_table() throws Exception {
+        final IntTable<String> table = IntTable.copyOf(new HashMap<Integer, String>());
+        assertEquals(0, table.size());
+        assertNull(table.get(1));
+    }
+
+    @Test
+    public void builder_grows_and_picks_the_layout() throws Exception {
+        final IntTable.Builder<Integer> dense = new IntTable.Builder<>(1);
+        final IntTable.Builder<Integer> spread = new IntTable.Builder<>(1);
+        for (int i = 0; i < 1000; i++) {
+            dense.put(975673 + i, i);
+            spread.put(i * 1013, i);
+        }
+        assertTrue(dense.build().isDense());
+        final IntTable<Integer> table = spread.build();
+        assertFalse(table.isDense());
+        assertEquals(1000, table.size());
+        assertEquals(Integer.valueOf(999), table.get(999 * 1013));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicate_keys_are_rejected() throws Exception {
+        new IntTable.Builder<String>().put(975673, "ARF5").put(975673, "M6PR").build();
+    }
+
+    @Test
+    public void for_each_visits_all_entries() throws Exception {
+        final Map<Integer, String> map = ImmutableMap.of(975673, "ARF5", 975674, "M6PR", 1, "ESRRA");
+        final Map<Integer, String> visited = new HashMap<>();
+        IntTable.copyOf(map).forEach(new IntTable.Visitor<String>() {
+            @Override
+            public void visit(int key, String value) {
+                visited.put(key, value);
+            }
+        });
+        assertEquals(map, visited);
+    }
+}
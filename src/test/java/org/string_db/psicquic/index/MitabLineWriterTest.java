@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.hupo.psi.calimocho.model.Row;
+import org.hupo.psi.calimocho.tab.io.DefaultRowWriter;
+import org.hupo.psi.calimocho.tab.util.MitabDocumentDefinitionFactory;
+import org.junit.Test;
+import org.string_db.EvidenceType;
+import org.string_db.ProteinExternalId;
+import org.string_db.StringDbScores;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class MitabLineWriterTest {
+
+    final Map<Integer, Set<String>> proteinsSets = ImmutableMap.<Integer, Set<String>>of(
+            975673, ImmutableSet.of("biogrid:193555", "hprd:35158", "BCID:11510"),
+            975854, ImmutableSet.of("biogrid:193555", "BCID:11510"),
+            1847, ImmutableSet.of("hprd:35158"));
+    final Map<String, String> setsCollections = ImmutableMap.of(
+            "hprd:35158", "hrpd", "biogrid:193555", "grid", "BCID:11510", "bind");
+
+    final StringdbRowBuilder rowBuilder = new StringdbRowBuilder(
+            new ConfidenceColumnBuilder(new SourceDbLookup(proteinsSets, setsCollections)),
+            new IdsFieldBuilder(ImmutableMap.of(
+                    975673, new ProteinExternalId("9606.ENSP00000000233"),
+                    975854, new ProteinExternalId("9606.ENSP00000254584"),
+                    1847, new ProteinExternalId("9606.ENSP00000356737")),
+                    ImmutableMap.of(975673, "P84085", 975854, "Q15027"))
+                    .chain(new RefseqAlternativeIdsFieldBuilder(ImmutableMap.<Integer, Set<String>>of(
+                            975673, ImmutableSet.of("NP_001653.1", "NP_001171539.1"))))
+                    .chain(new AliasFieldBuilder(ImmutableMap.of(975673, "ARF5", 975854, "ACAP1", 1847, "PIK3C2B")))
+                    .chain(new MultipleTaxonNamesFieldBuilder(9606, Arrays.asList("Homo sapiens", "human")))
+                    .chain(new InteractorTypeFieldBuilder())
+    );
+
+    final List<StringDbScores> pairs = Arrays.asList(
+            StringDbScores.builder(975673, 975854)
+                    .with(EvidenceType.EXPERIMENTAL, 900).with(EvidenceType.DATABASE, 800)
+                    .with(EvidenceType.TEXTMINING, 450).with(EvidenceType.COEXPRESSION, 300).build(),
+            StringDbScores.builder(975673, 1847)
+                    .with(EvidenceType.DATABASE, 999).with(EvidenceType.FUSION, 400).build(),
+            StringDbScores.builder(975854, 1847).with(EvidenceType.NEIGHBOURHOOD, 1000).build());
+
+    @Test
+    public void writes_the_same_lines_as_default_row_writer() throws Exception {
+        final DefaultRowWriter rowWriter = new DefaultRowWriter(MitabDocumentDefinitionFactory.mitab25());
+        assertSameLines(rowWriter, rowBuilder, new MitabLineWriter(rowWriter, rowBuilder));
+    }
+
+    @Test
+    public void proteins_evicted_from_the_cache_are_written_again() throws Exception {
+        final DefaultRowWriter rowWriter = new DefaultRowWriter(MitabDocumentDefinitionFactory.mitab25());
+        assertSameLines(rowWriter, rowBuilder, new MitabLineWriter(rowWriter, rowBuilder, 1));
+    }
+
+    @Test
+    public void failed_rogid_drops_both_checksums() throws Exception {
+        //no sequence for 1847, so its ROGID can't be calculated
+        final StringdbRowBuilder withRogids = new StringdbRowBuilder(rowBuilder.scoresParser,
+                new IdsFieldBuilder(ImmutableMap.of(
+                        975673, new ProteinExternalId("9606.ENSP00000000233"),
+                        975854, new ProteinExternalId("9606.ENSP00000254584"),
+                        1847, new ProteinExternalId("9606.ENSP00000356737")),
+                        ImmutableMap.<Integer, String>of())
+                        .chain(new InteractorTypeFieldBuilder())
+                        .chain(new RogidFieldBuilder(9606, ImmutableMap.of(
+                                975673, "MGLTVSALFSRIFGKKQMRILMVGLDAAGKTTILYKLKLGEIVTTIPTIGFNVETVEYKNICFTVWDVGGQDKIRPLWRHYFQNTQGLIFVVDSNDRERVQESADELQKMLQEDELRDAVLLVFANKQDMPNAMPVSELTDKLGLQHLRSRTWYVQATCATQGTGLYDGLDWLSHELSKR",
+                                975854, "MTVKLDFEECLKDSPRFRASIELVEAEVSELETRLEKLLKLGTGLLESGRHYLAASRAFVVGICDLARLGPPEPMMAECLEKFTVSLNHKLDSHAELLDATQHTLQQQIQTLVKEGLRGFREARRDFWRGAESLEAALTHNAEVPRRRAQEAEEAGAALRTARAGYRGRALDYALQINVIEDKRKFDIMEFVLRLVEAQATHFQQGHEELSRLSQYRKELGAQLHQLVLNSAREKRDMEQRHVLLKQKELGGEEPEPSLREGPGGLVMEGHLFKRASNAFKTWSRRWFTIQSNQLVYQKKYKDPVTVVVDDLRLCTVKLCPDSERRFCFEVVSTSRSCLLQADSERLLQLWVSAVQSSIASAFSQARLDDSPRGPGQGSGHLAISTAHRLLRWRLAPYCCPCRSC"))));
+        final DefaultRowWriter rowWriter = new DefaultRowWriter(MitabDocumentDefinitionFactory.mitab26());
+        assertSameLines(rowWriter, withRogids, new MitabLineWriter(rowWriter, withRogids));
+    }
+
+    private void assertSameLines(DefaultRowWriter rowWriter, StringdbRowBuilder rowBuilder, MitabLineWriter cut)
+            throws Exception {
+        final StringBuilder expected = new StringBuilder();
+        int expectedLines = 0;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int lines = 0;
+        for (StringDbScores scores : pairs) {
+            for (Row row : rowBuilder.build(scores)) {
+                expected.append(rowWriter.writeLine(row));
+                expectedLines++;
+            }
+            lines += cut.write(scores, out);
+        }
+        assertEquals(expectedLines, lines);
+        assertEquals(expected.toString(), out.toString("UTF-8"));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.string_db.EvidenceType;
+import org.string_db.StringDbScores;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class PartitionedScoresDataReaderTest {
+
+    static Callable<DataReader<StringDbScores>> partition(final int from, final int to) {
+        return partition(from, to, new CountDownLatch(1));
+    }
+
+    /**
+     * @param closed counted down when the partition's reader is closed
+     */
+    static Callable<DataReader<StringDbScores>> partition(final int from, final int to, final CountDownLatch closed) {
+        return new Callable<DataReader<StringDbScores>>() {
+            @Override
+            public DataReader<StringDbScores> call() throws Exception {
+                return new DataReader<StringDbScores>() {
+                    int proteinA = from - 1;
+
+                    @Override
+                    public boolean next() {
+                        return ++proteinA < to;
+                    }
+
+                    @Override
+                    public StringDbScores get() {
+                        return StringDbScores.builder(proteinA, proteinA + 1).with(EvidenceType.TEXTMINING, 500).build();
+                    }
+
+                    @Override
+                    public void close() {
+                        closed.countDown();
+                    }
+                };
+            }
+        };
+    }
+
+    @Test
+    public void merges_all_partitions() throws Exception {
+        final int perPartition = IndexingPipeline.CHUNK_SIZE * 3 + 7;
+        final List<Callable<DataReader<StringDbScores>>> partitions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            partitions.add(partition(i * perPartition, (i + 1) * perPartition));
+        }
+        final PartitionedScoresDataReader cut = new PartitionedScoresDataReader(partitions);
+        final Set<Integer> proteins = new HashSet<>();
+        while (cut.next()) {
+            assertTrue(proteins.add(cut.get().getProteinA()));
+        }
+        assertEquals(4 * perPartition, proteins.size());
+    }
+
+    @Test
+    public void no_partitions() throws Exception {
+        final PartitionedScoresDataReader cut = new PartitionedScoresDataReader(
+                Collections.<Callable<DataReader<StringDbScores>>>emptyList());
+        assertFalse(cut.next());
+    }
+
+    @Test(expected = DataRetrievalFailureException.class)
+    public void failed_partition_fails_the_reader() throws Exception {
+        final List<Callable<DataReader<StringDbScores>>> partitions = new ArrayList<>();
+        partitions.add(partition(0, 10));
+        partitions.add(new Callable<DataReader<StringDbScores>>() {
+            @Override
+            public DataReader<StringDbScores> call() throws Exception {
+                throw new IllegalStateException("connection refused");
+            }
+        });
+        final PartitionedScoresDataReader cut = new PartitionedScoresDataReader(partitions);
+        while (cut.next()) {
+            cut.get();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void failed_partition_closes_the_others() throws Exception {
+        final CountDownLatch closed = new CountDownLatch(1);
+        final List<Callable<DataReader<StringDbScores>>> partitions = new ArrayList<>();
+        //more rows than the queue holds, so the partition waits for room
+        partitions.add(partition(0, Integer.MAX_VALUE, closed));
+        partitions.add(new Callable<DataReader<StringDbScores>>() {
+            @Override
+            public DataReader<StringDbScores> call() throws Exception {
+                throw new IllegalStateException("connection refused");
+            }
+        });
+        final PartitionedScoresDataReader cut = new PartitionedScoresDataReader(partitions);
+        try {
+            while (cut.next()) {
+                cut.get();
+            }
+            fail("a partition failed");
+        } catch (DataRetrievalFailureException e) {
+            assertEquals("connection refused", e.getCause().getMessage());
+        }
+        closed.await();
+    }
+
+    @Test(timeout = 10000)
+    public void close_stops_the_partitions() throws Exception {
+        final CountDownLatch closed = new CountDownLatch(2);
+        final PartitionedScoresDataReader cut = new PartitionedScoresDataReader(Arrays.asList(
+                partition(0, Integer.MAX_VALUE / 2, closed), partition(Integer.MAX_VALUE / 2, Integer.MAX_VALUE, closed)));
+        assertTrue(cut.next());
+        cut.get();
+        cut.close();
+        closed.await();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void next_twice_without_get() throws Exception {
+        final PartitionedScoresDataReader cut = new PartitionedScoresDataReader(
+                Collections.singletonList(partition(0, 10)));
+        cut.next();
+        cut.next();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Test;
+import org.string_db.StringDbScores;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PgCopyScoresDataReaderTest {
+    static final int INT4_OID = 23;
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+
+    void header() throws Exception {
+        out.write(PgCopyScoresDataReader.SIGNATURE);
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    void row(int proteinA, int proteinB, int[][] scores) throws Exception {
+        out.writeShort(3);
+        out.writeInt(4);
+        out.writeInt(proteinA);
+        out.writeInt(4);
+        out.writeInt(proteinB);
+        array(scores);
+    }
+
+    /**
+     * int[][] as written by array_send()
+     */
+    void array(int[][] scores) throws Exception {
+        final ByteArrayOutputStream array = new ByteArrayOutputStream();
+        final DataOutputStream a = new DataOutputStream(array);
+        a.writeInt(2);
+        a.writeInt(0);
+        a.writeInt(INT4_OID);
+        a.writeInt(scores.length);
+        a.writeInt(1);
+        a.writeInt(scores[0].length);
+        a.writeInt(1);
+        for (int[] row : scores) {
+            for (int value : row) {
+                a.writeInt(4);
+                a.writeInt(value);
+            }
+        }
+        out.writeInt(array.size());
+        out.write(array.toByteArray());
+    }
+
+    PgCopyScoresDataReader reader() throws Exception {
+        return new PgCopyScoresDataReader(new ByteArrayInputStream(bytes.toByteArray()),
+                Collections.<Integer, String>emptyMap());
+    }
+
+    @Test
+    public void reads_all_rows() throws Exception {
+        header();
+        row(975673, 975854, new int[][]{{1, 900}, {13, 450}});
+        row(975673, 1847, new int[][]{{7, 999}});
+        out.writeShort(-1);
+
+        final PgCopyScoresDataReader reader = reader();
+        assertTrue(reader.next());
+        StringDbScores scores = reader.get();
+        assertEquals(Integer.valueOf(975673), scores.getProteinA());
+        assertEquals(Integer.valueOf(975854), scores.getProteinB());
+        assertTrue(reader.next());
+        scores = reader.get();
+        assertEquals(Integer.valueOf(1847), scores.getProteinB());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void decodes_score_arrays() throws Exception {
+        array(new int[][]{{1, 900}, {13, 450}, {7, 400}});
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        final Integer[][] scores = PgCopyScoresDataReader.readIntArray(in);
+        assertEquals(3, scores.length);
+        assertArrayEquals(new Integer[]{1, 900}, scores[0]);
+        assertArrayEquals(new Integer[]{13, 450}, scores[1]);
+        assertArrayEquals(new Integer[]{7, 400}, scores[2]);
+    }
+
+    @Test
+    public void empty_species() throws Exception {
+        header();
+        out.writeShort(-1);
+        assertFalse(reader().next());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void not_binary_copy() throws Exception {
+        out.writeBytes("975673\t975854\t{{1,900}}\n");
+        reader();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void get_before_next() throws Exception {
+        header();
+        out.writeShort(-1);
+        reader().get();
+    }
+}
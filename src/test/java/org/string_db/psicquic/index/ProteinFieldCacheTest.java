@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.hupo.psi.calimocho.model.Field;
+import org.junit.Test;
+import org.string_db.ProteinExternalId;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.string_db.psicquic.index.RowBuilderTest.assertRowsEquals;
+
+public class ProteinFieldCacheTest {
+
+    final ImmutableMap<Integer, ProteinExternalId> externalIds = ImmutableMap.of(
+            975673, new ProteinExternalId("9606.ENSP00000000233"),
+            975854, new ProteinExternalId("9606.ENSP00000254584"));
+    final ImmutableMap<Integer, String> uniprotIds = ImmutableMap.of(975673, "P84085");
+    final ImmutableMap<Integer, Set<String>> refseqIds = ImmutableMap.<Integer, Set<String>>of(
+            975673, ImmutableSet.of("NP_001653.1", "NP_001171539.1"));
+    final ImmutableMap<Integer, String> names = ImmutableMap.of(975673, "ARF5", 975854, "ACAP1");
+
+    FieldBuilder chain(ProteinFieldCache cache) {
+        final FieldBuilder chain = new IdsFieldBuilder(externalIds, uniprotIds).cachingFields(cache);
+        chain.chain(new RefseqAlternativeIdsFieldBuilder(refseqIds).cachingFields(cache));
+        chain.chain(new AliasFieldBuilder(names).cachingFields(cache));
+        return chain;
+    }
+
+    @Test
+    public void same_rows_as_without_cache() throws Exception {
+        final ProteinFieldCache cache = new ProteinFieldCache(2, 1024);
+        final FieldBuilder cached = chain(cache);
+        final FieldBuilder uncached = chain(null);
+        for (int i = 0; i < 2; i++) {
+            assertRowsEquals(uncached.proteins(975673, 975854).addTo(new RowBuilder()).build(),
+                    cached.proteins(975673, 975854).addTo(new RowBuilder()).build());
+            assertRowsEquals(uncached.proteins(975854, 975673).addTo(new RowBuilder()).build(),
+                    cached.proteins(975854, 975673).addTo(new RowBuilder()).build());
+        }
+        //3 groups of 2 proteins built once, then reused
+        assertEquals(6, cache.getMisses());
+        assertEquals(18, cache.getHits());
+    }
+
+    @Test
+    public void bounded() throws Exception {
+        final ProteinFieldCache cache = new ProteinFieldCache(1000000, 100);
+        assertEquals(64, cache.capacity());
+        final Field[] fields = {RowBuilder.idField("P84085")};
+        cache.put(1, ProteinFieldCache.IDS, fields);
+        assertSame(fields, cache.get(1, ProteinFieldCache.IDS));
+        assertNull(cache.get(1, ProteinFieldCache.ALIASES));
+        //same slot, replaces the first one
+        cache.put(1 + 64 / ProteinFieldCache.GROUPS, ProteinFieldCache.IDS, fields);
+        assertNull(cache.get(1, ProteinFieldCache.IDS));
+        assertSame(fields, cache.get(1 + 64 / ProteinFieldCache.GROUPS, ProteinFieldCache.IDS));
+    }
+}
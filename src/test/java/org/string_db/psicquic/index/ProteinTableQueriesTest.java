@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ProteinTableQueriesTest {
+
+    @Test
+    public void refseq_ids_grouped_by_protein() throws Exception {
+        final ProteinTableQueries.RefseqIds ids = new ProteinTableQueries.RefseqIds();
+        ids.add(1847, "NP_002637.3");
+        ids.add(975673, "NP_001171539.1");
+        ids.add(975673, "NP_001653.1");
+        ids.add(975673, "NP_001653.1");
+        final IntTable<String[]> table = ids.build();
+
+        assertEquals(2, table.size());
+        assertArrayEquals(new String[]{"NP_002637.3"}, table.get(1847));
+        assertArrayEquals(new String[]{"NP_001171539.1", "NP_001653.1"}, table.get(975673));
+    }
+
+    @Test
+    public void no_refseq_ids() throws Exception {
+        assertEquals(0, new ProteinTableQueries.RefseqIds().build().size());
+    }
+}
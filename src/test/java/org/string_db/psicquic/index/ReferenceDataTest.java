@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.string_db.DbFacade;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ReferenceDataTest {
+    final AtomicInteger loads = new AtomicInteger();
+    final DbFacade db = new DbFacade(null, null, null) {
+        @Override
+        public Map<Integer, String> loadScoreTypes() {
+            loads.incrementAndGet();
+            return ImmutableMap.of(6, "textmining", 13, "experimental");
+        }
+
+        @Override
+        public Map<String, String> loadSetsCollections() {
+            loads.incrementAndGet();
+            return ImmutableMap.of("hprd:35158", "hprd", "biogrid:193555", "grid", "grid:1", "grid");
+        }
+
+        @Override
+        public Map<Integer, Set<String>> loadUniProtLinkouts() {
+            loads.incrementAndGet();
+            return ImmutableMap.<Integer, Set<String>>of(
+                    975673, ImmutableSet.of("http://www.uniprot.org/uniprot/P84085"),
+                    975854, ImmutableSet.<String>of());
+        }
+    };
+
+    @Test
+    public void tables_are_loaded_once() throws Exception {
+        final ReferenceData cut = ReferenceData.of(db);
+        assertSame(cut, ReferenceData.of(db));
+        assertEquals("textmining", cut.scoreTypes().get(6));
+        assertEquals("grid", cut.setsCollections().get("biogrid:193555"));
+        assertEquals(ImmutableMap.of(975673, "P84085"), cut.uniprotIds());
+        for (int i = 0; i < 3; i++) {
+            ReferenceData.of(db).scoreTypes();
+            ReferenceData.of(db).setsCollections();
+            ReferenceData.of(db).uniprotIds();
+        }
+        assertEquals(3, loads.get());
+        assertTrue(cut.getEstimatedBytes() > 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void tables_are_read_only() throws Exception {
+        ReferenceData.of(db).scoreTypes().put(1, "neighbourhood");
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import uk.ac.ebi.intact.irefindex.seguid.RogidGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RogidCacheTest {
+
+    static final String ARF5 = "MGLTVSALFSRIFGKKQMRILMVGLDAAGKTTILYKLKLGEIVTTIPTIGFNVETVEYKN" +
+            "ICFTVWDVGGQDKIRPLWRHYFQNTQGLIFVVDSNDRERVQESADELQKMLQEDELRDAV" +
+            "LLVFANKQDMPNAMPVSELTDKLGLQHLRSRTWYVQATCATQGTGLYDGLDWLSHELSKR";
+    static final String M6PR = "MFPFYSCWRTGLLLLLLAVAVRESWQTEEKTCDLVGEKGKESEKELALVKRLKPLFNKSF";
+
+    final RogidCache cache = new RogidCache(9606, IntTable.copyOf(ImmutableMap.of(975673, ARF5, 975674, M6PR)));
+
+    @Test
+    public void calculated_once_per_protein() throws Exception {
+        final String expected = new RogidGenerator().calculateRogid(ARF5, "9606");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected, cache.get(975673));
+        }
+        assertEquals(new RogidGenerator().calculateRogid(M6PR, "9606"), cache.get(975674));
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void failures_are_remembered() throws Exception {
+        assertNull(cache.get(1));
+        assertNull(cache.get(1));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void shared_by_field_builders() throws Exception {
+        final RogidFieldBuilder first = new RogidFieldBuilder(cache);
+        final RogidFieldBuilder second = new RogidFieldBuilder(cache);
+        first.proteins(975673, 975674).addTo(new RowBuilder());
+        second.proteins(975674, 975673).addTo(new RowBuilder());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void no_lookups_yet() throws Exception {
+        assertEquals(0, cache.getHitRate(), 1e-9);
+    }
+}
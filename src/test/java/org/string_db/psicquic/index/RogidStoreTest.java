@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RogidStoreTest {
+
+    File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("rogids", ".bin");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    static byte[] md5(String sequence) throws Exception {
+        return MessageDigest.getInstance("MD5").digest(sequence.getBytes("US-ASCII"));
+    }
+
+    @Test
+    public void kept_between_runs() throws Exception {
+        RogidStore store = new RogidStore(file, 2);
+        store.put(md5("MGLTVSALFS"), 9606, "da8exbGR3MGxZ6CPZqLvqJbyUYI9606");
+        store.put(md5("MGLTVSALFS"), 10090, "da8exbGR3MGxZ6CPZqLvqJbyUYI10090");
+        store.close();
+
+        store = new RogidStore(file, 2);
+        assertEquals(2, store.size());
+        assertEquals("da8exbGR3MGxZ6CPZqLvqJbyUYI9606", store.get(md5("MGLTVSALFS"), 9606));
+        assertEquals("da8exbGR3MGxZ6CPZqLvqJbyUYI10090", store.get(md5("MGLTVSALFS"), 10090));
+        assertNull(store.get(md5("MGLTVSALFS"), 4932));
+        assertNull(store.get(md5("MTDGILGKAA"), 9606));
+        store.close();
+    }
+
+    @Test
+    public void replaces_existing() throws Exception {
+        final RogidStore store = new RogidStore(file, 2);
+        store.put(md5("MGLTVSALFS"), 9606, "old9606");
+        store.put(md5("MGLTVSALFS"), 9606, "new9606");
+        assertEquals(1, store.size());
+        assertEquals("new9606", store.get(md5("MGLTVSALFS"), 9606));
+        store.close();
+    }
+
+    @Test
+    public void grows() throws Exception {
+        RogidStore store = new RogidStore(file, 2);
+        final int n = RogidStore.INITIAL_CAPACITY;
+        for (int i = 0; i < n; i++) {
+            store.put(md5("SEQ" + i), 9606, "rogid" + i);
+        }
+        store.close();
+        store = new RogidStore(file, 2);
+        assertEquals(n, store.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals("rogid" + i, store.get(md5("SEQ" + i), 9606));
+        }
+        store.close();
+    }
+
+    @Test
+    public void slots_mapped_in_segments() throws Exception {
+        //16 slots per segment, so the initial capacity is already mapped in thousands of them
+        RogidStore store = new RogidStore(file, 2, 16);
+        final int n = RogidStore.INITIAL_CAPACITY;
+        for (int i = 0; i < n; i++) {
+            store.put(md5("SEQ" + i), 9606, "rogid" + i);
+        }
+        store.close();
+        store = new RogidStore(file, 2, 64);
+        assertEquals(n, store.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals("rogid" + i, store.get(md5("SEQ" + i), 9606));
+        }
+        store.close();
+    }
+
+    @Test
+    public void unused_entries_dropped_when_full() throws Exception {
+        final int half = RogidStore.INITIAL_CAPACITY / 2;
+        RogidStore store = new RogidStore(file, 1);
+        store.put(md5("MGLTVSALFS"), 9606, "da8exbGR3MGxZ6CPZqLvqJbyUYI9606");
+        for (int i = 1; i < half; i++) {
+            store.put(md5("OLD" + i), 9606, "old" + i);
+        }
+        store.close();
+        //next release: only one of the old sequences is still there
+        store = new RogidStore(file, 1);
+        assertEquals("da8exbGR3MGxZ6CPZqLvqJbyUYI9606", store.get(md5("MGLTVSALFS"), 9606));
+        store.close();
+        store = new RogidStore(file, 1);
+        store.put(md5("NEW"), 9606, "new9606");
+
+        assertEquals(RogidStore.INITIAL_CAPACITY, store.capacity());
+        assertEquals(2, store.size());
+        assertEquals("da8exbGR3MGxZ6CPZqLvqJbyUYI9606", store.get(md5("MGLTVSALFS"), 9606));
+        assertEquals("new9606", store.get(md5("NEW"), 9606));
+        assertNull(store.get(md5("OLD1"), 9606));
+        store.close();
+    }
+
+    @Test
+    public void other_format_starts_a_new_store() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+        final RogidStore store = new RogidStore(file, 2);
+        assertEquals(0, store.size());
+        store.put(md5("MGLTVSALFS"), 9606, "da8exbGR3MGxZ6CPZqLvqJbyUYI9606");
+        assertEquals("da8exbGR3MGxZ6CPZqLvqJbyUYI9606", store.get(md5("MGLTVSALFS"), 9606));
+        store.close();
+    }
+
+    @Test
+    public void digests_of_sequences_without_the_database() throws Exception {
+        final RogidStore store = new RogidStore(file, 2);
+        store.put(md5("MGLTVSALFS"), 9606, "da8exbGR3MGxZ6CPZqLvqJbyUYI9606");
+        final IntTable<String> sequences = IntTable.copyOf(ImmutableMap.of(975673, "MGLTVSALFS", 1847, "MTDGILGKAA"));
+
+        final Map<Integer, String> rogids = store.rogids(9606, sequences);
+        assertEquals("da8exbGR3MGxZ6CPZqLvqJbyUYI9606", rogids.get(975673));
+        assertEquals(2, rogids.size());
+        //the calculated one is stored under the same digest the database would give
+        assertEquals(rogids.get(1847), store.get(md5("MTDGILGKAA"), 9606));
+        store.close();
+    }
+
+    @Test
+    public void protein_ids_listed_in_the_query() throws Exception {
+        assertEquals("SELECT sequence FROM t WHERE protein_id IN (975673,1847)",
+                RogidStore.inList("SELECT sequence FROM t WHERE protein_id IN ", Arrays.asList(975673, 1847)));
+    }
+
+    @Test
+    public void postgres_md5() throws Exception {
+        assertArrayEquals(md5("MGLTVSALFS"), RogidStore.fromHex(ExportManifest.hex(md5("MGLTVSALFS"))));
+        //select md5('')
+        assertArrayEquals(md5(""), RogidStore.fromHex("d41d8cd98f00b204e9800998ecf8427e"));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ShardedSearchServerTest {
+
+    final Map<Integer, Long> interactions = ImmutableMap.<Integer, Long>builder()
+            .put(9606, 5876000L).put(10090, 5474000L).put(7227, 1430000L).put(4932, 1020000L)
+            .put(511145, 410000L).put(3702, 2940000L).put(6239, 1200000L).build();
+
+    @Test
+    public void largest_species_go_to_different_shards() throws Exception {
+        final Map<Integer, Integer> shards = ShardedSearchServer.balance(interactions, 2);
+        assertEquals(interactions.keySet(), shards.keySet());
+        assertFalse(shards.get(9606).equals(shards.get(10090)));
+        final long[] loads = new long[2];
+        for (Map.Entry<Integer, Integer> e : shards.entrySet()) {
+            loads[e.getValue()] += interactions.get(e.getKey());
+        }
+        //no shard gets more than the largest species over its fair share
+        assertTrue(Math.abs(loads[0] - loads[1]) <= 5876000L);
+    }
+
+    @Test
+    public void largest_species_first() throws Exception {
+        assertEquals(Integer.valueOf(9606), ShardedSearchServer.balance(interactions, 3).keySet().iterator().next());
+    }
+
+    @Test
+    public void species_are_routed_to_their_shard() throws Exception {
+        final Map<Integer, Integer> speciesShards = new HashMap<>();
+        speciesShards.put(9606, 0);
+        speciesShards.put(10090, 1);
+        final ShardedSearchServer cut = new ShardedSearchServer(
+                Collections.<EmbeddedSearchServer>nCopies(2, null), speciesShards, null, 1);
+        assertEquals(0, cut.shardOf(9606));
+        assertEquals(1, cut.shardOf(10090));
+        //not balanced, but always on the same shard
+        assertEquals(cut.shardOf(4932), cut.shardOf(4932));
+    }
+
+    @Test
+    public void species_sharing_a_shard_commit_their_own_documents() throws Exception {
+        final SolrServerConnectionTest.RecordingSolrServer solrServer = new SolrServerConnectionTest.RecordingSolrServer();
+        final Map<Integer, Integer> speciesShards = new HashMap<>();
+        speciesShards.put(9606, 0);
+        speciesShards.put(10090, 0);
+        final ShardedSearchServer cut = new ShardedSearchServer(
+                Collections.singletonList(new EmbeddedSearchServer(solrServer, null, null, 3, 0)), speciesShards, null, 1);
+        final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+        try {
+            //less than a batch, stays in the other thread's buffer
+            otherThread.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    cut.addDocuments(10090, Arrays.asList(new SolrInputDocument(), new SolrInputDocument()));
+                    return null;
+                }
+            }).get();
+            cut.addDocuments(9606, Arrays.asList(new SolrInputDocument(), new SolrInputDocument(), new SolrInputDocument()));
+            cut.commit(false);
+            assertEquals(Arrays.asList(3), solrServer.batches);
+            assertEquals(1, solrServer.commits);
+
+            otherThread.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    cut.commit(false);
+                    return null;
+                }
+            }).get();
+            assertEquals(Arrays.asList(3, 2), solrServer.batches);
+            assertEquals(2, solrServer.commits);
+        } finally {
+            otherThread.shutdown();
+        }
+    }
+}
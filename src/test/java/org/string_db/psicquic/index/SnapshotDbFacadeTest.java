@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.string_db.DbFacade;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SnapshotDbFacadeTest {
+
+    File dir;
+    SnapshotDbFacade cut;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("snapshots", "");
+        dir.delete();
+        dir.mkdir();
+        write(9606, true, "hprd:35158", "hprd", 975673, "P84085");
+        write(4932, false, "grid:1", "grid", 4932001, "P00001");
+        cut = new SnapshotDbFacade(dir);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    void write(int speciesId, boolean core, String set, String collection, int proteinId, String uniprotId) throws IOException {
+        final SpeciesSnapshot.Writer writer = new SpeciesSnapshot.Writer(SpeciesSnapshot.file(dir, speciesId), speciesId, core);
+        writer.section(SpeciesSnapshot.SPECIES_NAMES).strings(Collections.singletonList("species " + speciesId));
+        writer.section(SpeciesSnapshot.SCORE_TYPES).intStrings(ImmutableMap.of(6, "textmining"));
+        writer.section(SpeciesSnapshot.EXTERNAL_IDS).intStrings(ImmutableMap.of(proteinId, speciesId + ".P" + proteinId,
+                proteinId + 1, speciesId + ".P" + (proteinId + 1)));
+        writer.section(SpeciesSnapshot.ROGIDS).intStrings(ImmutableMap.of(proteinId, "rogid" + speciesId));
+        writer.section(SpeciesSnapshot.PROTEINS_SETS).intStringSets(ImmutableMap.<Integer, Set<String>>of(
+                proteinId, ImmutableSet.of(set, set + "0"), proteinId + 1, ImmutableSet.of(set)));
+        writer.section(SpeciesSnapshot.SETS_COLLECTIONS).stringStrings(ImmutableMap.of(set, collection));
+        writer.section(SpeciesSnapshot.UNIPROT_LINKOUTS).intStringSets(ImmutableMap.<Integer, Set<String>>of(
+                proteinId, ImmutableSet.of("http://www.uniprot.org/uniprot/" + uniprotId)));
+        writer.section(SpeciesSnapshot.FINGERPRINT).strings(Collections.singletonList("links=" + speciesId + ":0"));
+        writer.section(SpeciesSnapshot.SCORES);
+        writer.close();
+    }
+
+    @Test
+    public void species_from_files() throws Exception {
+        assertEquals(Arrays.asList(4932, 9606), cut.loadSpeciesIds());
+        assertEquals(Collections.singletonList(9606), cut.loadCoreSpecies());
+        assertEquals("species 4932", cut.loadSpeciesName(4932));
+    }
+
+    @Test
+    public void shared_tables_put_together() throws Exception {
+        assertEquals(ImmutableMap.of("hprd:35158", "hprd", "grid:1", "grid"), cut.loadSetsCollections());
+        assertEquals(2, cut.loadUniProtLinkouts().size());
+        assertEquals(ImmutableMap.of(6, "textmining"), cut.loadScoreTypes());
+    }
+
+    @Test
+    public void rogids_instead_of_sequences() throws Exception {
+        assertEquals(ImmutableMap.of(975673, "rogid9606"), cut.loadRogids(9606));
+        assertTrue(cut.loadProteinSequences(9606).isEmpty());
+        assertEquals("links=9606:0", SpeciesFingerprints.links(cut, 9606));
+    }
+
+    @Test
+    public void never_reads_the_database() throws Exception {
+        assertNull(cut.getJdbcTemplate());
+        //DbFacade's own loaders would go to the database
+        for (Method method : DbFacade.class.getDeclaredMethods()) {
+            if (Modifier.isPublic(method.getModifiers())) {
+                assertEquals(method.getName(), SnapshotDbFacade.class,
+                        SnapshotDbFacade.class.getMethod(method.getName(), method.getParameterTypes()).getDeclaringClass());
+            }
+        }
+    }
+
+    @Test
+    public void footprints_from_recorded_counts() throws Exception {
+        assertEquals(Long.valueOf(2), cut.loadProteinCount(9606));
+        //no RefSeq ids section
+        assertEquals(Long.valueOf(3), cut.loadSetEntryCount(9606));
+        assertEquals(ImmutableMap.of(9606, SpeciesScheduler.footprint(9606, 2, 3)),
+                SpeciesScheduler.estimateFootprints(cut, Collections.singletonList(9606), null));
+    }
+
+    @Test
+    public void snapshot_opened_once() throws Exception {
+        assertSame(cut.snapshot(9606), cut.snapshot(9606));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missing_species() throws Exception {
+        cut.loadProteinNames(10090);
+    }
+}
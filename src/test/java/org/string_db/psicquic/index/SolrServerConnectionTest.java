@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SolrServerConnectionTest {
+
+    final RecordingSolrServer solrServer = new RecordingSolrServer();
+    final SolrServerConnection cut = new SolrServerConnection(solrServer, 3);
+
+    @Test
+    public void sends_full_batches() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            cut.add(new SolrInputDocument());
+        }
+        assertEquals(Arrays.asList(3, 3), solrServer.batches);
+    }
+
+    @Test
+    public void commit_flushes_the_buffer() throws Exception {
+        cut.addDocuments(Arrays.asList(new SolrInputDocument(), new SolrInputDocument(),
+                new SolrInputDocument(), new SolrInputDocument()));
+        assertEquals(Arrays.asList(3), solrServer.batches);
+
+        cut.commit(false);
+        assertEquals(Arrays.asList(3, 1), solrServer.batches);
+        assertEquals(1, solrServer.commits);
+    }
+
+    @Test
+    public void nothing_to_flush() throws Exception {
+        cut.commit(false);
+        assertEquals(0, solrServer.batches.size());
+    }
+
+    @Test
+    public void failed_batch_fails_the_flush_of_its_own_thread_only() throws Exception {
+        final RecordingSolrServer server = new RecordingSolrServer() {
+            @Override
+            public UpdateResponse add(Collection<SolrInputDocument> docs) {
+                if (docs.iterator().next().getFieldValue("bad") != null) {
+                    throw new IllegalStateException("bad document");
+                }
+                return super.add(docs);
+            }
+        };
+        final SolrServerConnection connection = new SolrServerConnection(server, 2, new AdaptiveSolrSender(server, 2));
+        final AtomicReference<Throwable> otherThread = new AtomicReference<>();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final SolrInputDocument bad = new SolrInputDocument();
+                bad.setField("bad", true);
+                connection.addDocuments(Arrays.asList(bad, bad, bad));
+                try {
+                    connection.flush();
+                } catch (RuntimeException e) {
+                    otherThread.set(e.getCause());
+                }
+                //reported once, not to every later flush
+                connection.flush();
+            }
+        });
+        thread.start();
+        connection.addDocuments(Arrays.asList(new SolrInputDocument(), new SolrInputDocument(), new SolrInputDocument()));
+        thread.join();
+        connection.flush();
+        connection.close();
+
+        assertEquals("bad document", otherThread.get().getMessage());
+        //the good documents of this thread, bad batches aren't recorded
+        final List<Integer> sent = new ArrayList<>(server.batches);
+        Collections.sort(sent);
+        assertEquals(Arrays.asList(1, 2), sent);
+        assertTrue(server.shutdown);
+    }
+
+    @Test
+    public void discarded_documents_are_not_sent_with_the_next_species() throws Exception {
+        final RecordingSolrServer server = new RecordingSolrServer() {
+            @Override
+            public UpdateResponse add(Collection<SolrInputDocument> docs) {
+                if (docs.iterator().next().getFieldValue("bad") != null) {
+                    throw new IllegalStateException("bad document");
+                }
+                return super.add(docs);
+            }
+        };
+        final SolrServerConnection connection = new SolrServerConnection(server, 2, new AdaptiveSolrSender(server, 2));
+        final SolrInputDocument bad = new SolrInputDocument();
+        bad.setField("bad", true);
+        //one failed batch and one document left in the buffer, then the species fails
+        connection.addDocuments(Arrays.asList(bad, bad, bad));
+        connection.discard();
+
+        connection.add(new SolrInputDocument());
+        connection.commit(false);
+        connection.close();
+        assertEquals(Arrays.asList(1), server.batches);
+        assertEquals(1, server.commits);
+    }
+
+    @Test
+    public void close_releases_the_server() throws Exception {
+        cut.close();
+        assertTrue(solrServer.shutdown);
+    }
+
+    static UpdateResponse okResponse() {
+        final NamedList<Object> header = new NamedList<>();
+        header.add("status", 0);
+        header.add("QTime", 1);
+        final NamedList<Object> response = new NamedList<>();
+        response.add("responseHeader", header);
+        final UpdateResponse updateResponse = new UpdateResponse();
+        updateResponse.setResponse(response);
+        return updateResponse;
+    }
+
+    static class RecordingSolrServer extends SolrServer {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+        int commits = 0;
+        volatile boolean shutdown = false;
+
+        @Override
+        public UpdateResponse add(Collection<SolrInputDocument> docs) {
+            batches.add(docs.size());
+            return okResponse();
+        }
+
+        @Override
+        public UpdateResponse commit(boolean waitSearcher, boolean softCommit) {
+            commits++;
+            return okResponse();
+        }
+
+        @Override
+        public NamedList<Object> request(SolrRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+    }
+}
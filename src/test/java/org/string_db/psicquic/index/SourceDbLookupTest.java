@@ -18,6 +18,7 @@
 
 package org.string_db.psicquic.index;
 
+import com.google.common.collect.ImmutableSet;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -27,6 +28,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -39,7 +42,7 @@ public class SourceDbLookupTest {
     final Set<String> p2set = new HashSet();
     final Map<String, String> sc = new HashMap();
 
-    SourceDbLookup cut = new SourceDbLookup(ps, sc);
+    SourceDbLookup cut;
 
     @Before
     public void setUp() throws Exception {
@@ -60,6 +63,7 @@ public class SourceDbLookupTest {
         sc.put("biogrid:154256", "grid");
         sc.put("biogrid:193555", "grid");
         sc.put("BCID:11510", "bind");
+        cut = new SourceDbLookup(ps, sc);
     }
 
 
@@ -70,4 +74,28 @@ public class SourceDbLookupTest {
         assertTrue(sourceDbs.toString(), sourceDbs.contains(new Pair("MI:0463", "biogrid")));
         assertTrue(sourceDbs.toString(), sourceDbs.contains(new Pair("MI:0462", "bind")));
     }
+
+    @Test
+    public void shared_sets_without_known_collection() throws Exception {
+        ps.put(1847, ImmutableSet.of("hprd:35158", "PDB_2b6h"));
+        cut = new SourceDbLookup(ps, sc);
+        //hrpd is a typo'ed collection, PDB_2b6h has none
+        assertTrue(cut.getSourceDbs(975673, 1847).isEmpty());
+        assertTrue(cut.getSourceDbs(975854, 1847).isEmpty());
+    }
+
+    @Test
+    public void protein_without_sets() throws Exception {
+        assertTrue(cut.getSourceDbs(975673, 1).isEmpty());
+        assertTrue(cut.getSourceDbs(1, 975673).isEmpty());
+    }
+
+    @Test
+    public void pairs_with_the_same_source_dbs_share_the_result() throws Exception {
+        ps.put(1847, ImmutableSet.of("biogrid:154256", "BCID:11510", "hprd:35158"));
+        cut = new SourceDbLookup(ps, sc);
+        final Set<Pair<String, String>> sourceDbs = cut.getSourceDbs(975673, 975854);
+        assertSame(sourceDbs, cut.getSourceDbs(975854, 1847));
+        assertEquals(1, cut.getSourceDbs(975673, 1847).size());
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class SpeciesFingerprintsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fingerprints_survive_a_restart() throws Exception {
+        final File file = new File(folder.getRoot(), "fingerprints.txt");
+        final SpeciesFingerprints fingerprints = new SpeciesFingerprints(file);
+        fingerprints.put(9606, "links=10:123|proteins=3:abc");
+        fingerprints.put(4932, "links=5:-42|proteins=2:def");
+        fingerprints.remove(4932);
+
+        final SpeciesFingerprints reloaded = new SpeciesFingerprints(file);
+        assertEquals("links=10:123|proteins=3:abc", reloaded.get(9606));
+        assertNull(reloaded.get(4932));
+        assertEquals(ImmutableSet.of(9606), reloaded.getSpecies());
+    }
+
+    @Test
+    public void proteins_part_sees_values_moved_between_tables() throws Exception {
+        assertEquals("proteins=2:" + Long.toHexString(31 * 5 + 1), SpeciesFingerprints.proteins(2, 5, 0));
+        assertFalse(SpeciesFingerprints.proteins(2, 5, 0).equals(SpeciesFingerprints.proteins(2, 0, 5)));
+        assertFalse(SpeciesFingerprints.proteins(2, 5, 0).equals(SpeciesFingerprints.proteins(3, 5, 0)));
+    }
+
+    @Test
+    public void recorded_fingerprint_is_taken_as_it_is() throws Exception {
+        //no database to compute it with
+        final IndexingDbFacade db = new IndexingDbFacade(null, null, null, null) {
+            @Override
+            String loadFingerprint(Integer speciesId) {
+                return "links=10:123|proteins=3:abc";
+            }
+        };
+        assertEquals("links=10:123|proteins=3:abc", SpeciesFingerprints.of(db, 9606));
+        assertEquals("links=10:123", SpeciesFingerprints.links(db, 9606));
+        assertEquals(4L, SpeciesFingerprints.linkCount(db, 9606, 4));
+        assertEquals(10L, SpeciesFingerprints.linkCount(db, 9606, 20000));
+    }
+
+    @Test
+    public void capped_link_count_takes_the_species_and_the_limit() throws Exception {
+        final String query = SpeciesFingerprints.LINKS_COUNT_UP_TO_QUERY;
+        assertEquals(2, query.length() - query.replace("?", "").length());
+        assertTrue(query.indexOf("node_type_b = ?") < query.indexOf("LIMIT ?"));
+    }
+
+    @Test
+    public void every_table_query_gets_the_species() throws Exception {
+        final String query = SpeciesFingerprints.PROTEINS_FINGERPRINT_QUERY;
+        assertEquals(SpeciesFingerprints.PROTEINS_FINGERPRINT_PARAMETERS, query.length() - query.replace("?", "").length());
+    }
+
+    @Test
+    public void link_count_is_part_of_the_fingerprint() throws Exception {
+        assertEquals(5876L, SpeciesFingerprints.linkCount("links=5876:-123412341234|proteins=19566:6d2c1a0f9e3b4a77"));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SpeciesSchedulerTest {
+    static final long MB = 1 << 20;
+
+    @Test
+    public void footprint_grows_with_proteins_set_entries_and_rows_in_flight() throws Exception {
+        assertTrue(SpeciesScheduler.footprint(1000, 20000, 0) > SpeciesScheduler.footprint(1000, 4000, 0));
+        assertTrue(SpeciesScheduler.footprint(1000, 4000, 0) > SpeciesScheduler.footprint(10, 4000, 0));
+        assertTrue(SpeciesScheduler.footprint(1000, 4000, 400000) > SpeciesScheduler.footprint(1000, 4000, 0));
+        //rows are streamed, only so many are around at a time
+        assertEquals(SpeciesScheduler.footprint(SpeciesScheduler.MAX_ROWS_IN_FLIGHT, 4000, 0),
+                SpeciesScheduler.footprint(100 * SpeciesScheduler.MAX_ROWS_IN_FLIGHT, 4000, 0));
+    }
+
+    @Test
+    public void set_memberships_outweigh_the_other_tables_of_a_large_species() throws Exception {
+        //20000 proteins with a hundred sets each
+        final long tables = SpeciesScheduler.footprint(0, 20000, 0) - SpeciesScheduler.footprint(0, 0, 0);
+        final long sets = SpeciesScheduler.footprint(0, 0, 2000000) - SpeciesScheduler.footprint(0, 0, 0);
+        assertTrue(sets > tables);
+    }
+
+    @Test
+    public void largest_first() throws Exception {
+        assertEquals(Arrays.asList(9606, 10090, 4932, 511145),
+                SpeciesScheduler.largestFirst(ImmutableMap.of(511145, 5 * MB, 9606, 600 * MB, 4932, 50 * MB, 10090, 550 * MB)));
+    }
+
+    @Test
+    public void large_species_run_alone_small_ones_together() throws Exception {
+        final Map<Integer, Long> footprints = new HashMap<>();
+        footprints.put(9606, 600 * MB);
+        footprints.put(10090, 550 * MB);
+        for (int spcId = 1; spcId <= 8; spcId++) {
+            footprints.put(spcId, 100 * MB);
+        }
+        final HeapBudget budget = new HeapBudget(1000 * MB);
+        final AtomicInteger running = new AtomicInteger();
+        final Map<Integer, Integer> runningAlongside = Collections.synchronizedMap(new HashMap<Integer, Integer>());
+        final Map<Integer, Future<Integer>> results = new SpeciesScheduler(budget, 4).run(footprints,
+                new SpeciesScheduler.SpeciesTask<Integer>() {
+                    @Override
+                    public Integer run(Integer speciesId) throws Exception {
+                        final int alongside = running.incrementAndGet() - 1;
+                        Thread.sleep(50);
+                        runningAlongside.put(speciesId, Math.max(alongside, running.get() - 1));
+                        running.decrementAndGet();
+                        return speciesId;
+                    }
+                });
+        final List<Integer> started = new ArrayList<>(results.keySet());
+        assertEquals(Arrays.asList(9606, 10090), started.subList(0, 2));
+        for (Map.Entry<Integer, Future<Integer>> e : results.entrySet()) {
+            assertEquals(e.getKey(), e.getValue().get());
+        }
+        assertEquals(Integer.valueOf(0), runningAlongside.get(9606));
+        assertEquals(Integer.valueOf(0), runningAlongside.get(10090));
+        int packed = 0;
+        for (int spcId = 1; spcId <= 8; spcId++) {
+            packed = Math.max(packed, runningAlongside.get(spcId));
+        }
+        assertTrue("small species should run together", packed > 0);
+        assertEquals(0, budget.getRunning());
+        assertEquals(0, budget.getReserved());
+    }
+
+    @Test
+    public void a_species_over_the_budget_still_runs() throws Exception {
+        final HeapBudget budget = new HeapBudget(100 * MB);
+        final Map<Integer, Future<String>> results = new SpeciesScheduler(budget, 2).run(
+                ImmutableMap.of(9606, 400 * MB), new SpeciesScheduler.SpeciesTask<String>() {
+                    @Override
+                    public String run(Integer speciesId) throws Exception {
+                        return "done";
+                    }
+                });
+        assertEquals("done", results.get(9606).get());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.string_db.ProteinExternalId;
+import org.string_db.StringDbScores;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SpeciesSnapshotTest {
+
+    File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("9606", SpeciesSnapshot.SUFFIX);
+        file.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    void write(int rows) throws IOException {
+        final SpeciesSnapshot.Writer writer = new SpeciesSnapshot.Writer(file, 9606, true);
+        writer.section(SpeciesSnapshot.SPECIES_NAMES).strings(Arrays.asList("Homo sapiens", "human"));
+        writer.section(SpeciesSnapshot.SCORE_TYPES).intStrings(ImmutableMap.of(6, "textmining", 13, "database"));
+        writer.section(SpeciesSnapshot.EXTERNAL_IDS).intStrings(ImmutableMap.of(
+                975673, new ProteinExternalId("9606.ENSP00000000233"), 1847, new ProteinExternalId("9606.ENSP00000356737")));
+        writer.section(SpeciesSnapshot.REFSEQ_IDS).intStringSets(ImmutableMap.<Integer, Set<String>>of(
+                975673, ImmutableSet.of("NP_001653.1", "NP_001171539.1")));
+        writer.section(SpeciesSnapshot.SETS_COLLECTIONS).stringStrings(ImmutableMap.of("hprd:35158", "hprd"));
+        writer.section(SpeciesSnapshot.SCORES);
+        for (int i = 0; i < rows; i++) {
+            writer.scores(i, i + 1, new Integer[][]{{6, 500}, {13, null}});
+        }
+        writer.close();
+    }
+
+    @Test
+    public void sections_read_back() throws Exception {
+        write(0);
+        final SpeciesSnapshot snapshot = SpeciesSnapshot.open(file);
+        assertEquals(9606, snapshot.getSpeciesId());
+        assertTrue(snapshot.isCore());
+        assertEquals(Arrays.asList("Homo sapiens", "human"), snapshot.strings(SpeciesSnapshot.SPECIES_NAMES));
+        assertEquals(ImmutableMap.of(6, "textmining", 13, "database"), snapshot.intStrings(SpeciesSnapshot.SCORE_TYPES));
+        final Map<Integer, ProteinExternalId> externalIds = snapshot.externalIds();
+        assertEquals("9606.ENSP00000356737", externalIds.get(1847).toString());
+        assertEquals(ImmutableSet.of("NP_001653.1", "NP_001171539.1"),
+                snapshot.intStringSets(SpeciesSnapshot.REFSEQ_IDS).get(975673));
+        assertEquals(ImmutableMap.of("hprd:35158", "hprd"), snapshot.stringStrings(SpeciesSnapshot.SETS_COLLECTIONS));
+        assertFalse(snapshot.has(SpeciesSnapshot.ROGIDS));
+        assertFalse(snapshot.scores().next());
+    }
+
+    @Test
+    public void scores_across_windows() throws Exception {
+        write(1000);
+        //rows are 28 bytes, so they keep straddling the window boundary
+        final DataReader<StringDbScores> scores = SpeciesSnapshot.open(file).scores(100);
+        int rows = 0;
+        while (scores.next()) {
+            final StringDbScores row = scores.get();
+            assertEquals(Integer.valueOf(rows), row.getProteinA());
+            assertEquals(Integer.valueOf(rows + 1), row.getProteinB());
+            rows++;
+        }
+        assertEquals(1000, rows);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void other_versions_rejected() throws Exception {
+        write(0);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(SpeciesSnapshot.VERSION + 1);
+        }
+        SpeciesSnapshot.open(file);
+    }
+}
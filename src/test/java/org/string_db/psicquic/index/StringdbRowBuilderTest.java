@@ -56,4 +56,31 @@ public class StringdbRowBuilderTest {
         assertRowsEquals(new RowBuilder().withConfidence(662).withInteractorTypeA("MI:0326").withInteractorTypeB("MI:0326").build(), rows.get(1));
     }
 
+    @Test
+    public void interactor_columns_built_once_per_pair() throws Exception {
+        final int[] calls = new int[1];
+        final StringdbRowBuilder stringdbRowBuilder = new StringdbRowBuilder(new ConfidenceColumnBuilder(null) {
+            @Override
+            Map<EvidenceType, RowBuilder> buildRowForEachEvidenceType(StringDbScores scores) {
+                return ImmutableMap.of(
+                        EvidenceType.NEIGHBOURHOOD, new RowBuilder().withConfidence(771),
+                        EvidenceType.COEXPRESSION, new RowBuilder().withConfidence(662),
+                        EvidenceType.TEXTMINING, new RowBuilder().withConfidence(400)
+                );
+            }
+        },
+                new InteractorTypeFieldBuilder() {
+                    @Override
+                    protected void append(RowBuilder rowBuilder) {
+                        calls[0]++;
+                        super.append(rowBuilder);
+                    }
+                }
+        );
+        final List<Row> rows = stringdbRowBuilder.build(StringDbScores.builder(1, 2).build());
+
+        assertEquals(3, rows.size());
+        assertEquals(1, calls[0]);
+        assertRowsEquals(new RowBuilder().withConfidence(400).withInteractorTypeA("MI:0326").withInteractorTypeB("MI:0326").build(), rows.get(2));
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.string_db.psicquic.index;
+
+import com.google.common.collect.ImmutableMap;
+import org.hupo.psi.calimocho.model.Row;
+import org.junit.Test;
+import org.string_db.UniprotAC;
+import org.string_db.psicquic.SearchServer;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StringdbSolrIndexerTest {
+    static final long MB = 1 << 20;
+
+    final List<Integer> indexed = Collections.synchronizedList(new ArrayList<Integer>());
+
+    @Test
+    public void species_are_indexed_concurrently() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch allThreadsBusy = new CountDownLatch(3);
+        final StringdbSolrIndexer cut = new RecordingIndexer(footprints(MB, 1, 2, 3, 4, 5, 6)) {
+            @Override
+            void index(Integer spcId) throws Exception {
+                final int now = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), now));
+                }
+                allThreadsBusy.countDown();
+                allThreadsBusy.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+            }
+        };
+        cut.indexSpecies(Arrays.asList(1, 2, 3, 4, 5, 6), 3);
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), sorted(indexed));
+        assertEquals(3, maxRunning.get());
+    }
+
+    @Test
+    public void largest_species_are_indexed_first() throws Exception {
+        //all above half the budget, so they run one at a time
+        final StringdbSolrIndexer cut = new RecordingIndexer(ImmutableMap.of(4932, 600 * MB, 9606, 900 * MB, 10090, 700 * MB));
+        cut.setHeapBudget(new HeapBudget(1000 * MB));
+        cut.indexSpecies(Arrays.asList(4932, 9606, 10090), 2);
+
+        assertEquals(Arrays.asList(9606, 10090, 4932), indexed);
+    }
+
+    @Test
+    public void failed_species_are_reported_after_the_others_are_done() throws Exception {
+        final StringdbSolrIndexer cut = new RecordingIndexer(footprints(MB, 1, 2, 3, 4)) {
+            @Override
+            void index(Integer spcId) throws Exception {
+                if (spcId == 2) {
+                    throw new IllegalStateException("species 2 is broken");
+                }
+            }
+        };
+        try {
+            cut.indexSpecies(Arrays.asList(1, 2, 3, 4), 2);
+            fail("species 2 failed");
+        } catch (RuntimeException e) {
+            assertEquals("failed to index species: [2]", e.getMessage());
+        }
+        assertEquals(Arrays.asList(1, 3, 4), sorted(indexed));
+    }
+
+    @Test
+    public void species_are_indexed_one_after_another_with_one_thread() throws Exception {
+        final StringdbSolrIndexer cut = new RecordingIndexer(Collections.<Integer, Long>emptyMap()) {
+            @Override
+            Map<Integer, Long> estimateFootprints(List<Integer> speciesIds) {
+                throw new AssertionError("not needed to index serially");
+            }
+        };
+        cut.indexSpecies(Arrays.asList(3, 1, 2), 1);
+
+        assertEquals(Arrays.asList(3, 1, 2), indexed);
+    }
+
+    private static Map<Integer, Long> footprints(long footprint, Integer... species) {
+        final Map<Integer, Long> footprints = new HashMap<>();
+        for (Integer spcId : species) {
+            footprints.put(spcId, footprint);
+        }
+        return footprints;
+    }
+
+    private static List<Integer> sorted(List<Integer> species) {
+        final List<Integer> copy = new ArrayList<>(species);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    /**
+     * records the species indexed, instead of reading and sending them
+     */
+    class RecordingIndexer extends StringdbSolrIndexer {
+        final Map<Integer, Long> footprints;
+
+        RecordingIndexer(Map<Integer, Long> footprints) throws Exception {
+            super(new IndexingDbFacade(null, null, null, null), new CountingSearchServer(), Collections.<Integer, UniprotAC>emptyMap(),
+                    null, 0, null, null, false);
+            this.footprints = footprints;
+            setHeapBudget(new HeapBudget(1 << 30));
+        }
+
+        @Override
+        Map<Integer, Long> estimateFootprints(List<Integer> speciesIds) {
+            return footprints;
+        }
+
+        @Override
+        long indexSpecies(Integer spcId) throws Exception {
+            index(spcId);
+            indexed.add(spcId);
+            return 1;
+        }
+
+        void index(Integer spcId) throws Exception {
+        }
+    }
+
+    static class CountingSearchServer implements SearchServer {
+        int documents = 0;
+
+        @Override
+        public void add(Row row) {
+            documents++;
+        }
+
+        @Override
+        public void addAll(Collection<Row> rows) {
+            documents += rows.size();
+        }
+
+        @Override
+        public void commit(boolean reopenSearcher) {
+        }
+
+        @Override
+        public Long countIndexedDocuments() {
+            return (long) documents;
+        }
+
+        @Override
+        public void deleteAll() {
+            documents = 0;
+        }
+
+        @Override
+        public void deleteSpecies(Integer speciesId) {
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 University of Zürich, SIB, and others.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.string_db.psicquic.index;
+
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TableLoaderTest {
+
+    @Test
+    public void tables_are_loaded_at_the_same_time() throws Exception {
+        final TableLoader loader = TableLoader.withThreads(3);
+        //each table only finishes once all three are loading
+        final CountDownLatch allLoading = new CountDownLatch(3);
+        final TableLoader.Tables tables = loader.tables(9606);
+        final List<Future<String>> loading = new ArrayList<>();
+        for (final String name : new String[]{"external_ids", "protein_names", "refseq_ids"}) {
+            loading.add(tables.load(name, new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    allLoading.countDown();
+                    assertTrue(allLoading.await(10, TimeUnit.SECONDS));
+                    return name;
+                }
+            }));
+        }
+        assertEquals("external_ids", tables.get(loading.get(0)));
+        assertEquals("refseq_ids", tables.get(loading.get(2)));
+        tables.loaded();
+        loader.shutdown();
+    }
+
+    @Test
+    public void calling_thread_loads_them_one_by_one() throws Exception {
+        final TableLoader.Tables tables = TableLoader.CALLING_THREAD.tables(511145);
+        final Future<Thread> table = tables.load("species_names", new Callable<Thread>() {
+            @Override
+            public Thread call() throws Exception {
+                return Thread.currentThread();
+            }
+        });
+        assertTrue(table.isDone());
+        assertSame(Thread.currentThread(), tables.get(table));
+    }
+
+    @Test
+    public void failed_table_cancels_the_others() throws Exception {
+        final TableLoader loader = TableLoader.withThreads(1);
+        final TableLoader.Tables tables = loader.tables(9606);
+        final Future<String> failing = tables.load("proteins_sets", new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new SQLException("connection reset");
+            }
+        });
+        final CountDownLatch never = new CountDownLatch(1);
+        final Future<String> waiting = tables.load("rogids", new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                never.await();
+                return "rogids";
+            }
+        });
+        try {
+            tables.get(failing);
+            fail("table loader's exception expected");
+        } catch (SQLException e) {
+            assertEquals("connection reset", e.getMessage());
+        }
+        assertTrue(waiting.isCancelled());
+        loader.shutdown();
+    }
+}